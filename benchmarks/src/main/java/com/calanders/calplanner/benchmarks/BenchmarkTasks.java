@@ -0,0 +1,80 @@
+package com.calanders.calplanner.benchmarks;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.util.Week;
+import com.calanders.calplanner.workload.TaskGenerator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A class that creates the Tasks that the benchmarks run on with a {@link TaskGenerator}. The Tasks are
+ * spread over {@value #DAYS} days starting at the fixed {@link #FIRST_DAY}, so the same count and skew
+ * always create the same Tasks on whatever day the benchmarks run. The benchmarks display the week in
+ * the middle of the days, which is found with {@link #getMiddleOffset()}. The Tasks are shuffled, so
+ * they are not added in order of their dates.
+ */
+public class BenchmarkTasks {
+    /**
+     * The number of days that the Tasks are spread over.
+     */
+    public static final int DAYS = 3654;
+    /**
+     * The first day that Tasks are placed on, which is a Monday.
+     */
+    public static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 6);
+    private static final long SEED = 42;
+
+    /**
+     * Creates a number of Tasks spread over the days as specified.
+     *
+     * @param count the number of Tasks
+     * @param skew the way in which the Tasks are spread over the days
+     * @return the ArrayList of Tasks
+     */
+    public static ArrayList<Task> create(int count, TaskGenerator.Distribution skew) {
+        Iterator<Task> generated = new TaskGenerator(SEED)
+                .withSpan(LocalDate.ofEpochDay(getFirstEpochDay()), DAYS)
+                .withDistribution(skew)
+                .withTextLength(3, 60)
+                .generate(count);
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        while (generated.hasNext()) {
+            tasks.add(generated.next());
+        }
+        Collections.shuffle(tasks, new Random(SEED));
+        return tasks;
+    }
+
+    /**
+     * Retrieves the first day that Tasks are placed on, which is a Monday.
+     *
+     * @return the first day counted from the epoch (1970-01-01)
+     */
+    public static int getFirstEpochDay() {
+        return (int) FIRST_DAY.toEpochDay();
+    }
+
+    /**
+     * Retrieves the offset in weeks from the current week of the week that contains the specified day.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @return the offset of its week for {@link Week#of(int)}
+     */
+    public static int getOffset(int epochDay) {
+        return Math.floorDiv(epochDay - Week.of(0).getFirstEpochDay(), 7);
+    }
+
+    /**
+     * Retrieves the offset in weeks from the current week of the week in the middle of the days that
+     * Tasks are placed on, which the benchmarks display.
+     *
+     * @return the offset of the middle week for {@link Week#of(int)}
+     */
+    public static int getMiddleOffset() {
+        return getOffset(getFirstEpochDay() + DAYS / 14 * 7);
+    }
+}
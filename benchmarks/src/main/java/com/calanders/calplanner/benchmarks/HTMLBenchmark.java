@@ -0,0 +1,57 @@
+package com.calanders.calplanner.benchmarks;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.util.HTMLUtil;
+import com.calanders.calplanner.workload.TaskGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the HTML export of single Tasks with {@code HTMLUtil.getTaskHTML}, and of finding the
+ * UUID in such HTML again with {@code HTMLUtil.getUUIDFromHTML}. The Tasks are taken from the whole set
+ * in turn, and the HTML is created beforehand for up to {@value #MAX_HTML} of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public class HTMLBenchmark {
+    private static final int MAX_HTML = 65536;
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+    @Param({"UNIFORM", "ZIPF"})
+    public TaskGenerator.Distribution skew;
+    private Task[] tasks;
+    private String[] html;
+    private int nextTask;
+    private int nextHTML;
+
+    @Setup
+    public void setUp() {
+        List<Task> created = BenchmarkTasks.create(taskCount, skew);
+        tasks = created.toArray(new Task[0]);
+        html = new String[Math.min(tasks.length, MAX_HTML)];
+        for (int i = 0; i < html.length; i++) {
+            html[i] = HTMLUtil.getTaskHTML(tasks[i * (tasks.length / html.length)]);
+        }
+    }
+
+    @Benchmark
+    public String getTaskHTML() {
+        Task task = tasks[nextTask];
+        nextTask = nextTask + 1 < tasks.length ? nextTask + 1 : 0;
+        return HTMLUtil.getTaskHTML(task);
+    }
+
+    @Benchmark
+    public UUID getUUIDFromHTML() {
+        String s = html[nextHTML];
+        nextHTML = nextHTML + 1 < html.length ? nextHTML + 1 : 0;
+        return HTMLUtil.getUUIDFromHTML(s);
+    }
+}
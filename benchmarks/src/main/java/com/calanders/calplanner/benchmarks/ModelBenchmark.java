@@ -0,0 +1,100 @@
+package com.calanders.calplanner.benchmarks;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskIndex;
+import com.calanders.calplanner.gui.table.CalendarModel;
+import com.calanders.calplanner.util.Week;
+import com.calanders.calplanner.workload.TaskGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the lookups that the Calendar makes through its CalendarModel whenever a cell is
+ * painted, selected, or edited: {@code getTask}, {@code getTaskRow}, {@code getTaskColumn}, and
+ * {@code getAppropriateRowCount}. The lookups are made on the Tasks of the displayed week, and the row
+ * counts of every week that holds Tasks, in turn. They run headless.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public class ModelBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+    @Param({"UNIFORM", "ZIPF"})
+    public TaskGenerator.Distribution skew;
+    private CalendarModel calendarModel;
+    private Week[] weeks;
+    private Task[] displayed;
+    private int[] rows;
+    private int[] cols;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TaskIndex tasks = new TaskIndex();
+        tasks.addAll(BenchmarkTasks.create(taskCount, skew));
+        weeks = new Week[BenchmarkTasks.DAYS / 7];
+        int firstOffset = BenchmarkTasks.getOffset(BenchmarkTasks.getFirstEpochDay());
+        for (int i = 0; i < weeks.length; i++) {
+            weeks[i] = Week.of(firstOffset + i);
+        }
+        // The middle week, or the next one that holds Tasks if a small set leaves it empty
+        int offset = BenchmarkTasks.getMiddleOffset();
+        while (tasks.getMaxCount(Week.of(offset).getFirstEpochDay()) == 0) {
+            offset++;
+        }
+        Week displayedWeek = Week.of(offset);
+        calendarModel = new CalendarModel(tasks);
+        calendarModel.setWeek(displayedWeek);
+
+        List<Task> week = new ArrayList<>();
+        List<int[]> cells = new ArrayList<>();
+        for (int col = 0; col < 7; col++) {
+            List<Task> day = tasks.getTasks(displayedWeek.getEpochDay(col));
+            for (int row = 0; row < day.size(); row++) {
+                week.add(day.get(row));
+                cells.add(new int[]{row, col});
+            }
+        }
+        displayed = week.toArray(new Task[0]);
+        rows = new int[cells.size()];
+        cols = new int[cells.size()];
+        for (int i = 0; i < cells.size(); i++) {
+            rows[i] = cells.get(i)[0];
+            cols[i] = cells.get(i)[1];
+        }
+    }
+
+    @Benchmark
+    public Task getTask() {
+        int i = next(rows.length);
+        return calendarModel.getTask(rows[i], cols[i]);
+    }
+
+    @Benchmark
+    public int getTaskRow() {
+        return calendarModel.getTaskRow(displayed[next(displayed.length)]);
+    }
+
+    @Benchmark
+    public int getTaskColumn() {
+        return calendarModel.getTaskColumn(displayed[next(displayed.length)]);
+    }
+
+    @Benchmark
+    public int getAppropriateRowCount() {
+        return calendarModel.getAppropriateRowCount(weeks[next(weeks.length)]);
+    }
+
+    private int next(int length) {
+        int i = next < length ? next : 0;
+        next = i + 1;
+        return i;
+    }
+}
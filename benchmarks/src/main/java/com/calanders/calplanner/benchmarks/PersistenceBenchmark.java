@@ -0,0 +1,78 @@
+package com.calanders.calplanner.benchmarks;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.resources.FileManager;
+import com.calanders.calplanner.workload.TaskGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of storing every Task with {@code FileManager.saveTasks} and reading every Task back with
+ * {@code FileManager.getTasks}. Each invocation uses a FileManager that has just been opened on a
+ * temporary directory, so {@code getTasks} reads every segment from disk rather than from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public class PersistenceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+    @Param({"UNIFORM", "ZIPF"})
+    public TaskGenerator.Distribution skew;
+    private ArrayList<Task> tasks;
+    private File directory;
+    private FileManager fileManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tasks = BenchmarkTasks.create(taskCount, skew);
+        directory = Files.createTempDirectory("calplanner-benchmark").toFile();
+        FileManager fileManager = new FileManager(directory);
+        fileManager.saveTasks(tasks);
+        fileManager.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void open() {
+        fileManager = new FileManager(directory);
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() {
+        fileManager.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Benchmark
+    public FileManager saveTasks() {
+        fileManager.saveTasks(tasks);
+        return fileManager;
+    }
+
+    @Benchmark
+    public ArrayList<Task> getTasks() {
+        return fileManager.getTasks();
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,82 @@
+package com.calanders.calplanner.benchmarks;
+
+import com.calanders.calplanner.data.TaskIndex;
+import com.calanders.calplanner.gui.table.CalendarModel;
+import com.calanders.calplanner.gui.table.TaskCellRenderer;
+import com.calanders.calplanner.util.Week;
+import com.calanders.calplanner.workload.TaskGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of rendering the week view, without a window so that they run headless. As in
+ * {@code Calendar.renderTasks}, {@code renderTasks} sets the week of the CalendarModel, which computes
+ * its row count, and then paints the visible part of the table with the TaskCellRenderer into an
+ * image the size of a screen. {@code paint} only paints the displayed week again, as when the window
+ * is repainted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public class RenderBenchmark {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int ROW_HEIGHT = 120;
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+    @Param({"UNIFORM", "ZIPF"})
+    public TaskGenerator.Distribution skew;
+    private CalendarModel calendarModel;
+    private JTable table;
+    private BufferedImage image;
+    private Week[] weeks;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TaskIndex tasks = new TaskIndex();
+        tasks.addAll(BenchmarkTasks.create(taskCount, skew));
+        calendarModel = new CalendarModel(tasks);
+        table = new JTable(calendarModel);
+        table.setRowHeight(ROW_HEIGHT);
+        table.setDefaultRenderer(Object.class, new TaskCellRenderer());
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        // The displayed week and its neighbors, as when navigating
+        int offset = BenchmarkTasks.getMiddleOffset();
+        weeks = new Week[]{Week.of(offset - 1), Week.of(offset), Week.of(offset + 1), Week.of(offset)};
+        calendarModel.setWeek(Week.of(offset));
+        layOut();
+    }
+
+    @Benchmark
+    public BufferedImage renderTasks() {
+        calendarModel.setWeek(weeks[next]);
+        next = (next + 1) % weeks.length;
+        layOut();
+        return paint();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setClip(0, 0, WIDTH, HEIGHT);
+            table.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private void layOut() {
+        table.setSize(WIDTH, ROW_HEIGHT * table.getRowCount());
+        table.doLayout();
+    }
+}
@@ -0,0 +1,39 @@
+package com.calanders.calplanner.benchmarks;
+
+import com.calanders.calplanner.util.Week;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark of {@code Calendar.getWeekDates}, which retrieves the display dates of a Week through
+ * {@link Week#of(int)}. The cache of Week holds the 16 most recently used Weeks: getCachedWeekDates
+ * cycles through {@value #CACHED_WEEKS} weeks around the current one, as when navigating back and forth,
+ * so every Week comes from the cache, while getUncachedWeekDates cycles through a year of weeks, so
+ * every Week is created again. It does not depend on any Task, so it is not parameterized by the
+ * number of Tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class WeekBenchmark {
+    private static final int CACHED_WEEKS = 8;
+    private static final int UNCACHED_WEEKS = 52;
+    private int cachedOffset;
+    private int uncachedOffset;
+
+    @Benchmark
+    public String[] getCachedWeekDates() {
+        cachedOffset = cachedOffset < CACHED_WEEKS / 2 - 1 ? cachedOffset + 1 : -CACHED_WEEKS / 2;
+        return Week.of(cachedOffset).getDates();
+    }
+
+    @Benchmark
+    public String[] getUncachedWeekDates() {
+        uncachedOffset = uncachedOffset < UNCACHED_WEEKS / 2 ? uncachedOffset + 1 : -UNCACHED_WEEKS / 2;
+        return Week.of(uncachedOffset).getDates();
+    }
+}
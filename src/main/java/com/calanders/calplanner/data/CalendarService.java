@@ -0,0 +1,777 @@
+package com.calanders.calplanner.data;
+
+import com.calanders.calplanner.data.resources.FileManager;
+import com.calanders.calplanner.util.PersistentHashMap;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * A class that holds the Tasks and Recurrences of a Calendar and every change made to them, without
+ * any user interface. The Tasks are loaded, indexed, expanded from their Recurrences, stored, and
+ * recorded for undoing here, so the same logic can be driven by the Calendar window, by scripts, or
+ * by servers, from any number of threads.
+ * <p>
+ * Changes are made one at a time under the write lock of a StampedLock. Before the write lock is
+ * released, the Tasks of every changed day are copied into an immutable List and published in a
+ * PersistentHashMap by day, so the Tasks of a day, their counts, and the Tasks by UUID are read without
+ * any locking, while a change is being made, and always from the last completed change. Since readers
+ * never hold the lock, they can not keep a writer waiting. The range counts are read optimistically
+ * from the FenwickTrees of the TaskIndex, which only ever grow, and are read again under the read lock
+ * if a change was made meanwhile. The {@link #getSnapshot() Snapshot} of the loaded Tasks and
+ * Recurrences is never changed either, so it may be read by any thread at any time.
+ * <p>
+ * Every call to the FileManager is made under the write lock, including the loads of months it
+ * makes on its own, which is why the FileManager must not be used by anyone else. The
+ * {@link ChangeListener} is notified of every change once the write lock has been released, on the
+ * thread that made the change.
+ */
+public class CalendarService implements TaskRepository {
+    private final FileManager fileManager;
+    private final TaskIndex tasks;
+    private final TaskColumns taskColumns;
+    private final OccurrenceExpander occurrenceExpander;
+    private final TaskHistory history;
+    private final StampedLock lock;
+    private final HashSet<Integer> changedDays;
+    private final Set<Integer> loadedWeeks;
+    private boolean recurrencesChanged;
+    private boolean allDaysChanged;
+    private volatile PersistentHashMap<Integer, List<Task>> days;
+    private volatile int size;
+    private volatile TaskHistory.Snapshot snapshot;
+    private TaskHistory.Snapshot changeStart;
+    private volatile ChangeListener changeListener;
+    private volatile Runnable historyListener;
+    private boolean recorded;
+
+    /**
+     * A listener of the changes made to the Tasks of a CalendarService.
+     */
+    public interface ChangeListener {
+        /**
+         * Called after Tasks have been added, modified, deleted, or loaded on the specified days.
+         *
+         * @param epochDays the changed days counted from the epoch (1970-01-01)
+         */
+        void daysChanged(Set<Integer> epochDays);
+
+        /**
+         * Called after a change that may have touched any day, such as a changed Recurrence or an
+         * import.
+         */
+        void allDaysChanged();
+    }
+
+    /**
+     * Constructs a new CalendarService that stores its Tasks with the specified FileManager. The
+     * Recurrences are read at once, while the Tasks are only loaded by {@link #loadTasks(LocalDate, LocalDate)}.
+     *
+     * @param fileManager the FileManager to store the Tasks with
+     */
+    public CalendarService(FileManager fileManager) {
+        this.fileManager = fileManager;
+        tasks = new TaskIndex();
+        taskColumns = new TaskColumns();
+        history = new TaskHistory();
+        lock = new StampedLock();
+        changedDays = new HashSet<>();
+        loadedWeeks = ConcurrentHashMap.newKeySet();
+        days = PersistentHashMap.empty();
+        changeListener = new ChangeListener() {
+            @Override
+            public void daysChanged(Set<Integer> epochDays) {
+            }
+
+            @Override
+            public void allDaysChanged() {
+            }
+        };
+
+        TaskHistory.Snapshot snapshot = TaskHistory.Snapshot.empty();
+        List<Recurrence> recurrences = fileManager.getRecurrences();
+        for (Recurrence recurrence : recurrences) {
+            snapshot = snapshot.withRecurrence(recurrence);
+        }
+        this.snapshot = snapshot;
+        occurrenceExpander = new OccurrenceExpander(tasks, taskColumns, changedDays, recurrences);
+        historyListener = () -> {
+        };
+        fileManager.setLoadListener(this::indexLoaded);
+    }
+
+    /**
+     * Sets the listener that is notified of the changes made to the Tasks.
+     *
+     * @param changeListener the ChangeListener
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Sets the listener that is notified whenever a change is recorded for undoing, so that changes made
+     * to several CalendarServices can be undone in the order they were made. Undoing and redoing are not
+     * recorded.
+     *
+     * @param historyListener the listener
+     */
+    public void setHistoryListener(Runnable historyListener) {
+        this.historyListener = historyListener;
+    }
+
+    /* Changes */
+
+    /**
+     * Adds a new Task and stores it.
+     *
+     * @param task the Task to add
+     */
+    public void addTask(Task task) {
+        if (task != null) {
+            long stamp = beginChange();
+            try {
+                putTask(task);
+            } finally {
+                endChange(stamp);
+            }
+        }
+    }
+
+    /**
+     * Adds a new Recurrence. Only the rule is stored, and its occurrences are created for the weeks
+     * that have been loaded.
+     *
+     * @param recurrence the Recurrence to add
+     */
+    public void addRecurrence(Recurrence recurrence) {
+        if (recurrence != null) {
+            long stamp = beginChange();
+            try {
+                putRecurrence(recurrence);
+            } finally {
+                endChange(stamp);
+            }
+        }
+    }
+
+    /**
+     * Deletes a Recurrence together with all of its occurrences, including the edited ones.
+     *
+     * @param recurrence the Recurrence to delete
+     */
+    public void deleteRecurrence(Recurrence recurrence) {
+        if (recurrence != null) {
+            long stamp = beginChange();
+            try {
+                removeRecurrence(recurrence);
+            } finally {
+                endChange(stamp);
+            }
+        }
+    }
+
+    /**
+     * Modifies the loaded Task with the same UUID as the specified Task. Nothing is changed if no
+     * loaded Task has the UUID. If the Task is an occurrence of a Recurrence, only that occurrence is
+     * modified by storing the Task as an override of the Recurrence.
+     *
+     * @param task the modified Task
+     */
+    public void editTask(Task task) {
+        if (task != null) {
+            long stamp = beginChange();
+            try {
+                Recurrence recurrence = occurrenceExpander.getSeries(task);
+                Task previous = tasks.get(task.getUUID());
+                if (recurrence != null) {
+                    putRecurrence(recurrence.withOverride(task));
+                } else if (previous != null) {
+                    replaceTask(previous, task);
+                }
+            } finally {
+                endChange(stamp);
+            }
+        }
+    }
+
+    /**
+     * Deletes the loaded Task with the same UUID as the specified Task. If the Task is an occurrence of
+     * a Recurrence, only that occurrence is deleted by storing an exception of the Recurrence.
+     *
+     * @param task the Task to delete
+     */
+    public void deleteTask(Task task) {
+        if (task != null) {
+            long stamp = beginChange();
+            try {
+                Recurrence recurrence = occurrenceExpander.getSeries(task);
+                if (recurrence != null) {
+                    putRecurrence(recurrence.withException(recurrence.getOccurrenceDay(task.getUUID())));
+                } else {
+                    removeTask(task);
+                }
+            } finally {
+                endChange(stamp);
+            }
+        }
+    }
+
+    /**
+     * Adds new Tasks in a single batch, as {@link #applyAll(Collection)} does, unless a Task already has
+     * the UUID of one of them. The months of the new Tasks are loaded first, so that Tasks that are
+     * stored but have not been loaded yet are found as well. The check and the addition are made under
+     * the same lock, so two callers adding a Task with the same UUID can not both succeed.
+     *
+     * @param newTasks the Tasks to add, whose UUIDs must differ from each other
+     * @return null if the Tasks were added, or the UUID of the existing Task that prevented it
+     */
+    public UUID addAllIfAbsent(Collection<Task> newTasks) {
+        long stamp = beginChange();
+        try {
+            for (Task task : newTasks) {
+                loadMonth(task.getEpochDay());
+            }
+            for (Task task : newTasks) {
+                if (tasks.get(task.getUUID()) != null) {
+                    return task.getUUID();
+                }
+            }
+            List<TaskChange> changes = new ArrayList<>(newTasks.size());
+            for (Task task : newTasks) {
+                changes.add(TaskChange.add(task));
+            }
+            apply(changes);
+            return null;
+        } finally {
+            endChange(stamp);
+        }
+    }
+
+    /**
+     * Applies many changes at once, in order. The changes are stored in a single batch, the listener is
+     * notified once, and they are undone together. Changes to occurrences of Recurrences are stored as
+     * overrides and exceptions, as with {@link #editTask(Task)} and {@link #deleteTask(Task)}. The month
+     * of every changed Task is loaded first, and edits and deletions of Tasks that are not found are
+     * ignored.
+     *
+     * @param changes the TaskChanges to apply
+     */
+    public void applyAll(Collection<TaskChange> changes) {
+        long stamp = beginChange();
+        try {
+            apply(changes);
+        } finally {
+            endChange(stamp);
+        }
+    }
+
+    /**
+     * Reverts the latest change, if there is one. The Tasks and Recurrences that differ between the
+     * Snapshots before and after the change are restored and stored again.
+     */
+    public void undo() {
+        long stamp = lock.writeLock();
+        try {
+            TaskHistory.Step step = history.undo();
+            if (step != null) {
+                restore(step.getAfter(), step.getBefore());
+            }
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    /**
+     * Applies the latest reverted change again, if there is one.
+     */
+    public void redo() {
+        long stamp = lock.writeLock();
+        try {
+            TaskHistory.Step step = history.redo();
+            if (step != null) {
+                restore(step.getBefore(), step.getAfter());
+            }
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    /**
+     * Loads the Tasks of a range of dates from storage, so that they are indexed and included in the
+     * TaskColumns. The occurrences of the Recurrences within the weeks of the range are created as
+     * well. Months that have been loaded before are not read again, and if every week of the range has
+     * been loaded as a whole, the write lock is not taken at all, so loading a range that is already
+     * loaded never waits for a change.
+     *
+     * @param from the first date to load, inclusive
+     * @param to the last date to load, inclusive
+     */
+    public void loadTasks(LocalDate from, LocalDate to) {
+        int fromEpochDay = (int) from.toEpochDay();
+        int toEpochDay = (int) to.toEpochDay();
+        if (isLoaded(fromEpochDay, toEpochDay)) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            fileManager.loadTasks(from, to);
+            occurrenceExpander.expand(fromEpochDay, toEpochDay);
+        } finally {
+            unlock(stamp);
+        }
+        // Only marked once the Tasks have been published, so that a reader that skips the load sees them
+        for (int monday = TaskIndex.getMonday(fromEpochDay); monday <= toEpochDay - 6; monday += 7) {
+            if (monday >= fromEpochDay) {
+                loadedWeeks.add(monday);
+            }
+        }
+    }
+
+    /**
+     * Imports the events of an iCalendar (.ics) file as Tasks. Readers are only blocked while a batch is
+     * stored, and the imported Tasks of loaded months are indexed as they are stored. The others are
+     * indexed when their months are loaded.
+     *
+     * @param file the iCalendar File to import
+     * @return the number of imported Tasks, or -1 if the file could not be read
+     */
+    public int importCalendar(File file) {
+        int imported = fileManager.importCalendar(file, lock.asWriteLock(), this::indexImported);
+        long stamp = lock.writeLock();
+        allDaysChanged = true;
+        unlock(stamp);
+        return imported;
+    }
+
+    /**
+     * Exports every stored Task to an iCalendar (.ics) file, including the Tasks that are not loaded.
+     *
+     * @param file the iCalendar File to write
+     * @return the number of exported Tasks, or -1 if the file could not be written
+     */
+    public int exportCalendar(File file) {
+        return fileManager.exportCalendar(file);
+    }
+
+    /**
+     * Retrieves the Settings from storage.
+     *
+     * @return the Settings
+     */
+    public Settings getSettings() {
+        return fileManager.getSettings();
+    }
+
+    /**
+     * Saves the Settings into storage.
+     *
+     * @param settings the Settings to save
+     */
+    public void saveSettings(Settings settings) {
+        fileManager.saveSettings(settings);
+    }
+
+    /**
+     * Writes every pending change to storage and stops the background threads of the FileManager.
+     */
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            fileManager.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /* Reads */
+
+    @Override
+    public Task get(UUID uuid) {
+        Task task = snapshot.getTasks().get(uuid);
+        if (task != null) {
+            return task;
+        }
+        // Occurrences are not part of the Snapshot
+        return read(() -> tasks.get(uuid));
+    }
+
+    @Override
+    public List<Task> getTasks(int epochDay) {
+        List<Task> day = days.get(epochDay);
+        return day == null ? Collections.emptyList() : day;
+    }
+
+    @Override
+    public Task getTask(int epochDay, int position) {
+        List<Task> day = getTasks(epochDay);
+        return position >= 0 && position < day.size() ? day.get(position) : null;
+    }
+
+    @Override
+    public int getCount(int epochDay) {
+        return getTasks(epochDay).size();
+    }
+
+    @Override
+    public int getCount(int epochDay, int priority) {
+        int count = 0;
+        for (Task task : getTasks(epochDay)) {
+            if (task.getPriority() == priority) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int[] getRangeCounts(int fromEpochDay, int toEpochDay) {
+        // The FenwickTrees only ever grow, so a torn read stays within their arrays and is caught by
+        // the validation
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int[] counts = tasks.getRangeCounts(fromEpochDay, toEpochDay);
+            if (lock.validate(stamp)) {
+                return counts;
+            }
+        }
+        return read(() -> tasks.getRangeCounts(fromEpochDay, toEpochDay));
+    }
+
+    @Override
+    public List<Task> getTopTasks(int epochDay, int n) {
+        return TaskIndex.getTopTasks(getTasks(epochDay), n);
+    }
+
+    @Override
+    public int getMaxCount(int epochDay) {
+        PersistentHashMap<Integer, List<Task>> days = this.days;
+        int monday = TaskIndex.getMonday(epochDay);
+        int max = 0;
+        for (int day = monday; day < monday + 7; day++) {
+            List<Task> tasks = days.get(day);
+            if (tasks != null) {
+                max = Math.max(max, tasks.size());
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the loaded Tasks within a range of days that have the specified priority, by scanning the
+     * TaskColumns.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @param priority the priority, or {@link TaskColumns#ANY_PRIORITY}
+     * @return the number of matching Tasks
+     */
+    public int count(int fromEpochDay, int toEpochDay, int priority) {
+        return read(() -> taskColumns.count(fromEpochDay, toEpochDay, priority));
+    }
+
+    /**
+     * Finds the loaded Tasks within a range of days that have the specified priority, by scanning the
+     * TaskColumns. For example, all high priority Tasks of a quarter.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @param priority the priority, or {@link TaskColumns#ANY_PRIORITY}
+     * @return the List of matching Tasks in the order of the TaskColumns
+     */
+    public List<Task> findTasks(int fromEpochDay, int toEpochDay, int priority) {
+        return read(() -> {
+            int[] rows = taskColumns.select(fromEpochDay, toEpochDay, priority);
+            List<Task> found = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                found.add(taskColumns.getTask(row));
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Retrieves the Recurrence of which the specified Task is an occurrence.
+     *
+     * @param task the Task
+     * @return the Recurrence, or null if the Task is not an occurrence of a Recurrence
+     */
+    public Recurrence getRecurrence(Task task) {
+        return read(() -> occurrenceExpander.getSeries(task));
+    }
+
+    /**
+     * Returns whether there is a change to undo.
+     *
+     * @return true if a change can be undone, false otherwise
+     */
+    public boolean canUndo() {
+        return read(history::canUndo);
+    }
+
+    /**
+     * Returns whether there is a change to redo.
+     *
+     * @return true if a change can be redone, false otherwise
+     */
+    public boolean canRedo() {
+        return read(history::canRedo);
+    }
+
+    /**
+     * Retrieves the number of journal records that are waiting to be written to storage. The count is
+     * read without locking.
+     *
+     * @return the queue depth of the journal
+     */
+    public int getJournalQueueDepth() {
+        return fileManager.getQueueDepth();
+    }
+
+    /**
+     * Retrieves the time that the last batch of journal records took to be written and flushed to
+     * storage. The time is read without locking.
+     *
+     * @return the latency in nanoseconds, or 0 if nothing has been written yet
+     */
+    public long getLastFlushLatency() {
+        return fileManager.getLastFlushLatency();
+    }
+
+    /**
+     * Retrieves the current Snapshot of the loaded Tasks and the Recurrences. The Snapshot never
+     * changes, so it may be read by any thread without locking.
+     *
+     * @return the current Snapshot
+     */
+    public TaskHistory.Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private boolean isLoaded(int fromEpochDay, int toEpochDay) {
+        for (int monday = TaskIndex.getMonday(fromEpochDay); monday <= toEpochDay; monday += 7) {
+            if (!loadedWeeks.contains(monday)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long beginChange() {
+        long stamp = lock.writeLock();
+        changeStart = snapshot;
+        return stamp;
+    }
+
+    private void endChange(long stamp) {
+        recorded = history.record(changeStart, snapshot);
+        changeStart = null;
+        unlock(stamp);
+    }
+
+    private void unlock(long stamp) {
+        Set<Integer> days = null;
+        boolean allDays = allDaysChanged || recurrencesChanged;
+        boolean changeRecorded = recorded;
+        recorded = false;
+        try {
+            if (recurrencesChanged) {
+                fileManager.saveRecurrences(occurrenceExpander.getAll());
+                recurrencesChanged = false;
+            }
+            allDaysChanged = false;
+            if (!changedDays.isEmpty()) {
+                days = Set.copyOf(changedDays);
+                changedDays.clear();
+                publish(days);
+            }
+            if ((allDays || days != null) && fileManager.isCompactionDue()) {
+                fileManager.compactTasks();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (changeRecorded) {
+            historyListener.run();
+        }
+        if (allDays) {
+            changeListener.allDaysChanged();
+        } else if (days != null) {
+            changeListener.daysChanged(days);
+        }
+    }
+
+    private void publish(Set<Integer> epochDays) {
+        PersistentHashMap<Integer, List<Task>> days = this.days;
+        for (int epochDay : epochDays) {
+            List<Task> day = tasks.getTasks(epochDay);
+            days = day.isEmpty() ? days.remove(epochDay) : days.put(epochDay, List.copyOf(day));
+        }
+        this.days = days;
+        size = tasks.size();
+    }
+
+    private void apply(Collection<TaskChange> changes) {
+        List<TaskChange> applied = new ArrayList<>(changes.size());
+        for (TaskChange change : changes) {
+            Task task = change.getTask();
+            Recurrence recurrence = occurrenceExpander.getSeries(task);
+            if (recurrence != null) {
+                putRecurrence(change.getType() == TaskChange.Type.DELETE
+                        ? recurrence.withException(recurrence.getOccurrenceDay(task.getUUID()))
+                        : recurrence.withOverride(task));
+                continue;
+            }
+            loadMonth(task.getEpochDay());
+            Task previous = tasks.get(task.getUUID());
+            if (change.getType() == TaskChange.Type.DELETE) {
+                if (previous == null) {
+                    continue;
+                }
+                tasks.remove(previous);
+                taskColumns.remove(previous.getUUID());
+                snapshot = snapshot.withoutTask(previous.getUUID());
+                changedDays.add(previous.getEpochDay());
+            } else if (previous != null) {
+                tasks.replace(previous, task);
+                taskColumns.replace(task);
+                snapshot = snapshot.withTask(task);
+                changedDays.add(previous.getEpochDay());
+                changedDays.add(task.getEpochDay());
+                change = TaskChange.edit(task);
+            } else if (change.getType() == TaskChange.Type.ADD) {
+                tasks.add(task);
+                taskColumns.add(task);
+                snapshot = snapshot.withTask(task);
+                changedDays.add(task.getEpochDay());
+            } else {
+                continue;
+            }
+            applied.add(change);
+        }
+        fileManager.applyAll(applied);
+    }
+
+    private void restore(TaskHistory.Snapshot from, TaskHistory.Snapshot to) {
+        List<TaskChange> changes = new ArrayList<>();
+        from.getTasks().diff(to.getTasks(), (uuid, previous, task) -> {
+            if (previous == null) {
+                changes.add(TaskChange.add(task));
+            } else if (task == null) {
+                changes.add(TaskChange.delete(previous));
+            } else {
+                changes.add(TaskChange.edit(task));
+            }
+        });
+        apply(changes);
+        if (from.getRecurrences() != to.getRecurrences()) {
+            from.getRecurrences().diff(to.getRecurrences(), (uuid, previous, recurrence) -> {
+                if (recurrence == null) {
+                    removeRecurrence(previous);
+                } else {
+                    putRecurrence(recurrence);
+                }
+            });
+        }
+    }
+
+    private void putTask(Task task) {
+        loadMonth(task.getEpochDay());
+        tasks.add(task);
+        taskColumns.add(task);
+        fileManager.addTask(task);
+        changedDays.add(task.getEpochDay());
+        snapshot = snapshot.withTask(task);
+    }
+
+    private void replaceTask(Task previous, Task task) {
+        loadMonth(task.getEpochDay());
+        tasks.replace(previous, task);
+        taskColumns.replace(task);
+        fileManager.updateTask(task);
+        changedDays.add(previous.getEpochDay());
+        changedDays.add(task.getEpochDay());
+        snapshot = snapshot.withTask(task);
+    }
+
+    private void removeTask(Task task) {
+        if (tasks.remove(task)) {
+            taskColumns.remove(task.getUUID());
+            fileManager.deleteTask(task);
+            changedDays.add(task.getEpochDay());
+            snapshot = snapshot.withoutTask(task.getUUID());
+        }
+    }
+
+    private void putRecurrence(Recurrence recurrence) {
+        occurrenceExpander.put(recurrence);
+        snapshot = snapshot.withRecurrence(recurrence);
+        recurrencesChanged = true;
+    }
+
+    private void removeRecurrence(Recurrence recurrence) {
+        occurrenceExpander.remove(recurrence.getUUID());
+        snapshot = snapshot.withoutRecurrence(recurrence.getUUID());
+        recurrencesChanged = true;
+    }
+
+    private void loadMonth(int epochDay) {
+        // The stored Tasks of the month are indexed before a change is, so that the change replaces
+        // them rather than being replaced when the month is loaded
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        fileManager.loadTasks(date, date);
+    }
+
+    private void indexLoaded(List<Task> loaded) {
+        // Called by the FileManager, which is only used under the write lock
+        tasks.addAll(loaded);
+        taskColumns.addAll(loaded);
+        snapshot = snapshot.withTasks(loaded);
+        if (changeStart != null) {
+            // Tasks loaded while a change is made are not part of the change
+            changeStart = changeStart.withTasks(loaded);
+        }
+        for (Task task : loaded) {
+            changedDays.add(task.getEpochDay());
+        }
+    }
+
+    private void indexImported(List<Task> imported) {
+        long stamp = lock.writeLock();
+        try {
+            for (Task task : imported) {
+                Task previous = tasks.get(task.getUUID());
+                if (previous != null) {
+                    changedDays.add(previous.getEpochDay());
+                    tasks.replace(previous, task);
+                    taskColumns.replace(task);
+                } else {
+                    tasks.add(task);
+                    taskColumns.add(task);
+                }
+                changedDays.add(task.getEpochDay());
+            }
+            snapshot = snapshot.withTasks(imported);
+        } finally {
+            unlock(stamp);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.calanders.calplanner.data;
+
+import com.calanders.calplanner.data.resources.FileManager;
+import com.calanders.calplanner.gui.Calendar;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * A class that holds several calendars at once, each stored by its own FileManager and changed through
+ * its own CalendarService, and reads their Tasks as if they were one. The first calendar is the primary
+ * calendar in the directory of the application. Every subdirectory of its "calendars" directory is
+ * another calendar named after it, for example one per team. The Tasks of a day are those of every
+ * calendar in turn, so the calendars are displayed as overlays of each other, and the position of a
+ * Task within its day tells which calendar it belongs to.
+ * <p>
+ * The calendars share nothing, so they are opened and loaded concurrently, each on a thread of its own
+ * up to {@value #MAX_THREADS} threads. Opening all of them then takes about as long as opening the
+ * largest one rather than all of them in turn.
+ * <p>
+ * Every CalendarService keeps the history of its own changes. The CalendarSet records which calendar
+ * each change was made to, so that {@link #undo()} and {@link #redo()} revert and repeat the changes of
+ * all calendars in the order they were made.
+ */
+public class CalendarSet implements TaskRepository {
+    /**
+     * The name of the directory, within the directory of the primary calendar, whose subdirectories are
+     * the other calendars.
+     */
+    public static final String CALENDARS_DIRECTORY = "calendars";
+    /**
+     * The name of the primary calendar.
+     */
+    public static final String PRIMARY_NAME = "Default";
+    /**
+     * The maximum number of calendars that are opened or loaded at the same time.
+     */
+    public static final int MAX_THREADS = 8;
+    private final List<String> names;
+    private final List<CalendarService> services;
+    private final ExecutorService executor;
+    private final ArrayDeque<CalendarService> undoServices;
+    private final ArrayDeque<CalendarService> redoServices;
+
+    private CalendarSet(List<String> names, List<CalendarService> services, ExecutorService executor) {
+        this.names = names;
+        this.services = services;
+        this.executor = executor;
+        undoServices = new ArrayDeque<>();
+        redoServices = new ArrayDeque<>();
+        for (CalendarService service : services) {
+            service.setHistoryListener(() -> recorded(service));
+        }
+    }
+
+    /**
+     * Opens the primary calendar in the specified directory together with every calendar in its
+     * "calendars" directory, and loads the Tasks of a range of dates of each of them. A calendar other
+     * than the primary one that can not be opened is left out.
+     *
+     * @param directory the directory of the primary calendar
+     * @param from the first date to load, inclusive
+     * @param to the last date to load, inclusive
+     * @return the CalendarSet of the opened calendars
+     */
+    public static CalendarSet open(File directory, LocalDate from, LocalDate to) {
+        List<String> names = new ArrayList<>();
+        List<File> directories = new ArrayList<>();
+        names.add(PRIMARY_NAME);
+        directories.add(directory);
+        File[] calendars = new File(directory, CALENDARS_DIRECTORY).listFiles(File::isDirectory);
+        if (calendars != null) {
+            Arrays.sort(calendars);
+            for (File calendar : calendars) {
+                names.add(calendar.getName());
+                directories.add(calendar);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(directories.size(), MAX_THREADS), r -> {
+            Thread t = new Thread(r, "CalPlanner-Loader");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<CalendarService>> opened = new ArrayList<>();
+        for (File calendar : directories) {
+            opened.add(executor.submit(() -> {
+                CalendarService service = new CalendarService(new FileManager(calendar));
+                service.loadTasks(from, to);
+                return service;
+            }));
+        }
+
+        List<String> openedNames = new ArrayList<>();
+        List<CalendarService> services = new ArrayList<>();
+        Throwable primaryFailure = null;
+        for (int i = 0; i < opened.size(); i++) {
+            try {
+                services.add(opened.get(i).get());
+                openedNames.add(names.get(i));
+            } catch (ExecutionException e) {
+                if (i == 0) {
+                    // The other calendars are still waited for, so that none of them is left open
+                    primaryFailure = e.getCause();
+                } else {
+                    Calendar.LOGGER.log(Level.WARNING, "Could not open calendar " + names.get(i) + ": "
+                            + e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closeAll(services, executor);
+                throw new IllegalStateException("Interrupted while opening the calendars", e);
+            }
+        }
+        if (primaryFailure != null) {
+            closeAll(services, executor);
+            throw new IllegalStateException("Could not open the calendar", primaryFailure);
+        }
+        return new CalendarSet(List.copyOf(openedNames), List.copyOf(services), executor);
+    }
+
+    private static void closeAll(List<CalendarService> services, ExecutorService executor) {
+        executor.shutdownNow();
+        for (CalendarService service : services) {
+            service.close();
+        }
+    }
+
+    /**
+     * Loads the Tasks of a range of dates of every calendar, concurrently, and returns once all of them
+     * have been loaded.
+     *
+     * @param from the first date to load, inclusive
+     * @param to the last date to load, inclusive
+     */
+    public void loadTasks(LocalDate from, LocalDate to) {
+        if (services.size() == 1) {
+            services.get(0).loadTasks(from, to);
+            return;
+        }
+        List<Future<?>> loaded = new ArrayList<>(services.size());
+        for (CalendarService service : services) {
+            loaded.add(executor.submit(() -> service.loadTasks(from, to)));
+        }
+        for (Future<?> future : loaded) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Calendar.LOGGER.log(Level.WARNING, "Could not load tasks: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets the listener that is notified of the changes made to the Tasks of every calendar.
+     *
+     * @param changeListener the ChangeListener
+     */
+    public void setChangeListener(CalendarService.ChangeListener changeListener) {
+        for (CalendarService service : services) {
+            service.setChangeListener(changeListener);
+        }
+    }
+
+    /**
+     * Reverts the latest change made to any calendar, in the calendar it was made to.
+     */
+    public void undo() {
+        CalendarService service;
+        synchronized (undoServices) {
+            service = undoServices.poll();
+            if (service == null) {
+                return;
+            }
+            redoServices.push(service);
+        }
+        service.undo();
+    }
+
+    /**
+     * Applies the latest reverted change again, in the calendar it was made to.
+     */
+    public void redo() {
+        CalendarService service;
+        synchronized (undoServices) {
+            service = redoServices.poll();
+            if (service == null) {
+                return;
+            }
+            undoServices.push(service);
+        }
+        service.redo();
+    }
+
+    /**
+     * Retrieves the CalendarService of the primary calendar.
+     *
+     * @return the CalendarService of the primary calendar
+     */
+    public CalendarService getPrimary() {
+        return services.get(0);
+    }
+
+    /**
+     * Retrieves the CalendarService of a calendar.
+     *
+     * @param index the index of the calendar
+     * @return the CalendarService of the calendar
+     */
+    public CalendarService getService(int index) {
+        return services.get(index);
+    }
+
+    /**
+     * Retrieves the CalendarService of the calendar that a loaded Task belongs to, through which the
+     * Task must be changed.
+     *
+     * @param task the Task
+     * @return the CalendarService of its calendar, or that of the primary calendar if no calendar has
+     * the Task
+     */
+    public CalendarService getService(Task task) {
+        for (CalendarService service : services) {
+            if (service.get(task.getUUID()) != null) {
+                return service;
+            }
+        }
+        return getPrimary();
+    }
+
+    /**
+     * Retrieves the name of a calendar, which is the name of its directory.
+     *
+     * @param index the index of the calendar
+     * @return the name of the calendar
+     */
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Writes every pending change of every calendar to storage.
+     */
+    public void close() {
+        for (CalendarService service : services) {
+            service.close();
+        }
+        executor.shutdown();
+    }
+
+    private void recorded(CalendarService service) {
+        synchronized (undoServices) {
+            undoServices.push(service);
+            if (undoServices.size() > TaskHistory.MAX_SIZE) {
+                undoServices.removeLast();
+            }
+            redoServices.clear();
+        }
+    }
+
+    @Override
+    public Task get(UUID uuid) {
+        for (CalendarService service : services) {
+            Task task = service.get(uuid);
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Task> getTasks(int epochDay) {
+        List<Task> first = services.get(0).getTasks(epochDay);
+        List<Task> merged = null;
+        for (int i = 1; i < services.size(); i++) {
+            List<Task> day = services.get(i).getTasks(epochDay);
+            if (!day.isEmpty()) {
+                if (merged == null) {
+                    merged = new ArrayList<>(first);
+                }
+                merged.addAll(day);
+            }
+        }
+        return merged == null ? first : Collections.unmodifiableList(merged);
+    }
+
+    @Override
+    public Task getTask(int epochDay, int position) {
+        for (CalendarService service : services) {
+            List<Task> day = service.getTasks(epochDay);
+            if (position < day.size()) {
+                return position >= 0 ? day.get(position) : null;
+            }
+            position -= day.size();
+        }
+        return null;
+    }
+
+    @Override
+    public int getCount(int epochDay) {
+        int count = 0;
+        for (CalendarService service : services) {
+            count += service.getCount(epochDay);
+        }
+        return count;
+    }
+
+    @Override
+    public int getCount(int epochDay, int priority) {
+        int count = 0;
+        for (CalendarService service : services) {
+            count += service.getCount(epochDay, priority);
+        }
+        return count;
+    }
+
+    @Override
+    public int[] getRangeCounts(int fromEpochDay, int toEpochDay) {
+        int[] counts = services.get(0).getRangeCounts(fromEpochDay, toEpochDay);
+        for (int i = 1; i < services.size(); i++) {
+            int[] other = services.get(i).getRangeCounts(fromEpochDay, toEpochDay);
+            for (int priority = 0; priority < counts.length; priority++) {
+                counts[priority] += other[priority];
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Task> getTopTasks(int epochDay, int n) {
+        return TaskIndex.getTopTasks(getTasks(epochDay), n);
+    }
+
+    @Override
+    public int getMaxCount(int epochDay) {
+        if (services.size() == 1) {
+            return services.get(0).getMaxCount(epochDay);
+        }
+        int monday = TaskIndex.getMonday(epochDay);
+        int max = 0;
+        for (int day = monday; day < monday + 7; day++) {
+            max = Math.max(max, getCount(day));
+        }
+        return max;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (CalendarService service : services) {
+            size += service.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int getCalendarCount() {
+        return services.size();
+    }
+
+    @Override
+    public int getCalendarIndex(int epochDay, int position) {
+        for (int i = 0; i < services.size(); i++) {
+            int count = services.get(i).getCount(epochDay);
+            if (position < count) {
+                return i;
+            }
+            position -= count;
+        }
+        return 0;
+    }
+}
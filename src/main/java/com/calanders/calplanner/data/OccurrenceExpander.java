@@ -0,0 +1,159 @@
+package com.calanders.calplanner.data;
+
+import java.util.*;
+
+/**
+ * A class that adds the occurrences of the Recurrences of the Calendar to its TaskIndex and TaskColumns
+ * one week at a time. A week is only expanded once it is displayed, prefetched, or part of an overview,
+ * and the expanded weeks are remembered, so the occurrences of a week are created once no matter how
+ * often it is displayed. Occurrences outside the expanded weeks do not exist anywhere.
+ * <p>
+ * When a Recurrence is changed, the occurrences of its previous version are removed from the expanded
+ * weeks and those of the new version are added, without touching any other series. Must only be used
+ * while the write lock of the {@link CalendarService} is held.
+ */
+class OccurrenceExpander {
+    private final TaskIndex tasks;
+    private final TaskColumns taskColumns;
+    private final Set<Integer> changedDays;
+    private final LinkedHashMap<UUID, Recurrence> series;
+    private final HashMap<Long, Recurrence> seriesByBits;
+    private final TreeSet<Integer> weeks;
+
+    /**
+     * Constructs a new OccurrenceExpander without any expanded week.
+     *
+     * @param tasks the TaskIndex to add the occurrences to
+     * @param taskColumns the TaskColumns to add the occurrences to
+     * @param changedDays the Set to add the days of the added and removed occurrences to
+     * @param recurrences the Recurrences of the Calendar
+     */
+    OccurrenceExpander(TaskIndex tasks, TaskColumns taskColumns, Set<Integer> changedDays,
+                       Collection<Recurrence> recurrences) {
+        this.tasks = tasks;
+        this.taskColumns = taskColumns;
+        this.changedDays = changedDays;
+        series = new LinkedHashMap<>();
+        seriesByBits = new HashMap<>();
+        weeks = new TreeSet<>();
+        for (Recurrence recurrence : recurrences) {
+            series.put(recurrence.getUUID(), recurrence);
+            seriesByBits.put(recurrence.getUUID().getMostSignificantBits(), recurrence);
+        }
+    }
+
+    /**
+     * Expands every week within a range of days that has not been expanded yet.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     */
+    void expand(int fromEpochDay, int toEpochDay) {
+        int runStart = Integer.MIN_VALUE;
+        for (int monday = TaskIndex.getMonday(fromEpochDay); monday <= toEpochDay; monday += 7) {
+            if (weeks.add(monday)) {
+                if (runStart == Integer.MIN_VALUE) {
+                    runStart = monday;
+                }
+            } else if (runStart != Integer.MIN_VALUE) {
+                addOccurrences(series.values(), runStart, monday - 1);
+                runStart = Integer.MIN_VALUE;
+            }
+        }
+        if (runStart != Integer.MIN_VALUE) {
+            addOccurrences(series.values(), runStart, TaskIndex.getMonday(toEpochDay) + 6);
+        }
+    }
+
+    /**
+     * Adds a Recurrence, or replaces the Recurrence with the same UUID, and updates the occurrences of
+     * the expanded weeks.
+     *
+     * @param recurrence the Recurrence to put
+     */
+    void put(Recurrence recurrence) {
+        Recurrence previous = series.put(recurrence.getUUID(), recurrence);
+        seriesByBits.put(recurrence.getUUID().getMostSignificantBits(), recurrence);
+        if (previous != null) {
+            forEachRun((from, to) -> removeOccurrences(previous, from, to));
+        }
+        forEachRun((from, to) -> addOccurrences(List.of(recurrence), from, to));
+    }
+
+    /**
+     * Removes a Recurrence together with its occurrences in the expanded weeks.
+     *
+     * @param uuid the UUID of the Recurrence
+     */
+    void remove(UUID uuid) {
+        Recurrence previous = series.remove(uuid);
+        if (previous != null) {
+            seriesByBits.remove(uuid.getMostSignificantBits());
+            forEachRun((from, to) -> removeOccurrences(previous, from, to));
+        }
+    }
+
+    /**
+     * Retrieves the Recurrence of which the specified Task is an occurrence.
+     *
+     * @param task the Task
+     * @return the Recurrence, or null if the Task is not an occurrence
+     */
+    Recurrence getSeries(Task task) {
+        UUID uuid = task.getUUID();
+        Recurrence recurrence = seriesByBits.get(uuid.getMostSignificantBits());
+        if (recurrence == null || recurrence.getOccurrenceDay(uuid) == Integer.MIN_VALUE) {
+            return null;
+        }
+        return recurrence;
+    }
+
+    /**
+     * Retrieves every Recurrence in the order in which they were added.
+     *
+     * @return an unmodifiable Collection of the Recurrences
+     */
+    Collection<Recurrence> getAll() {
+        return Collections.unmodifiableCollection(series.values());
+    }
+
+    private void addOccurrences(Collection<Recurrence> recurrences, int fromEpochDay, int toEpochDay) {
+        for (Recurrence recurrence : recurrences) {
+            List<Task> occurrences = recurrence.expand(fromEpochDay, toEpochDay);
+            tasks.addAll(occurrences);
+            taskColumns.addAll(occurrences);
+            for (Task occurrence : occurrences) {
+                changedDays.add(occurrence.getEpochDay());
+            }
+        }
+    }
+
+    private void removeOccurrences(Recurrence recurrence, int fromEpochDay, int toEpochDay) {
+        for (Task occurrence : recurrence.expand(fromEpochDay, toEpochDay)) {
+            tasks.remove(occurrence);
+            taskColumns.remove(occurrence.getUUID());
+            changedDays.add(occurrence.getEpochDay());
+        }
+    }
+
+    private void forEachRun(RunConsumer consumer) {
+        int runStart = Integer.MIN_VALUE;
+        int previous = Integer.MIN_VALUE;
+        for (int monday : weeks) {
+            if (runStart == Integer.MIN_VALUE) {
+                runStart = monday;
+            } else if (monday != previous + 7) {
+                consumer.accept(runStart, previous + 6);
+                runStart = monday;
+            }
+            previous = monday;
+        }
+        if (runStart != Integer.MIN_VALUE) {
+            consumer.accept(runStart, previous + 6);
+        }
+    }
+
+    private interface RunConsumer {
+        void accept(int fromEpochDay, int toEpochDay);
+    }
+}
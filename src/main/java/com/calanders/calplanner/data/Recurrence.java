@@ -0,0 +1,287 @@
+package com.calanders.calplanner.data;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * A class that represents a Task that repeats daily, weekly, or monthly. The rule is stored once,
+ * together with the dates on which an occurrence was deleted (exceptions) and the occurrences that
+ * were edited (overrides), and the occurrences are only created for the range of days that is asked
+ * for. A series ends on a date, after a number of occurrences, or never. Monthly series skip the
+ * months that do not have the day of the month of the first occurrence.
+ * <p>
+ * Every occurrence has a UUID derived from the UUID of the series and its original date, so an
+ * occurrence is the same Task every time it is created, and its series and original date can be found
+ * again from the UUID alone. An override keeps the UUID of the occurrence it replaces, even if it is
+ * moved to another date.
+ * <p>
+ * A Recurrence is immutable. Adding an exception or an override returns a new Recurrence.
+ */
+public class Recurrence {
+    /**
+     * The value of the end date of a series that never ends.
+     */
+    public static final int NO_END = Integer.MAX_VALUE;
+    private static final long OCCURRENCE_MARKER = 0x5EC0_11CEL;
+    private final Task template;
+    private final Frequency frequency;
+    private final int interval;
+    private final int count;
+    private final int untilEpochDay;
+    private final TreeSet<Integer> exceptions;
+    private final TreeMap<Integer, Task> overrides;
+
+    /**
+     * The units in which a series repeats.
+     */
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+
+    /**
+     * Constructs a new Recurrence without exceptions or overrides.
+     *
+     * @param template the first occurrence, whose UUID identifies the series
+     * @param frequency the unit in which the series repeats
+     * @param interval the number of units between occurrences, at least 1
+     * @param count the number of occurrences, or 0 if the series is not limited by a count
+     * @param untilEpochDay the last day on which an occurrence may fall counted from the epoch
+     *                      (1970-01-01), or {@link #NO_END}
+     * @throws IllegalArgumentException if the interval is less than 1 or the count is negative
+     */
+    public Recurrence(Task template, Frequency frequency, int interval, int count, int untilEpochDay) {
+        this(template, frequency, interval, count, untilEpochDay, new TreeSet<>(), new TreeMap<>());
+    }
+
+    /**
+     * Constructs a Recurrence with existing exceptions and overrides. This is used to restore a
+     * Recurrence that has previously been stored.
+     *
+     * @param template the first occurrence, whose UUID identifies the series
+     * @param frequency the unit in which the series repeats
+     * @param interval the number of units between occurrences, at least 1
+     * @param count the number of occurrences, or 0 if the series is not limited by a count
+     * @param untilEpochDay the last day on which an occurrence may fall counted from the epoch
+     *                      (1970-01-01), or {@link #NO_END}
+     * @param exceptions the original days of the deleted occurrences
+     * @param overrides the edited occurrences by their original day
+     * @throws IllegalArgumentException if the interval is less than 1 or the count is negative
+     */
+    public Recurrence(Task template, Frequency frequency, int interval, int count, int untilEpochDay,
+                      Collection<Integer> exceptions, Map<Integer, Task> overrides) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid interval " + interval);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+        this.template = template;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.untilEpochDay = untilEpochDay;
+        this.exceptions = new TreeSet<>(exceptions);
+        this.overrides = new TreeMap<>(overrides);
+    }
+
+    /**
+     * Creates the occurrences whose date falls within a range of days, including the overrides that
+     * were moved into the range. The occurrences are ordered by date, with the overrides that were
+     * moved last.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @return the List of occurrences within the range
+     */
+    public List<Task> expand(int fromEpochDay, int toEpochDay) {
+        List<Task> occurrences = new ArrayList<>();
+        int to = Math.min(toEpochDay, untilEpochDay);
+        int start = template.getEpochDay();
+        if (frequency == Frequency.MONTHLY) {
+            LocalDate first = LocalDate.ofEpochDay(start);
+            int k = 0;
+            for (int n = 0; count == 0 || k < count; n += interval) {
+                LocalDate month = first.withDayOfMonth(1).plusMonths(n);
+                if (month.toEpochDay() > to) {
+                    break;
+                }
+                if (first.getDayOfMonth() <= month.lengthOfMonth()) {
+                    int day = (int) month.withDayOfMonth(first.getDayOfMonth()).toEpochDay();
+                    if (day >= fromEpochDay && day <= to) {
+                        addOccurrence(occurrences, day);
+                    }
+                    k++;
+                }
+            }
+        } else {
+            long step = frequency == Frequency.DAILY ? interval : 7L * interval;
+            long k = Math.max(0, Math.floorDiv(fromEpochDay - (long) start + step - 1, step));
+            long last = Math.floorDiv(to - (long) start, step);
+            if (count != 0) {
+                last = Math.min(last, count - 1);
+            }
+            for (; k <= last; k++) {
+                addOccurrence(occurrences, (int) (start + k * step));
+            }
+        }
+        for (Map.Entry<Integer, Task> entry : overrides.entrySet()) {
+            int day = entry.getValue().getEpochDay();
+            if (day != entry.getKey() && day >= fromEpochDay && day <= toEpochDay) {
+                occurrences.add(entry.getValue());
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Creates the occurrence of the series whose original date is the specified day, ignoring any
+     * exception or override of that day.
+     *
+     * @param epochDay the original day of the occurrence counted from the epoch (1970-01-01)
+     * @return the occurrence
+     */
+    public Task getOccurrence(int epochDay) {
+        UUID uuid = template.getUUID();
+        return new Task(template.getText(), epochDay, template.getMinuteOfDay(), template.getPriority(),
+                new UUID(uuid.getMostSignificantBits(),
+                        uuid.getLeastSignificantBits() ^ ((long) epochDay << 32 | OCCURRENCE_MARKER)));
+    }
+
+    /**
+     * Retrieves the original day of the occurrence of this series with the specified UUID.
+     *
+     * @param uuid the UUID of the occurrence
+     * @return the original day counted from the epoch (1970-01-01), or {@link Integer#MIN_VALUE} if
+     * the UUID is not the UUID of an occurrence of this series
+     */
+    public int getOccurrenceDay(UUID uuid) {
+        UUID series = template.getUUID();
+        long bits = uuid.getLeastSignificantBits() ^ series.getLeastSignificantBits();
+        if (uuid.getMostSignificantBits() != series.getMostSignificantBits()
+                || (bits & 0xFFFF_FFFFL) != OCCURRENCE_MARKER) {
+            return Integer.MIN_VALUE;
+        }
+        return (int) (bits >>> 32);
+    }
+
+    /**
+     * Creates a copy of this Recurrence in which the occurrence of the specified day is deleted. An
+     * override of the occurrence is deleted with it.
+     *
+     * @param epochDay the original day of the occurrence counted from the epoch (1970-01-01)
+     * @return the new Recurrence
+     */
+    public Recurrence withException(int epochDay) {
+        Recurrence recurrence = copy();
+        recurrence.exceptions.add(epochDay);
+        recurrence.overrides.remove(epochDay);
+        return recurrence;
+    }
+
+    /**
+     * Creates a copy of this Recurrence in which an occurrence is replaced by the specified Task. The
+     * Task must have the UUID of the occurrence it replaces.
+     *
+     * @param task the edited occurrence
+     * @return the new Recurrence
+     * @throws IllegalArgumentException if the Task is not an occurrence of this series
+     */
+    public Recurrence withOverride(Task task) {
+        int epochDay = getOccurrenceDay(task.getUUID());
+        if (epochDay == Integer.MIN_VALUE) {
+            throw new IllegalArgumentException("Task " + task.getUUID() + " is not an occurrence of " + getUUID());
+        }
+        Recurrence recurrence = copy();
+        recurrence.overrides.put(epochDay, task);
+        return recurrence;
+    }
+
+    /**
+     * Retrieves the first occurrence of the series, which holds the text, time, and priority of every
+     * occurrence that was not edited.
+     *
+     * @return the template Task
+     */
+    public Task getTemplate() {
+        return template;
+    }
+
+    /**
+     * Retrieves the UUID that identifies the series.
+     *
+     * @return the UUID of the series
+     */
+    public UUID getUUID() {
+        return template.getUUID();
+    }
+
+    /**
+     * Retrieves the unit in which the series repeats.
+     *
+     * @return the Frequency
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Retrieves the number of units between occurrences.
+     *
+     * @return the interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Retrieves the number of occurrences of the series, including the deleted ones.
+     *
+     * @return the count, or 0 if the series is not limited by a count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the last day on which an occurrence may fall.
+     *
+     * @return the day counted from the epoch (1970-01-01), or {@link #NO_END}
+     */
+    public int getUntilEpochDay() {
+        return untilEpochDay;
+    }
+
+    /**
+     * Retrieves the original days of the deleted occurrences.
+     *
+     * @return an unmodifiable SortedSet of days counted from the epoch (1970-01-01)
+     */
+    public SortedSet<Integer> getExceptions() {
+        return Collections.unmodifiableSortedSet(exceptions);
+    }
+
+    /**
+     * Retrieves the edited occurrences by their original day.
+     *
+     * @return an unmodifiable SortedMap of the edited occurrences
+     */
+    public SortedMap<Integer, Task> getOverrides() {
+        return Collections.unmodifiableSortedMap(overrides);
+    }
+
+    private void addOccurrence(List<Task> occurrences, int epochDay) {
+        if (exceptions.contains(epochDay)) {
+            return;
+        }
+        Task override = overrides.get(epochDay);
+        if (override == null) {
+            occurrences.add(getOccurrence(epochDay));
+        } else if (override.getEpochDay() == epochDay) {
+            occurrences.add(override);
+        }
+    }
+
+    private Recurrence copy() {
+        return new Recurrence(template, frequency, interval, count, untilEpochDay, exceptions, overrides);
+    }
+}
@@ -1,20 +1,45 @@
 package com.calanders.calplanner.data;
 
-import java.io.Serializable;
+import com.calanders.calplanner.util.DateUtil;
+
+import java.io.*;
 import java.util.UUID;
 
 /**
- * A class that represents a Task of which a text, date, time, and priority level exist.
+ * A class that represents a Task of which a text, date, time, and priority level exist. A Task is
+ * stored compactly, since a long history holds a great number of them: the date is kept as a day
+ * counted from the epoch, the time as a minute of the day, the priority as a byte, and the UUID as its
+ * two halves. Tasks that are read from storage share the Strings of recurring texts through the
+ * TextPool of TaskCodec. The display Strings of the date, time, and UUID are created from these fields
+ * when they are retrieved.
  */
 public class Task implements Serializable {
+    /**
+     * The serial version of Task as it was computed for the original tasks.ser files. Pinned so that
+     * legacy files can still be imported after the class changes.
+     */
+    private static final long serialVersionUID = 3421334492218010944L;
     public static final int PRIORITY_LOW = 0;
     public static final int PRIORITY_MEDIUM = 1;
     public static final int PRIORITY_HIGH = 2;
+    /**
+     * The fields of Task as they are written to a serialization stream, which are those of the
+     * original Task so that legacy files remain readable.
+     */
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("text", String.class),
+            new ObjectStreamField("date", String.class),
+            new ObjectStreamField("time", String.class),
+            new ObjectStreamField("priority", int.class),
+            new ObjectStreamField("uuid", UUID.class)
+    };
     private String text;
-    private String date;
-    private String time;
-    private int priority;
-    private UUID uuid;
+    private int epochDay;
+    private short minuteOfDay;
+    private byte priority;
+    private long uuidMostSigBits;
+    private long uuidLeastSigBits;
 
     /**
      * Constructs a new Task object with a text, date, time, and priority level.
@@ -25,11 +50,40 @@ public class Task implements Serializable {
      * @param priority the priority level of the Task
      */
     public Task(String text, String date, String time, int priority) {
-        this.text = text;
-        this.date = date;
-        this.time = time;
-        this.priority = priority;
-        uuid = UUID.randomUUID();
+        this(text, date, time, priority, UUID.randomUUID());
+    }
+
+    /**
+     * Constructs a Task object with a text, date, time, priority level, and an existing UUID. This is
+     * used to restore a Task that has previously been stored.
+     *
+     * @param text the text of the Task
+     * @param date the date of the Task
+     * @param time the time of the Task
+     * @param priority the priority level of the Task
+     * @param uuid the UUID of the Task
+     */
+    public Task(String text, String date, String time, int priority, UUID uuid) {
+        this(text, DateUtil.toEpochDay(date), DateUtil.toMinuteOfDay(time), priority, uuid);
+    }
+
+    /**
+     * Constructs a Task object with a text, a date counted from the epoch, a minute of the day, a
+     * priority level, and an existing UUID. This is used to restore a Task from its compact form
+     * without formatting and parsing its date and time.
+     *
+     * @param text the text of the Task
+     * @param epochDay the date of the Task counted from the epoch (1970-01-01)
+     * @param minuteOfDay the time of the Task as a minute of the day, from 0 to 1439
+     * @param priority the priority level of the Task
+     * @param uuid the UUID of the Task
+     */
+    public Task(String text, int epochDay, int minuteOfDay, int priority, UUID uuid) {
+        setText(text);
+        setEpochDay(epochDay);
+        setMinuteOfDay(minuteOfDay);
+        setPriority(priority);
+        setUUID(uuid);
     }
 
     /**
@@ -56,7 +110,7 @@ public class Task implements Serializable {
      * @param date the date of the Task
      */
     public void setDate(String date) {
-        this.date = date;
+        setEpochDay(DateUtil.toEpochDay(date));
     }
 
     /**
@@ -65,7 +119,25 @@ public class Task implements Serializable {
      * @return the date of the Task
      */
     public String getDate() {
-        return date;
+        return DateUtil.toDate(epochDay);
+    }
+
+    /**
+     * Sets the date of the Task as a day counted from the epoch (1970-01-01).
+     *
+     * @param epochDay the date of the Task counted from the epoch
+     */
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    /**
+     * Retrieves the date of the Task as a day counted from the epoch (1970-01-01).
+     *
+     * @return the date of the Task counted from the epoch
+     */
+    public int getEpochDay() {
+        return epochDay;
     }
 
     /**
@@ -74,7 +146,7 @@ public class Task implements Serializable {
      * @param time the time of the Task
      */
     public void setTime(String time) {
-        this.time = time;
+        setMinuteOfDay(DateUtil.toMinuteOfDay(time));
     }
 
     /**
@@ -83,7 +155,29 @@ public class Task implements Serializable {
      * @return the time of the Task
      */
     public String getTime() {
-        return time;
+        return DateUtil.toTime(minuteOfDay);
+    }
+
+    /**
+     * Sets the time of the Task as a minute of the day.
+     *
+     * @param minuteOfDay the time of the Task, from 0 to 1439
+     * @throws IllegalArgumentException if the minute is out of range
+     */
+    public void setMinuteOfDay(int minuteOfDay) {
+        if (minuteOfDay < 0 || minuteOfDay >= 24 * 60) {
+            throw new IllegalArgumentException("Invalid minute of day " + minuteOfDay);
+        }
+        this.minuteOfDay = (short) minuteOfDay;
+    }
+
+    /**
+     * Retrieves the time of the Task as a minute of the day.
+     *
+     * @return the time of the Task, from 0 to 1439
+     */
+    public int getMinuteOfDay() {
+        return minuteOfDay;
     }
 
     /**
@@ -92,7 +186,7 @@ public class Task implements Serializable {
      * @param priority the priority of the Task
      */
     public void setPriority(int priority) {
-        this.priority = priority;
+        this.priority = (byte) priority;
     }
 
     /**
@@ -110,7 +204,8 @@ public class Task implements Serializable {
      * @param uuid the UUID of the Task
      */
     public void setUUID(UUID uuid) {
-        this.uuid = uuid;
+        uuidMostSigBits = uuid.getMostSignificantBits();
+        uuidLeastSigBits = uuid.getLeastSignificantBits();
     }
 
     /**
@@ -119,7 +214,43 @@ public class Task implements Serializable {
      * @return the uuid of the Task
      */
     public UUID getUUID() {
-        return uuid;
+        return new UUID(uuidMostSigBits, uuidLeastSigBits);
+    }
+
+    /**
+     * Returns whether the Task has the specified UUID, without creating a UUID object for the Task.
+     *
+     * @param uuid the UUID to compare
+     * @return true if the Task has the UUID, false otherwise
+     */
+    public boolean hasUUID(UUID uuid) {
+        return uuid.getMostSignificantBits() == uuidMostSigBits
+                && uuid.getLeastSignificantBits() == uuidLeastSigBits;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("text", text);
+        fields.put("date", getDate());
+        fields.put("time", getTime());
+        fields.put("priority", (int) priority);
+        fields.put("uuid", getUUID());
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        try {
+            setText((String) fields.get("text", null));
+            setDate((String) fields.get("date", null));
+            setTime((String) fields.get("time", null));
+            setPriority(fields.get("priority", PRIORITY_MEDIUM));
+            setUUID((UUID) fields.get("uuid", null));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidObjectException("Invalid Task: " + e.getMessage());
+        }
     }
 
     /**
@@ -131,10 +262,10 @@ public class Task implements Serializable {
     public String toString() {
         return "Task{" +
                 "text='" + text + '\'' +
-                ", date='" + date + '\'' +
-                ", time='" + time + '\'' +
+                ", date='" + getDate() + '\'' +
+                ", time='" + getTime() + '\'' +
                 ", priority=" + priority +
-                ", uuid=" + uuid +
+                ", uuid=" + getUUID() +
                 '}';
     }
 }
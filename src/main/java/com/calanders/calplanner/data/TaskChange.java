@@ -0,0 +1,71 @@
+package com.calanders.calplanner.data;
+
+/**
+ * A class that represents a single change to the Tasks of a Calendar: the addition, modification, or
+ * deletion of a Task. Changes are collected so that many of them can be applied, stored, and displayed
+ * at once.
+ */
+public class TaskChange {
+    private final Type type;
+    private final Task task;
+
+    /**
+     * The kinds of change.
+     */
+    public enum Type {
+        ADD, EDIT, DELETE
+    }
+
+    private TaskChange(Type type, Task task) {
+        this.type = type;
+        this.task = task;
+    }
+
+    /**
+     * Creates the change that adds a Task.
+     *
+     * @param task the Task to add
+     * @return the TaskChange
+     */
+    public static TaskChange add(Task task) {
+        return new TaskChange(Type.ADD, task);
+    }
+
+    /**
+     * Creates the change that replaces the Task with the same UUID as the specified Task.
+     *
+     * @param task the modified Task
+     * @return the TaskChange
+     */
+    public static TaskChange edit(Task task) {
+        return new TaskChange(Type.EDIT, task);
+    }
+
+    /**
+     * Creates the change that deletes the Task with the same UUID as the specified Task.
+     *
+     * @param task the Task to delete
+     * @return the TaskChange
+     */
+    public static TaskChange delete(Task task) {
+        return new TaskChange(Type.DELETE, task);
+    }
+
+    /**
+     * Retrieves the kind of this change.
+     *
+     * @return the Type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the Task that is added, the modified Task, or the Task that is deleted.
+     *
+     * @return the Task
+     */
+    public Task getTask() {
+        return task;
+    }
+}
@@ -0,0 +1,548 @@
+package com.calanders.calplanner.data;
+
+import java.nio.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A class that stores Tasks column by column for bulk scans, such as reports and overviews that look at
+ * years of Tasks. Every field of a Task is kept in its own primitive column: the date as an epoch day,
+ * the time as a minute of the day, the priority, and the two halves of the UUID. The texts are appended
+ * to a single character table, and every row holds the offset and length of its text.
+ * <p>
+ * The columns grow in chunks of {@link #CHUNK_SIZE} rows, so adding a Task never copies the existing
+ * rows. The chunks are either Java arrays or direct ByteBuffers outside the heap, while the text table
+ * is always kept on the heap. Range queries run as plain loops over the date and priority columns of
+ * every chunk and only create a Task for the rows that are retrieved with {@link #getTask(int)}.
+ * <p>
+ * The order of the rows is not stable: removing a Task moves the last row into its place. The row of
+ * every UUID is kept in an open-addressed table of the two halves of the UUID, so that removing and
+ * replacing a Task does not scan the columns.
+ */
+public class TaskColumns {
+    /**
+     * The number of rows in every chunk of the columns.
+     */
+    public static final int CHUNK_SIZE = 1 << 12;
+    /**
+     * The priority that matches Tasks of any priority in a range query.
+     */
+    public static final int ANY_PRIORITY = -1;
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MINIMUM_TEXT_COMPACTION = 1 << 16;
+    private final boolean direct;
+    private final ArrayList<Chunk> chunks;
+    private final RowTable rowTable;
+    private char[] text;
+    private int textSize;
+    private int deadTextSize;
+    private int size;
+
+    /**
+     * Constructs a new, empty TaskColumns backed by Java arrays.
+     */
+    public TaskColumns() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new, empty TaskColumns.
+     *
+     * @param direct true to back the columns with direct ByteBuffers outside the heap, false to back
+     *               them with Java arrays
+     */
+    public TaskColumns(boolean direct) {
+        this.direct = direct;
+        chunks = new ArrayList<>();
+        rowTable = new RowTable();
+        text = new char[1024];
+    }
+
+    /**
+     * Appends a Task as a new row. The row of a Task with the same UUID is removed first, so that a
+     * Task is never stored twice. The Task itself is not retained.
+     *
+     * @param task the Task to add
+     */
+    public void add(Task task) {
+        remove(task.getUUID());
+        if ((size & CHUNK_MASK) == 0 && size >> CHUNK_SHIFT == chunks.size()) {
+            chunks.add(direct ? new DirectChunk() : new HeapChunk());
+        }
+        UUID uuid = task.getUUID();
+        int textStart = appendText(task.getText());
+        chunks.get(size >> CHUNK_SHIFT).set(size & CHUNK_MASK, task.getEpochDay(), task.getMinuteOfDay(),
+                task.getPriority(), uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+                textStart, textSize - textStart);
+        rowTable.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), size);
+        size++;
+    }
+
+    /**
+     * Appends every Task of the specified Collection.
+     *
+     * @param tasks the Tasks to add
+     */
+    public void addAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Removes the row of the Task with the specified UUID. The last row is moved into its place.
+     *
+     * @param uuid the UUID of the Task
+     * @return true if the Task was removed, false if it was not found
+     */
+    public boolean remove(UUID uuid) {
+        int row = indexOf(uuid);
+        if (row == -1) {
+            return false;
+        }
+        Chunk chunk = chunks.get(row >> CHUNK_SHIFT);
+        int index = row & CHUNK_MASK;
+        deadTextSize += chunk.getTextLength(index);
+        rowTable.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+        int last = size - 1;
+        if (row != last) {
+            Chunk lastChunk = chunks.get(last >> CHUNK_SHIFT);
+            int lastIndex = last & CHUNK_MASK;
+            long lastMostSigBits = lastChunk.getUUIDMostSigBits(lastIndex);
+            long lastLeastSigBits = lastChunk.getUUIDLeastSigBits(lastIndex);
+            chunk.set(index, lastChunk.getEpochDay(lastIndex), lastChunk.getMinuteOfDay(lastIndex),
+                    lastChunk.getPriority(lastIndex), lastMostSigBits, lastLeastSigBits,
+                    lastChunk.getTextStart(lastIndex), lastChunk.getTextLength(lastIndex));
+            rowTable.put(lastMostSigBits, lastLeastSigBits, row);
+        }
+        size--;
+        if ((size & CHUNK_MASK) == 0 && chunks.size() > (size >> CHUNK_SHIFT) + 1) {
+            chunks.remove(chunks.size() - 1);
+        }
+        if (deadTextSize > MINIMUM_TEXT_COMPACTION && deadTextSize > textSize / 2) {
+            compactText();
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the row of a Task with a modified version of it, which is appended as a new row.
+     *
+     * @param task the modified Task
+     */
+    public void replace(Task task) {
+        add(task);
+    }
+
+    /**
+     * Retrieves the number of rows.
+     *
+     * @return the number of Tasks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a Task from the specified row.
+     *
+     * @param row the row
+     * @return the Task of the row
+     * @throws IndexOutOfBoundsException if the row is out of range
+     */
+    public Task getTask(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for size " + size);
+        }
+        Chunk chunk = chunks.get(row >> CHUNK_SHIFT);
+        int index = row & CHUNK_MASK;
+        return new Task(new String(text, chunk.getTextStart(index), chunk.getTextLength(index)),
+                chunk.getEpochDay(index),
+                chunk.getMinuteOfDay(index),
+                chunk.getPriority(index),
+                new UUID(chunk.getUUIDMostSigBits(index), chunk.getUUIDLeastSigBits(index)));
+    }
+
+    /**
+     * Retrieves the row of the Task with the specified UUID.
+     *
+     * @param uuid the UUID of the Task
+     * @return the row, or -1 if no row has the UUID
+     */
+    public int indexOf(UUID uuid) {
+        return rowTable.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Counts the Tasks within a range of days that have the specified priority.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @param priority the priority, or {@link #ANY_PRIORITY}
+     * @return the number of matching Tasks
+     */
+    public int count(int fromEpochDay, int toEpochDay, int priority) {
+        int count = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            count += chunks.get(c).count(getChunkSize(c), fromEpochDay, toEpochDay, priority);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the Tasks within a range of days for every priority.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @return the number of Tasks indexed by priority, from {@link Task#PRIORITY_LOW} to
+     * {@link Task#PRIORITY_HIGH}
+     */
+    public int[] countByPriority(int fromEpochDay, int toEpochDay) {
+        int[] counts = new int[Task.PRIORITY_HIGH + 1];
+        for (int priority = 0; priority < counts.length; priority++) {
+            counts[priority] = count(fromEpochDay, toEpochDay, priority);
+        }
+        return counts;
+    }
+
+    /**
+     * Finds the rows of the Tasks within a range of days that have the specified priority. For example,
+     * all high priority Tasks of a quarter. The Tasks can then be created with {@link #getTask(int)}.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @param priority the priority, or {@link #ANY_PRIORITY}
+     * @return the matching rows in ascending order
+     */
+    public int[] select(int fromEpochDay, int toEpochDay, int priority) {
+        int[] rows = new int[count(fromEpochDay, toEpochDay, priority)];
+        int count = 0;
+        for (int c = 0; c < chunks.size() && count < rows.length; c++) {
+            count = chunks.get(c).select(getChunkSize(c), fromEpochDay, toEpochDay, priority,
+                    c << CHUNK_SHIFT, rows, count);
+        }
+        return rows;
+    }
+
+    private int getChunkSize(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_SHIFT));
+    }
+
+    private int appendText(String s) {
+        if (textSize + s.length() > text.length) {
+            text = Arrays.copyOf(text, Math.max(textSize + s.length(), text.length + (text.length >> 1)));
+        }
+        int start = textSize;
+        s.getChars(0, s.length(), text, start);
+        textSize += s.length();
+        return start;
+    }
+
+    private void compactText() {
+        char[] compacted = new char[Math.max(1024, textSize - deadTextSize)];
+        int compactedSize = 0;
+        for (int row = 0; row < size; row++) {
+            Chunk chunk = chunks.get(row >> CHUNK_SHIFT);
+            int index = row & CHUNK_MASK;
+            int length = chunk.getTextLength(index);
+            System.arraycopy(text, chunk.getTextStart(index), compacted, compactedSize, length);
+            chunk.setTextStart(index, compactedSize);
+            compactedSize += length;
+        }
+        text = compacted;
+        textSize = compactedSize;
+        deadTextSize = 0;
+    }
+
+    /**
+     * A chunk of {@link #CHUNK_SIZE} rows. The scans are written once against the accessors, and the
+     * count, which every range query runs first, is overridden with a loop over the columns directly.
+     */
+    private abstract static class Chunk {
+        abstract void set(int index, int epochDay, int minuteOfDay, int priority, long uuidMostSigBits,
+                          long uuidLeastSigBits, int textStart, int textLength);
+
+        abstract void setTextStart(int index, int textStart);
+
+        abstract int getEpochDay(int index);
+
+        abstract int getMinuteOfDay(int index);
+
+        abstract int getPriority(int index);
+
+        abstract long getUUIDMostSigBits(int index);
+
+        abstract long getUUIDLeastSigBits(int index);
+
+        abstract int getTextStart(int index);
+
+        abstract int getTextLength(int index);
+
+        int count(int length, int from, int to, int priority) {
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (matches(getEpochDay(i), getPriority(i), from, to, priority)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        int select(int length, int from, int to, int priority, int firstRow, int[] rows, int count) {
+            for (int i = 0; i < length; i++) {
+                if (matches(getEpochDay(i), getPriority(i), from, to, priority)) {
+                    rows[count++] = firstRow + i;
+                }
+            }
+            return count;
+        }
+
+        static boolean matches(int epochDay, int taskPriority, int from, int to, int priority) {
+            return epochDay >= from & epochDay <= to & (priority == ANY_PRIORITY | taskPriority == priority);
+        }
+    }
+
+    /**
+     * An open-addressed hash table from the two halves of a UUID to its row, kept in primitive arrays.
+     * Rows are stored plus one, so that a slot with a row of 0 is free.
+     */
+    private static class RowTable {
+        private long[] mostSigBits = new long[16];
+        private long[] leastSigBits = new long[16];
+        private int[] rows = new int[16];
+        private int size;
+
+        int get(long most, long least) {
+            return rows[find(most, least)] - 1;
+        }
+
+        void put(long most, long least, int row) {
+            int slot = find(most, least);
+            boolean added = rows[slot] == 0;
+            mostSigBits[slot] = most;
+            leastSigBits[slot] = least;
+            rows[slot] = row + 1;
+            if (added && ++size > rows.length * 3 / 4) {
+                resize();
+            }
+        }
+
+        void remove(long most, long least) {
+            int slot = find(most, least);
+            if (rows[slot] == 0) {
+                return;
+            }
+            int mask = rows.length - 1;
+            int gap = slot;
+            rows[gap] = 0;
+            size--;
+            for (int next = (gap + 1) & mask; rows[next] != 0; next = (next + 1) & mask) {
+                int home = hash(mostSigBits[next], leastSigBits[next]) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    mostSigBits[gap] = mostSigBits[next];
+                    leastSigBits[gap] = leastSigBits[next];
+                    rows[gap] = rows[next];
+                    rows[next] = 0;
+                    gap = next;
+                }
+            }
+        }
+
+        private int find(long most, long least) {
+            int mask = rows.length - 1;
+            int slot = hash(most, least) & mask;
+            while (rows[slot] != 0 && (mostSigBits[slot] != most || leastSigBits[slot] != least)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            long[] oldMostSigBits = mostSigBits;
+            long[] oldLeastSigBits = leastSigBits;
+            int[] oldRows = rows;
+            mostSigBits = new long[oldRows.length * 2];
+            leastSigBits = new long[oldRows.length * 2];
+            rows = new int[oldRows.length * 2];
+            for (int i = 0; i < oldRows.length; i++) {
+                if (oldRows[i] != 0) {
+                    int slot = find(oldMostSigBits[i], oldLeastSigBits[i]);
+                    mostSigBits[slot] = oldMostSigBits[i];
+                    leastSigBits[slot] = oldLeastSigBits[i];
+                    rows[slot] = oldRows[i];
+                }
+            }
+        }
+
+        private static int hash(long most, long least) {
+            long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static class HeapChunk extends Chunk {
+        private final int[] epochDays = new int[CHUNK_SIZE];
+        private final short[] minutes = new short[CHUNK_SIZE];
+        private final byte[] priorities = new byte[CHUNK_SIZE];
+        private final long[] uuidMostSigBits = new long[CHUNK_SIZE];
+        private final long[] uuidLeastSigBits = new long[CHUNK_SIZE];
+        private final int[] textStarts = new int[CHUNK_SIZE];
+        private final int[] textLengths = new int[CHUNK_SIZE];
+
+        @Override
+        void set(int index, int epochDay, int minuteOfDay, int priority, long uuidMostSigBits,
+                 long uuidLeastSigBits, int textStart, int textLength) {
+            epochDays[index] = epochDay;
+            minutes[index] = (short) minuteOfDay;
+            priorities[index] = (byte) priority;
+            this.uuidMostSigBits[index] = uuidMostSigBits;
+            this.uuidLeastSigBits[index] = uuidLeastSigBits;
+            textStarts[index] = textStart;
+            textLengths[index] = textLength;
+        }
+
+        @Override
+        void setTextStart(int index, int textStart) {
+            textStarts[index] = textStart;
+        }
+
+        @Override
+        int getEpochDay(int index) {
+            return epochDays[index];
+        }
+
+        @Override
+        int getMinuteOfDay(int index) {
+            return minutes[index];
+        }
+
+        @Override
+        int getPriority(int index) {
+            return priorities[index];
+        }
+
+        @Override
+        long getUUIDMostSigBits(int index) {
+            return uuidMostSigBits[index];
+        }
+
+        @Override
+        long getUUIDLeastSigBits(int index) {
+            return uuidLeastSigBits[index];
+        }
+
+        @Override
+        int getTextStart(int index) {
+            return textStarts[index];
+        }
+
+        @Override
+        int getTextLength(int index) {
+            return textLengths[index];
+        }
+
+        @Override
+        int count(int length, int from, int to, int priority) {
+            int count = 0;
+            if (priority == ANY_PRIORITY) {
+                for (int i = 0; i < length; i++) {
+                    int epochDay = epochDays[i];
+                    count += epochDay >= from & epochDay <= to ? 1 : 0;
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    int epochDay = epochDays[i];
+                    count += epochDay >= from & epochDay <= to & priorities[i] == priority ? 1 : 0;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static class DirectChunk extends Chunk {
+        private final IntBuffer epochDays = allocate(CHUNK_SIZE * Integer.BYTES).asIntBuffer();
+        private final ShortBuffer minutes = allocate(CHUNK_SIZE * Short.BYTES).asShortBuffer();
+        private final ByteBuffer priorities = allocate(CHUNK_SIZE);
+        private final LongBuffer uuidMostSigBits = allocate(CHUNK_SIZE * Long.BYTES).asLongBuffer();
+        private final LongBuffer uuidLeastSigBits = allocate(CHUNK_SIZE * Long.BYTES).asLongBuffer();
+        private final IntBuffer textStarts = allocate(CHUNK_SIZE * Integer.BYTES).asIntBuffer();
+        private final IntBuffer textLengths = allocate(CHUNK_SIZE * Integer.BYTES).asIntBuffer();
+
+        private static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        void set(int index, int epochDay, int minuteOfDay, int priority, long uuidMostSigBits,
+                 long uuidLeastSigBits, int textStart, int textLength) {
+            epochDays.put(index, epochDay);
+            minutes.put(index, (short) minuteOfDay);
+            priorities.put(index, (byte) priority);
+            this.uuidMostSigBits.put(index, uuidMostSigBits);
+            this.uuidLeastSigBits.put(index, uuidLeastSigBits);
+            textStarts.put(index, textStart);
+            textLengths.put(index, textLength);
+        }
+
+        @Override
+        void setTextStart(int index, int textStart) {
+            textStarts.put(index, textStart);
+        }
+
+        @Override
+        int getEpochDay(int index) {
+            return epochDays.get(index);
+        }
+
+        @Override
+        int getMinuteOfDay(int index) {
+            return minutes.get(index);
+        }
+
+        @Override
+        int getPriority(int index) {
+            return priorities.get(index);
+        }
+
+        @Override
+        long getUUIDMostSigBits(int index) {
+            return uuidMostSigBits.get(index);
+        }
+
+        @Override
+        long getUUIDLeastSigBits(int index) {
+            return uuidLeastSigBits.get(index);
+        }
+
+        @Override
+        int getTextStart(int index) {
+            return textStarts.get(index);
+        }
+
+        @Override
+        int getTextLength(int index) {
+            return textLengths.get(index);
+        }
+
+        @Override
+        int count(int length, int from, int to, int priority) {
+            int count = 0;
+            if (priority == ANY_PRIORITY) {
+                for (int i = 0; i < length; i++) {
+                    int epochDay = epochDays.get(i);
+                    count += epochDay >= from & epochDay <= to ? 1 : 0;
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    int epochDay = epochDays.get(i);
+                    count += epochDay >= from & epochDay <= to & priorities.get(i) == priority ? 1 : 0;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.calanders.calplanner.data;
+
+import com.calanders.calplanner.util.PersistentHashMap;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A class that keeps the undo and redo history of the changes made to a Calendar. Every change is
+ * recorded as the {@link Snapshot} before it and the Snapshot after it. Since Snapshots are made of
+ * PersistentHashMaps, a Snapshot shares all but O(log n) of its nodes with the previous one, so the
+ * history costs memory in proportion to the number of changed Tasks rather than the number of Tasks.
+ * <p>
+ * At most {@link #MAX_SIZE} changes can be undone. Recording a new change clears the changes that can
+ * be redone.
+ */
+public class TaskHistory {
+    /**
+     * The maximum number of changes that are kept for undoing.
+     */
+    public static final int MAX_SIZE = 100;
+    private final ArrayDeque<Step> undoSteps;
+    private final ArrayDeque<Step> redoSteps;
+
+    /**
+     * A change between two Snapshots.
+     */
+    public static class Step {
+        private final Snapshot before;
+        private final Snapshot after;
+
+        private Step(Snapshot before, Snapshot after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * Retrieves the Snapshot taken before the change.
+         *
+         * @return the Snapshot before the change
+         */
+        public Snapshot getBefore() {
+            return before;
+        }
+
+        /**
+         * Retrieves the Snapshot taken after the change.
+         *
+         * @return the Snapshot after the change
+         */
+        public Snapshot getAfter() {
+            return after;
+        }
+    }
+
+    /**
+     * An immutable version of the loaded Tasks and the Recurrences of a Calendar, by UUID. A Snapshot
+     * may be read by any thread without locking, for example to save or export it in the background.
+     */
+    public static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(PersistentHashMap.empty(), PersistentHashMap.empty());
+        private final PersistentHashMap<UUID, Task> tasks;
+        private final PersistentHashMap<UUID, Recurrence> recurrences;
+
+        private Snapshot(PersistentHashMap<UUID, Task> tasks, PersistentHashMap<UUID, Recurrence> recurrences) {
+            this.tasks = tasks;
+            this.recurrences = recurrences;
+        }
+
+        /**
+         * Retrieves the empty Snapshot.
+         *
+         * @return the Snapshot without Tasks or Recurrences
+         */
+        public static Snapshot empty() {
+            return EMPTY;
+        }
+
+        /**
+         * Creates a version of this Snapshot in which the specified Task is put under its UUID.
+         *
+         * @param task the Task
+         * @return the new Snapshot
+         */
+        public Snapshot withTask(Task task) {
+            return new Snapshot(tasks.put(task.getUUID(), task), recurrences);
+        }
+
+        /**
+         * Creates a version of this Snapshot in which every specified Task is put under its UUID.
+         *
+         * @param tasks the Tasks
+         * @return the new Snapshot
+         */
+        public Snapshot withTasks(Collection<Task> tasks) {
+            return new Snapshot(this.tasks.putAll(tasks, Task::getUUID), recurrences);
+        }
+
+        /**
+         * Creates a version of this Snapshot without the Task with the specified UUID.
+         *
+         * @param uuid the UUID of the Task
+         * @return the new Snapshot
+         */
+        public Snapshot withoutTask(UUID uuid) {
+            return new Snapshot(tasks.remove(uuid), recurrences);
+        }
+
+        /**
+         * Creates a version of this Snapshot in which the specified Recurrence is put under its UUID.
+         *
+         * @param recurrence the Recurrence
+         * @return the new Snapshot
+         */
+        public Snapshot withRecurrence(Recurrence recurrence) {
+            return new Snapshot(tasks, recurrences.put(recurrence.getUUID(), recurrence));
+        }
+
+        /**
+         * Creates a version of this Snapshot without the Recurrence with the specified UUID.
+         *
+         * @param uuid the UUID of the Recurrence
+         * @return the new Snapshot
+         */
+        public Snapshot withoutRecurrence(UUID uuid) {
+            return new Snapshot(tasks, recurrences.remove(uuid));
+        }
+
+        /**
+         * Retrieves the Tasks of this Snapshot by UUID.
+         *
+         * @return the PersistentHashMap of Tasks
+         */
+        public PersistentHashMap<UUID, Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Retrieves the Recurrences of this Snapshot by UUID.
+         *
+         * @return the PersistentHashMap of Recurrences
+         */
+        public PersistentHashMap<UUID, Recurrence> getRecurrences() {
+            return recurrences;
+        }
+    }
+
+    /**
+     * Constructs a new, empty TaskHistory.
+     */
+    public TaskHistory() {
+        undoSteps = new ArrayDeque<>();
+        redoSteps = new ArrayDeque<>();
+    }
+
+    /**
+     * Records a change, dropping the oldest change if more than {@link #MAX_SIZE} are kept. Nothing is
+     * recorded if the Snapshots are the same.
+     *
+     * @param before the Snapshot taken before the change
+     * @param after the Snapshot taken after the change
+     * @return true if the change was recorded, false if the Snapshots are the same
+     */
+    public boolean record(Snapshot before, Snapshot after) {
+        if (before == after) {
+            return false;
+        }
+        undoSteps.push(new Step(before, after));
+        if (undoSteps.size() > MAX_SIZE) {
+            undoSteps.removeLast();
+        }
+        redoSteps.clear();
+        return true;
+    }
+
+    /**
+     * Moves the latest change to the redo history.
+     *
+     * @return the Step to revert, or null if there is nothing to undo
+     */
+    public Step undo() {
+        Step step = undoSteps.poll();
+        if (step != null) {
+            redoSteps.push(step);
+        }
+        return step;
+    }
+
+    /**
+     * Moves the latest undone change back to the undo history.
+     *
+     * @return the Step to apply again, or null if there is nothing to redo
+     */
+    public Step redo() {
+        Step step = redoSteps.poll();
+        if (step != null) {
+            undoSteps.push(step);
+        }
+        return step;
+    }
+
+    /**
+     * Returns whether there is a change to undo.
+     *
+     * @return true if a change can be undone, false otherwise
+     */
+    public boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    /**
+     * Returns whether there is a change to redo.
+     *
+     * @return true if a change can be redone, false otherwise
+     */
+    public boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+}
@@ -0,0 +1,314 @@
+package com.calanders.calplanner.data;
+
+import com.calanders.calplanner.util.FenwickTree;
+import com.calanders.calplanner.util.IntIntHashMap;
+import com.calanders.calplanner.util.Util;
+
+import java.util.*;
+
+/**
+ * A class that indexes Tasks by their date and by their UUID. The Tasks of every day are kept in the
+ * order in which they were added, and the days are sorted by their epoch day, so the Tasks of a day or
+ * a range of days can be retrieved without looking at any other Task.
+ * <p>
+ * The number of Tasks of every day, both in total and for every priority, and the largest number of
+ * Tasks on one day of every week are kept up to date as Tasks are added, moved, and removed, so they
+ * can be retrieved without counting or allocating. The counts of every priority are also kept in a
+ * FenwickTree by epoch day, so the number of Tasks of any range of days is retrieved in O(log n).
+ */
+public class TaskIndex implements TaskRepository {
+    private final TreeMap<Integer, ArrayList<Task>> days;
+    private final HashMap<UUID, Task> uuids;
+    private final IntIntHashMap dayCounts;
+    private final IntIntHashMap weekMaxima;
+    private final IntIntHashMap[] priorityCounts;
+    private final FenwickTree[] priorityTrees;
+
+    /**
+     * Constructs a new, empty TaskIndex.
+     */
+    public TaskIndex() {
+        days = new TreeMap<>();
+        uuids = new HashMap<>();
+        dayCounts = new IntIntHashMap();
+        weekMaxima = new IntIntHashMap();
+        priorityCounts = new IntIntHashMap[Task.PRIORITY_HIGH + 1];
+        priorityTrees = new FenwickTree[Task.PRIORITY_HIGH + 1];
+        for (int priority = 0; priority < priorityCounts.length; priority++) {
+            priorityCounts[priority] = new IntIntHashMap();
+            priorityTrees[priority] = new FenwickTree();
+        }
+    }
+
+    /**
+     * Adds a Task to the end of its day. If a Task with the same UUID is already indexed, it is
+     * replaced instead.
+     *
+     * @param task the Task to add
+     */
+    public void add(Task task) {
+        Task previous = uuids.get(task.getUUID());
+        if (previous != null) {
+            replace(previous, task);
+            return;
+        }
+        days.computeIfAbsent(task.getEpochDay(), d -> new ArrayList<>()).add(task);
+        uuids.put(task.getUUID(), task);
+        updateCount(task.getEpochDay(), task.getPriority(), 1);
+    }
+
+    /**
+     * Adds every Task of the specified Collection.
+     *
+     * @param tasks the Tasks to add
+     */
+    public void addAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Removes the Task with the same UUID as the specified Task.
+     *
+     * @param task the Task to remove
+     * @return true if the Task was removed, false if it was not found
+     */
+    public boolean remove(Task task) {
+        Task indexed = uuids.remove(task.getUUID());
+        if (indexed == null) {
+            return false;
+        }
+        int epochDay = indexed.getEpochDay();
+        ArrayList<Task> tasks = days.get(epochDay);
+        tasks.remove(indexOf(tasks, indexed.getUUID()));
+        if (tasks.isEmpty()) {
+            days.remove(epochDay);
+        }
+        updateCount(epochDay, indexed.getPriority(), -1);
+        return true;
+    }
+
+    /**
+     * Replaces a Task with a modified version of it. If both are on the same day, the modified Task
+     * keeps the position of the previous one. Otherwise, it is added to the end of its new day.
+     *
+     * @param previous the Task to replace
+     * @param task the modified Task
+     */
+    public void replace(Task previous, Task task) {
+        int epochDay = task.getEpochDay();
+        Task indexed = uuids.get(previous.getUUID());
+        if (indexed != null && epochDay == indexed.getEpochDay()) {
+            ArrayList<Task> tasks = days.get(epochDay);
+            tasks.set(indexOf(tasks, indexed.getUUID()), task);
+            uuids.remove(previous.getUUID());
+            uuids.put(task.getUUID(), task);
+            if (task.getPriority() != indexed.getPriority()) {
+                updatePriorityCount(epochDay, indexed.getPriority(), -1);
+                updatePriorityCount(epochDay, task.getPriority(), 1);
+            }
+            return;
+        }
+        remove(previous);
+        add(task);
+    }
+
+    /**
+     * Retrieves the indexed Task with the specified UUID.
+     *
+     * @param uuid the UUID of the Task
+     * @return the Task, or null if no Task has the UUID
+     */
+    @Override
+    public Task get(UUID uuid) {
+        return uuids.get(uuid);
+    }
+
+    /**
+     * Retrieves the Tasks of the specified day in the order in which they were added.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @return an unmodifiable List of the Tasks of the day
+     */
+    @Override
+    public List<Task> getTasks(int epochDay) {
+        ArrayList<Task> tasks = days.get(epochDay);
+        return tasks == null ? Collections.emptyList() : Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * Retrieves the Task at a position within its day, without creating a view of the day.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param position the position of the Task within the day, in the order in which it was added
+     * @return the Task, or null if the day has no Task at the position
+     */
+    @Override
+    public Task getTask(int epochDay, int position) {
+        if (position < 0 || position >= dayCounts.get(epochDay)) {
+            return null;
+        }
+        return days.get(epochDay).get(position);
+    }
+
+    /**
+     * Retrieves the number of Tasks of the specified day.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @return the number of Tasks of the day
+     */
+    @Override
+    public int getCount(int epochDay) {
+        return dayCounts.get(epochDay);
+    }
+
+    /**
+     * Retrieves the number of Tasks of the specified day that have the specified priority.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param priority the priority
+     * @return the number of Tasks of the day with the priority
+     */
+    @Override
+    public int getCount(int epochDay, int priority) {
+        return priorityCounts[getPriorityIndex(priority)].get(epochDay);
+    }
+
+    /**
+     * Retrieves the number of Tasks within a range of days that have the specified priority.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @param priority the priority
+     * @return the number of Tasks of the range with the priority
+     */
+    public int getRangeCount(int fromEpochDay, int toEpochDay, int priority) {
+        return priorityTrees[getPriorityIndex(priority)].sum(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Retrieves the number of Tasks within a range of days for every priority.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @return the number of Tasks indexed by priority, from {@link Task#PRIORITY_LOW} to
+     * {@link Task#PRIORITY_HIGH}
+     */
+    @Override
+    public int[] getRangeCounts(int fromEpochDay, int toEpochDay) {
+        int[] counts = new int[priorityTrees.length];
+        for (int priority = 0; priority < counts.length; priority++) {
+            counts[priority] = priorityTrees[priority].sum(fromEpochDay, toEpochDay);
+        }
+        return counts;
+    }
+
+    /**
+     * Retrieves the most important Tasks of the specified day, ordered by descending priority and then
+     * by time.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param n the maximum number of Tasks to retrieve
+     * @return the List of at most n Tasks
+     */
+    @Override
+    public List<Task> getTopTasks(int epochDay, int n) {
+        return getTopTasks(getTasks(epochDay), n);
+    }
+
+    /**
+     * Retrieves the most important of the specified Tasks, ordered by descending priority and then by
+     * time.
+     *
+     * @param tasks the Tasks to choose from
+     * @param n the maximum number of Tasks to retrieve
+     * @return the List of at most n Tasks
+     */
+    static List<Task> getTopTasks(List<Task> tasks, int n) {
+        List<Task> top = new ArrayList<>(Math.min(n, tasks.size()));
+        for (Task task : tasks) {
+            int i = top.size();
+            while (i > 0 && compareImportance(task, top.get(i - 1)) < 0) {
+                i--;
+            }
+            if (i < n) {
+                if (top.size() == n) {
+                    top.remove(n - 1);
+                }
+                top.add(i, task);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Retrieves the largest number of Tasks on one day of the week, from Monday to Sunday, that contains
+     * the specified day.
+     *
+     * @param epochDay a day of the week counted from the epoch (1970-01-01)
+     * @return the number of Tasks of the busiest day of the week
+     */
+    @Override
+    public int getMaxCount(int epochDay) {
+        return weekMaxima.get(getMonday(epochDay));
+    }
+
+    /**
+     * Retrieves the total number of Tasks in this TaskIndex.
+     *
+     * @return the number of Tasks
+     */
+    @Override
+    public int size() {
+        return uuids.size();
+    }
+
+    private void updateCount(int epochDay, int priority, int delta) {
+        updatePriorityCount(epochDay, priority, delta);
+        int count = dayCounts.add(epochDay, delta);
+        int monday = getMonday(epochDay);
+        int max = weekMaxima.get(monday);
+        if (count > max) {
+            weekMaxima.put(monday, count);
+        } else if (count - delta == max && delta < 0) {
+            max = 0;
+            for (int day = monday; day < monday + 7; day++) {
+                max = Math.max(max, dayCounts.get(day));
+            }
+            weekMaxima.put(monday, max);
+        }
+    }
+
+    private void updatePriorityCount(int epochDay, int priority, int delta) {
+        int index = getPriorityIndex(priority);
+        priorityCounts[index].add(epochDay, delta);
+        priorityTrees[index].add(epochDay, delta);
+    }
+
+    private static int getPriorityIndex(int priority) {
+        return Util.clamp(priority, Task.PRIORITY_LOW, Task.PRIORITY_HIGH);
+    }
+
+    private static int compareImportance(Task a, Task b) {
+        if (a.getPriority() != b.getPriority()) {
+            return Integer.compare(b.getPriority(), a.getPriority());
+        }
+        return Integer.compare(a.getMinuteOfDay(), b.getMinuteOfDay());
+    }
+
+    static int getMonday(int epochDay) {
+        // The epoch (1970-01-01) was a Thursday, so Mondays are the days for which epochDay + 3 is a
+        // multiple of 7
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+
+    private static int indexOf(List<Task> tasks, UUID uuid) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).hasUUID(uuid)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
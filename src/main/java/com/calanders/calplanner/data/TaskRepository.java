@@ -0,0 +1,110 @@
+package com.calanders.calplanner.data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An interface for reading the loaded Tasks of a Calendar by UUID and by day. A {@link TaskIndex} reads
+ * them on a single thread, while a {@link CalendarService} may be read by any number of threads while
+ * it is being changed, and a {@link CalendarSet} reads those of several calendars as one.
+ */
+public interface TaskRepository {
+    /**
+     * Retrieves the Task with the specified UUID.
+     *
+     * @param uuid the UUID of the Task
+     * @return the Task, or null if no Task has the UUID
+     */
+    Task get(UUID uuid);
+
+    /**
+     * Retrieves the Tasks of the specified day in the order in which they were added.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @return an unmodifiable List of the Tasks of the day
+     */
+    List<Task> getTasks(int epochDay);
+
+    /**
+     * Retrieves the Task at a position within its day.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param position the position of the Task within the day, in the order in which it was added
+     * @return the Task, or null if the day has no Task at the position
+     */
+    Task getTask(int epochDay, int position);
+
+    /**
+     * Retrieves the number of Tasks of the specified day.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @return the number of Tasks of the day
+     */
+    int getCount(int epochDay);
+
+    /**
+     * Retrieves the number of Tasks of the specified day that have the specified priority.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param priority the priority
+     * @return the number of Tasks of the day with the priority
+     */
+    int getCount(int epochDay, int priority);
+
+    /**
+     * Retrieves the number of Tasks within a range of days for every priority.
+     *
+     * @param fromEpochDay the first day counted from the epoch (1970-01-01), inclusive
+     * @param toEpochDay the last day counted from the epoch, inclusive
+     * @return the number of Tasks indexed by priority, from {@link Task#PRIORITY_LOW} to
+     * {@link Task#PRIORITY_HIGH}
+     */
+    int[] getRangeCounts(int fromEpochDay, int toEpochDay);
+
+    /**
+     * Retrieves the most important Tasks of the specified day, ordered by descending priority and then
+     * by time.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param n the maximum number of Tasks to retrieve
+     * @return the List of at most n Tasks
+     */
+    List<Task> getTopTasks(int epochDay, int n);
+
+    /**
+     * Retrieves the largest number of Tasks on one day of the week, from Monday to Sunday, that contains
+     * the specified day.
+     *
+     * @param epochDay a day of the week counted from the epoch (1970-01-01)
+     * @return the number of Tasks of the busiest day of the week
+     */
+    int getMaxCount(int epochDay);
+
+    /**
+     * Retrieves the total number of loaded Tasks.
+     *
+     * @return the number of Tasks
+     */
+    int size();
+
+    /**
+     * Retrieves the number of calendars whose Tasks are read together. Only a {@link CalendarSet} reads
+     * more than one.
+     *
+     * @return the number of calendars
+     */
+    default int getCalendarCount() {
+        return 1;
+    }
+
+    /**
+     * Retrieves the calendar that the Task at a position within its day belongs to.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @param position the position of the Task within the day
+     * @return the index of the calendar, from 0 to {@link #getCalendarCount()} - 1
+     */
+    default int getCalendarIndex(int epochDay, int position) {
+        return 0;
+    }
+}
@@ -1,67 +1,376 @@
 package com.calanders.calplanner.data.resources;
 
+import com.calanders.calplanner.data.Recurrence;
 import com.calanders.calplanner.data.Settings;
 import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskChange;
 import com.calanders.calplanner.gui.Calendar;
 
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
- * A class that operates as the file management system for Calendar. Utilizing the Serializable interface,
- * the Tasks and Settings are saved to the system in the .ser file format.
+ * A class that operates as the file management system for Calendar. The Tasks are partitioned by month
+ * into the segment files of a {@link SegmentStore}, each in the compact binary .dat format of
+ * {@link TaskCodec}, while the Settings are saved in the .ser file format utilizing the Serializable
+ * interface. Tasks of earlier versions that were saved as a single tasks.dat or tasks.ser file are
+ * partitioned into segments the first time they are found.
+ * <p>
+ * Segments are only loaded when a month is requested through {@link #loadTasks(LocalDate, LocalDate)}
+ * or touched by a change, so the memory used depends on the months that have been viewed rather than on
+ * the whole history. Newly loaded Tasks are handed to the load listener.
+ * <p>
+ * Individual Task changes are appended to a journal instead of rewriting the segments. The journal is
+ * replayed on startup and overlaid on every segment as it is loaded, and is folded back into the
+ * segments it touched in the background once it holds {@link #COMPACTION_THRESHOLD} records.
+ * Journal records are encoded by the caller and written by a {@link JournalWriter} thread, so recording
+ * a change never waits for the disk. {@link #close()} must be called before the application exits so
+ * that queued records are not lost.
+ * <p>
+ * Recurring Tasks are not stored as Tasks. Their {@link Recurrence} rules are saved together in the
+ * recurrences.dat file in the {@link RecurrenceCodec} format, and their occurrences are only created
+ * when they are displayed.
+ * <p>
+ * Tasks are exchanged with other applications through iCalendar (.ics) files, which are streamed month
+ * by month on export and in batches of {@link #IMPORT_BATCH_SIZE} on import, so that neither holds a
+ * whole calendar in memory.
+ * <p>
+ * A FileManager holds an exclusive lock on the calendar.lock file of its directory until it is closed,
+ * since two FileManagers appending to the same journal and compacting the same segments would corrupt
+ * them. A calendar can therefore only be opened by one FileManager at a time, in any process.
  */
 public class FileManager {
+    /**
+     * The number of journal records after which the journal should be compacted into the segments.
+     */
+    public static final int COMPACTION_THRESHOLD = 1000;
+    /**
+     * The number of events that are stored together while an iCalendar file is imported.
+     */
+    public static final int IMPORT_BATCH_SIZE = 1000;
+    private static final long CLOSE_TIMEOUT = 10000;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_UPDATE = 2;
+    private static final byte OP_DELETE = 3;
     private final File directory;
-    private final File tasks;
+    private final File unpartitionedTasks;
+    private final File legacyTasks;
+    private final File journal;
+    private final File rotatedJournal;
     private final File settings;
+    private final File recurrences;
+    private final FileLock directoryLock;
+    private final SegmentStore segmentStore;
+    private final JournalWriter journalWriter;
+    private final ExecutorService compactor;
+    private final HashMap<YearMonth, LinkedHashMap<UUID, Task>> partitions;
+    private final HashMap<UUID, YearMonth> locations;
+    private Changes changes;
+    private Changes compactingChanges;
+    private Consumer<List<Task>> loadListener;
+    private volatile boolean compacting;
 
     /**
-     * Constructs a new FileManager. This constructor will attempt to create the directories for the
-     * Calendar application. If successful, the files will be marked as readable and are ready to be
-     * written to and read from.
+     * Constructs a new FileManager of the primary calendar. This constructor will attempt to create the
+     * directories for the Calendar application. If successful, the files will be marked as readable and
+     * are ready to be written to and read from. No segment is loaded until it is requested.
      */
     public FileManager() {
-        directory = new File(System.getenv("APPDATA"), "CalPlanner");
-        tasks = new File(directory + File.separator + "tasks.ser");
+        this(getDefaultDirectory());
+    }
+
+    /**
+     * Constructs a new FileManager of the calendar stored in the specified directory, which is created
+     * if it does not exist. Every calendar has its own directory, so several FileManagers may be used at
+     * once as long as their directories differ.
+     *
+     * @param directory the directory of the calendar
+     * @throws IllegalStateException if the calendar is already open in this or another process
+     */
+    public FileManager(File directory) {
+        this.directory = directory;
+        unpartitionedTasks = new File(directory + File.separator + "tasks.dat");
+        legacyTasks = new File(directory + File.separator + "tasks.ser");
+        journal = new File(directory + File.separator + "tasks.journal");
+        rotatedJournal = new File(directory + File.separator + "tasks.journal.old");
         settings = new File(directory + File.separator + "settings.ser");
+        recurrences = new File(directory + File.separator + "recurrences.dat");
 
         if (directory.mkdirs()) {
             directory.setReadable(true);
         }
-        if (!tasks.exists()) {
-            initFile(tasks, new ArrayList<Task>());
+        directoryLock = lockDirectory(directory);
+        segmentStore = new SegmentStore(new File(directory, "tasks"));
+        if (!segmentStore.exists()) {
+            partitionTasks();
         }
         if (!settings.exists()) {
             initFile(settings, new Settings());
         }
+        partitions = new HashMap<>();
+        locations = new HashMap<>();
+        changes = new Changes();
+        replayJournal(rotatedJournal, changes);
+        journalWriter = new JournalWriter(journal);
+        journalWriter.setRecords(replayJournal(journal, changes));
+        compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "CalPlanner-Compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Retrieves the directory of the primary calendar, %APPDATA%/CalPlanner.
+     *
+     * @return the directory of the primary calendar
+     */
+    public static File getDefaultDirectory() {
+        return new File(System.getenv("APPDATA"), "CalPlanner");
+    }
+
+    /**
+     * Sets the listener that receives the Tasks of every segment as it is loaded, whether it was
+     * requested through {@link #loadTasks(LocalDate, LocalDate)} or loaded because a change touched it.
+     * The listener is called on the thread that caused the load.
+     *
+     * @param loadListener the listener of newly loaded Tasks
+     */
+    public synchronized void setLoadListener(Consumer<List<Task>> loadListener) {
+        this.loadListener = loadListener;
+    }
+
+    /**
+     * Loads every month between the specified dates that has not been loaded yet. The newly loaded
+     * Tasks are handed to the load listener.
+     *
+     * @param from the first date to load, inclusive
+     * @param to the last date to load, inclusive
+     */
+    public synchronized void loadTasks(LocalDate from, LocalDate to) {
+        ArrayList<Task> loaded = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            loaded.addAll(loadPartition(month));
+        }
+        notifyLoadListener(loaded);
     }
 
     /**
-     * Saves the ArrayList of Tasks into the system.
+     * Saves the ArrayList of Tasks into the system. Every segment is rewritten and the journal is
+     * cleared, so this should only be used when most of the Tasks have changed. The specified Tasks
+     * replace all Tasks that have been loaded.
      *
-     * @param tasks the ArrayList of Tasks to be serialized
+     * @param tasks the ArrayList of Tasks to be saved
      */
-    public void saveTasks(ArrayList<Task> tasks) {
-        serialize(this.tasks, tasks);
+    public synchronized void saveTasks(ArrayList<Task> tasks) {
+        TreeMap<YearMonth, LinkedHashMap<UUID, Task>> months = groupByMonth(tasks);
+        if (writePartitions(months)) {
+            partitions.clear();
+            locations.clear();
+            for (Map.Entry<YearMonth, LinkedHashMap<UUID, Task>> entry : months.entrySet()) {
+                partitions.put(entry.getKey(), entry.getValue());
+                for (UUID uuid : entry.getValue().keySet()) {
+                    locations.put(uuid, entry.getKey());
+                }
+            }
+            changes = new Changes();
+            journalWriter.submit(() -> {
+                journal.delete();
+                rotatedJournal.delete();
+                journalWriter.setRecords(0);
+            });
+        }
     }
 
     /**
-     * Retrieves the ArrayList of Tasks from the system.
+     * Retrieves the ArrayList of all Tasks from the system. Every segment that has not been loaded yet
+     * is loaded, and its Tasks are also handed to the load listener.
      *
      * @return the ArrayList of Tasks
      */
-    public ArrayList<Task> getTasks() {
+    public synchronized ArrayList<Task> getTasks() {
+        TreeSet<YearMonth> months = segmentStore.getMonths();
+        months.addAll(changes.months);
+        ArrayList<Task> loaded = new ArrayList<>();
+        for (YearMonth month : months) {
+            loaded.addAll(loadPartition(month));
+        }
+        notifyLoadListener(loaded);
+
         ArrayList<Task> tasks = new ArrayList<>();
-        try {
-            tasks = (ArrayList<Task>) deserialize(this.tasks);
-        } catch (ClassCastException e) {
-            Calendar.LOGGER.log(Level.INFO, "File " + this.tasks.getName() + " is invalid");
+        for (YearMonth month : new TreeSet<>(partitions.keySet())) {
+            tasks.addAll(partitions.get(month).values());
         }
         return tasks;
     }
 
+    /**
+     * Records the addition of a Task. The segment of the Task is loaded first if needed. The Task is
+     * encoded immediately and written to the journal in the background.
+     *
+     * @param task the Task that was added
+     */
+    public synchronized void addTask(Task task) {
+        appendRecord(recordAdd(task));
+    }
+
+    /**
+     * Records the modification of a Task. The Task is matched by its UUID and may have moved to
+     * another month. The Task is encoded immediately and written to the journal in the background.
+     *
+     * @param task the Task that was modified
+     */
+    public synchronized void updateTask(Task task) {
+        appendRecord(recordUpdate(task));
+    }
+
+    /**
+     * Records the deletion of a Task. The Task is matched by its UUID.
+     *
+     * @param task the Task that was deleted
+     */
+    public synchronized void deleteTask(Task task) {
+        appendRecord(recordDelete(task));
+    }
+
+    /**
+     * Records many changes at once. The changes are encoded immediately and written to the journal in
+     * the background as a single batch with one flush.
+     *
+     * @param taskChanges the TaskChanges to record, in order
+     */
+    public synchronized void applyAll(Collection<TaskChange> taskChanges) {
+        List<byte[]> records = new ArrayList<>(taskChanges.size());
+        for (TaskChange change : taskChanges) {
+            byte[] record = switch (change.getType()) {
+                case ADD -> recordAdd(change.getTask());
+                case EDIT -> recordUpdate(change.getTask());
+                case DELETE -> recordDelete(change.getTask());
+            };
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        journalWriter.appendAll(records);
+    }
+
+    /**
+     * Returns whether the journal has grown past {@link #COMPACTION_THRESHOLD} records and no
+     * compaction is currently running.
+     *
+     * @return true if the journal should be compacted, false otherwise
+     */
+    public boolean isCompactionDue() {
+        return !compacting && journalWriter.getRecords() >= COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Folds the journal into the segments it touched in the background. The loaded segments are
+     * copied immediately, then the journal is rotated out once every change recorded so far has been
+     * written, so new changes keep being appended while the segments are written. Should the
+     * application stop mid-way, the rotated journal is replayed again on startup.
+     */
+    public synchronized void compactTasks() {
+        if (compacting) {
+            return;
+        }
+        compacting = true;
+        Changes compacted = changes;
+        changes = new Changes();
+        compactingChanges = compacted;
+        HashMap<YearMonth, List<Task>> snapshot = new HashMap<>();
+        for (YearMonth month : compacted.months) {
+            if (partitions.containsKey(month)) {
+                snapshot.put(month, new ArrayList<>(partitions.get(month).values()));
+            }
+        }
+
+        journalWriter.submit(() -> {
+            boolean rotated = rotateJournal();
+            compactor.execute(() -> {
+                boolean written = true;
+                for (YearMonth month : compacted.months) {
+                    List<Task> tasks = snapshot.get(month);
+                    if (tasks == null) {
+                        LinkedHashMap<UUID, Task> partition = toMap(segmentStore.readSegment(month));
+                        compacted.apply(month, partition);
+                        tasks = new ArrayList<>(partition.values());
+                    }
+                    written &= segmentStore.writeSegment(month, tasks);
+                }
+                written &= segmentStore.writeIndex();
+                synchronized (FileManager.this) {
+                    compactingChanges = null;
+                    if (!written) {
+                        compacted.putAll(changes);
+                        changes = compacted;
+                    }
+                    compacting = false;
+                }
+                if (written && rotated) {
+                    rotatedJournal.delete();
+                }
+            });
+        });
+    }
+
+    /**
+     * Writes every queued journal record, waits for a running compaction to finish, and releases the
+     * lock on the directory. This should be called when the application is closing.
+     */
+    public void close() {
+        if (!journalWriter.flush(CLOSE_TIMEOUT)) {
+            Calendar.LOGGER.log(Level.WARNING, "Timed out writing to file " + journal.getName());
+        }
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                Calendar.LOGGER.log(Level.WARNING, "Timed out writing task segments");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (directoryLock != null) {
+            try {
+                directoryLock.channel().close();
+            } catch (IOException e) {
+                Calendar.LOGGER.log(Level.WARNING, "Could not unlock directory " + directory.getName());
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of journal records waiting to be written by the writer thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return journalWriter.getQueueDepth();
+    }
+
+    /**
+     * Retrieves the time the writer thread took to write and flush its last batch of journal records.
+     *
+     * @return the latency in nanoseconds, or 0 if nothing has been written yet
+     */
+    public long getLastFlushLatency() {
+        return journalWriter.getLastFlushLatency();
+    }
+
     /**
      * Saves Settings into the system.
      *
@@ -86,15 +395,523 @@ public class FileManager {
         return settings;
     }
 
-    private void serialize(File file, Object object) {
+    /**
+     * Imports the events of an iCalendar (.ics) file as Tasks. The file is read as a stream in batches
+     * of {@link #IMPORT_BATCH_SIZE}, so the memory used does not depend on the size of the file.
+     * Imported Tasks that belong to a loaded month or replace a known Task are recorded in the journal
+     * like any other change and handed to the import listener. The others are appended to a spill file
+     * per month while the file is read, and every spilled month is then merged into its segment once,
+     * without loading it. The number of imported events per second is logged once the import is done.
+     * <p>
+     * Since storing imported Tasks may load their months, the specified Lock is held while every batch
+     * and every spilled month is stored, so that the load listener is called under the same Lock as
+     * the other changes of the Tasks.
+     *
+     * @param file the iCalendar File to import
+     * @param storeLock the Lock to hold while imported Tasks are stored
+     * @param importListener the listener of the imported Tasks that belong to loaded months, which is
+     *                       called on the importing thread
+     * @return the number of imported Tasks, or -1 if the file could not be read
+     */
+    public int importCalendar(File file, Lock storeLock, Consumer<List<Task>> importListener) {
+        long start = System.nanoTime();
+        int imported = 0;
+        int skipped;
+        TreeMap<YearMonth, Integer> spilled = new TreeMap<>();
+        deleteSpill();
+        try (ICalendarReader reader = new ICalendarReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            List<Task> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            for (Task task = reader.next(); task != null; task = reader.next()) {
+                batch.add(task);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    imported += importBatch(batch, spilled, storeLock, importListener);
+                    batch.clear();
+                }
+            }
+            imported += importBatch(batch, spilled, storeLock, importListener);
+            skipped = reader.getSkipped();
+
+            for (Map.Entry<YearMonth, Integer> entry : spilled.entrySet()) {
+                List<Task> tasks = readSpill(entry.getKey(), entry.getValue());
+                List<Task> recorded;
+                storeLock.lock();
+                try {
+                    recorded = mergeImported(entry.getKey(), tasks);
+                } finally {
+                    storeLock.unlock();
+                }
+                if (!recorded.isEmpty()) {
+                    importListener.accept(recorded);
+                }
+            }
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not import file " + file.getName() + " after " + imported + " events");
+            return -1;
+        } finally {
+            deleteSpill();
+        }
+
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        Calendar.LOGGER.log(Level.INFO, "Imported " + imported + " events from " + file.getName() + " in "
+                + nanos / 1000000 + " ms (" + imported * 1000000000L / nanos + " events/s), skipped " + skipped);
+        return imported;
+    }
+
+    /**
+     * Exports every stored Task to an iCalendar (.ics) file. The months are read and written one at a
+     * time, so only the Tasks of one month that has not been loaded are held in memory at once.
+     *
+     * @param file the iCalendar File to write
+     * @return the number of exported Tasks, or -1 if the file could not be written
+     */
+    public int exportCalendar(File file) {
+        long start = System.nanoTime();
+        int exported = 0;
+        try (ICalendarWriter writer = new ICalendarWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (YearMonth month : getStoredMonths()) {
+                for (Task task : getStoredTasks(month)) {
+                    writer.write(task);
+                    exported++;
+                }
+            }
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not write file " + file.getName());
+            return -1;
+        }
+
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        Calendar.LOGGER.log(Level.INFO, "Exported " + exported + " events to " + file.getName() + " in "
+                + nanos / 1000000 + " ms (" + exported * 1000000000L / nanos + " events/s)");
+        return exported;
+    }
+
+    /**
+     * Saves every Recurrence into the system, replacing the Recurrences that were saved before. The
+     * file is written next to its destination first and then moved into place.
+     *
+     * @param recurrences the Recurrences to save
+     */
+    public synchronized void saveRecurrences(Collection<Recurrence> recurrences) {
+        File temp = new File(this.recurrences.getPath() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            RecurrenceCodec.writeRecurrences(dos, recurrences);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not write file " + this.recurrences.getName());
+            return;
+        }
+        SegmentStore.replace(temp, this.recurrences);
+    }
+
+    /**
+     * Retrieves the saved Recurrences from the system.
+     *
+     * @return the ArrayList of Recurrences, which is empty if none were saved or the file is invalid
+     */
+    public synchronized ArrayList<Recurrence> getRecurrences() {
+        if (!recurrences.exists()) {
+            return new ArrayList<>();
+        }
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(recurrences)))) {
+            return RecurrenceCodec.readRecurrences(dis);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.INFO, "File " + recurrences.getName() + " is invalid");
+            return new ArrayList<>();
+        }
+    }
+
+    private int importBatch(List<Task> batch, Map<YearMonth, Integer> spilled, Lock storeLock,
+                            Consumer<List<Task>> importListener) throws IOException {
+        TreeMap<YearMonth, List<Task>> deferred = new TreeMap<>();
+        List<Task> recorded;
+        storeLock.lock();
+        try {
+            recorded = storeImported(batch, deferred);
+        } finally {
+            storeLock.unlock();
+        }
+        if (!recorded.isEmpty()) {
+            importListener.accept(recorded);
+        }
+        for (Map.Entry<YearMonth, List<Task>> entry : deferred.entrySet()) {
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(getSpillFile(entry.getKey()), true)))) {
+                for (Task task : entry.getValue()) {
+                    TaskCodec.writeTask(dos, task);
+                }
+            }
+            spilled.merge(entry.getKey(), entry.getValue().size(), Integer::sum);
+        }
+        return batch.size();
+    }
+
+    private List<Task> readSpill(YearMonth month, int count) throws IOException {
+        List<Task> tasks = new ArrayList<>(count);
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(getSpillFile(month))))) {
+            for (int i = 0; i < count; i++) {
+                tasks.add(TaskCodec.readTask(dis));
+            }
+        }
+        return tasks;
+    }
+
+    private File getSpillFile(YearMonth month) {
+        File spill = new File(directory, "import");
+        spill.mkdirs();
+        return new File(spill, month + ".dat");
+    }
+
+    private void deleteSpill() {
+        File[] files = new File(directory, "import").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    Calendar.LOGGER.log(Level.WARNING, "Could not delete file " + file.getName());
+                }
+            }
+        }
+    }
+
+    private synchronized List<Task> mergeImported(YearMonth month, List<Task> tasks) {
+        TreeMap<YearMonth, List<Task>> deferred = new TreeMap<>();
+        List<Task> recorded = storeImported(tasks, deferred);
+        List<Task> merged = deferred.get(month);
+        if (merged != null) {
+            LinkedHashMap<UUID, Task> segment = toMap(segmentStore.readSegment(month));
+            for (Task task : merged) {
+                segment.put(task.getUUID(), task);
+            }
+            if (segmentStore.writeSegment(month, segment.values())) {
+                segmentStore.writeIndex();
+            }
+        }
+        return recorded;
+    }
+
+    private synchronized List<Task> storeImported(List<Task> tasks, Map<YearMonth, List<Task>> deferred) {
+        List<Task> recorded = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        for (Task task : tasks) {
+            YearMonth month = getMonth(task);
+            if (partitions.containsKey(month) || locations.containsKey(task.getUUID()) || isChanged(task.getUUID(), month)) {
+                byte[] record = locations.containsKey(task.getUUID()) ? recordUpdate(task) : recordAdd(task);
+                if (record != null) {
+                    records.add(record);
+                }
+                recorded.add(task);
+            } else {
+                deferred.computeIfAbsent(month, m -> new ArrayList<>()).add(task);
+            }
+        }
+        journalWriter.appendAll(records);
+        return recorded;
+    }
+
+    private boolean isChanged(UUID uuid, YearMonth month) {
+        if (compactingChanges != null && (compactingChanges.months.contains(month)
+                || compactingChanges.updated.containsKey(uuid) || compactingChanges.deleted.contains(uuid))) {
+            return true;
+        }
+        return changes.updated.containsKey(uuid) || changes.deleted.contains(uuid);
+    }
+
+    private synchronized TreeSet<YearMonth> getStoredMonths() {
+        TreeSet<YearMonth> months = segmentStore.getMonths();
+        months.addAll(changes.months);
+        if (compactingChanges != null) {
+            months.addAll(compactingChanges.months);
+        }
+        return months;
+    }
+
+    private synchronized List<Task> getStoredTasks(YearMonth month) {
+        LinkedHashMap<UUID, Task> partition = partitions.get(month);
+        return new ArrayList<>((partition != null ? partition : readPartition(month)).values());
+    }
+
+    private LinkedHashMap<UUID, Task> readPartition(YearMonth month) {
+        LinkedHashMap<UUID, Task> partition = toMap(segmentStore.readSegment(month));
+        if (compactingChanges != null) {
+            compactingChanges.apply(month, partition);
+        }
+        changes.apply(month, partition);
+        return partition;
+    }
+
+    private List<Task> loadPartition(YearMonth month) {
+        if (partitions.containsKey(month)) {
+            return Collections.emptyList();
+        }
+        LinkedHashMap<UUID, Task> partition = readPartition(month);
+        partitions.put(month, partition);
+        for (UUID uuid : partition.keySet()) {
+            locations.put(uuid, month);
+        }
+        return new ArrayList<>(partition.values());
+    }
+
+    private void putTask(YearMonth month, Task task) {
+        if (!partitions.containsKey(month)) {
+            notifyLoadListener(loadPartition(month));
+        }
+        partitions.get(month).put(task.getUUID(), task);
+        locations.put(task.getUUID(), month);
+    }
+
+    private void notifyLoadListener(List<Task> loaded) {
+        if (loadListener != null && !loaded.isEmpty()) {
+            loadListener.accept(loaded);
+        }
+    }
+
+    private static YearMonth getMonth(Task task) {
+        return YearMonth.from(LocalDate.ofEpochDay(task.getEpochDay()));
+    }
+
+    private static LinkedHashMap<UUID, Task> toMap(List<Task> tasks) {
+        LinkedHashMap<UUID, Task> map = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            map.put(task.getUUID(), task);
+        }
+        return map;
+    }
+
+    private static TreeMap<YearMonth, LinkedHashMap<UUID, Task>> groupByMonth(List<Task> tasks) {
+        TreeMap<YearMonth, LinkedHashMap<UUID, Task>> months = new TreeMap<>();
+        for (Task task : tasks) {
+            months.computeIfAbsent(getMonth(task), m -> new LinkedHashMap<>()).put(task.getUUID(), task);
+        }
+        return months;
+    }
+
+    private boolean writePartitions(TreeMap<YearMonth, LinkedHashMap<UUID, Task>> months) {
+        boolean written = true;
+        for (YearMonth month : segmentStore.getMonths()) {
+            if (!months.containsKey(month)) {
+                written &= segmentStore.writeSegment(month, Collections.emptyList());
+            }
+        }
+        for (Map.Entry<YearMonth, LinkedHashMap<UUID, Task>> entry : months.entrySet()) {
+            written &= segmentStore.writeSegment(entry.getKey(), entry.getValue().values());
+        }
+        return segmentStore.writeIndex() && written;
+    }
+
+    private void partitionTasks() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        boolean unpartitioned = unpartitionedTasks.exists();
+        if (unpartitioned) {
+            LinkedHashMap<UUID, Task> replayed = new LinkedHashMap<>();
+            try {
+                replayed = toMap(SegmentStore.readTasks(unpartitionedTasks));
+            } catch (IOException e) {
+                Calendar.LOGGER.log(Level.WARNING, "File " + unpartitionedTasks.getName() + " is invalid", e);
+                SegmentStore.moveAside(unpartitionedTasks);
+            }
+            replayUnpartitionedJournal(rotatedJournal, replayed);
+            replayUnpartitionedJournal(journal, replayed);
+            tasks.addAll(replayed.values());
+        } else if (legacyTasks.exists()) {
+            try {
+                tasks = (ArrayList<Task>) deserialize(legacyTasks);
+            } catch (ClassCastException e) {
+                Calendar.LOGGER.log(Level.INFO, "File " + legacyTasks.getName() + " is invalid");
+            }
+        }
+
+        if (writePartitions(groupByMonth(tasks))) {
+            if (unpartitioned) {
+                journal.delete();
+                rotatedJournal.delete();
+            }
+            if (!tasks.isEmpty()) {
+                Calendar.LOGGER.log(Level.INFO, "Partitioned " + tasks.size() + " Tasks into "
+                        + segmentStore.getMonths().size() + " segments");
+            }
+        }
+    }
+
+    private byte[] recordAdd(Task task) {
+        YearMonth month = getMonth(task);
+        putTask(month, task);
+        changes.put(task, month, month);
+        return encodeRecord(OP_ADD, month, task);
+    }
+
+    private byte[] recordUpdate(Task task) {
+        YearMonth month = getMonth(task);
+        YearMonth previous = locations.getOrDefault(task.getUUID(), month);
+        if (!previous.equals(month) && partitions.containsKey(previous)) {
+            partitions.get(previous).remove(task.getUUID());
+        }
+        putTask(month, task);
+        changes.put(task, previous, month);
+        return encodeRecord(OP_UPDATE, previous, task);
+    }
+
+    private byte[] recordDelete(Task task) {
+        YearMonth month = locations.getOrDefault(task.getUUID(), getMonth(task));
+        locations.remove(task.getUUID());
+        if (partitions.containsKey(month)) {
+            partitions.get(month).remove(task.getUUID());
+        }
+        changes.delete(task.getUUID(), month);
+        return encodeRecord(OP_DELETE, month, task);
+    }
+
+    private void appendRecord(byte[] record) {
+        if (record != null) {
+            journalWriter.append(record);
+        }
+    }
+
+    private byte[] encodeRecord(byte op, YearMonth month, Task task) {
+        try {
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(record);
+            dos.writeByte(op);
+            if (op != OP_ADD) {
+                dos.writeInt(month.getYear());
+                dos.writeByte(month.getMonthValue());
+            }
+            if (op == OP_DELETE) {
+                UUID uuid = task.getUUID();
+                dos.writeLong(uuid.getMostSignificantBits());
+                dos.writeLong(uuid.getLeastSignificantBits());
+            } else {
+                TaskCodec.writeTask(dos, task);
+            }
+
+            return record.toByteArray();
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not encode journal record for " + task.getUUID());
+            return null;
+        }
+    }
+
+    private int replayJournal(File file, Changes changes) {
+        return readJournal(file, in -> {
+            byte op = in.readByte();
+            if (op == OP_ADD) {
+                Task task = TaskCodec.readTask(in);
+                changes.put(task, getMonth(task), getMonth(task));
+            } else {
+                YearMonth month = YearMonth.of(in.readInt(), in.readByte());
+                if (op == OP_DELETE) {
+                    changes.delete(new UUID(in.readLong(), in.readLong()), month);
+                } else {
+                    Task task = TaskCodec.readTask(in);
+                    changes.put(task, month, getMonth(task));
+                }
+            }
+        });
+    }
+
+    private void replayUnpartitionedJournal(File file, LinkedHashMap<UUID, Task> tasks) {
+        readJournal(file, in -> {
+            if (in.readByte() == OP_DELETE) {
+                tasks.remove(new UUID(in.readLong(), in.readLong()));
+            } else {
+                Task task = TaskCodec.readTask(in);
+                tasks.put(task.getUUID(), task);
+            }
+        });
+    }
+
+    private int readJournal(File file, RecordReader reader) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int records = 0;
+        long validLength = 0;
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (validLength < file.length()) {
+                int length = dis.readInt();
+                if (length <= 0 || length > file.length() - validLength - 4) {
+                    throw new EOFException();
+                }
+                byte[] record = new byte[length];
+                dis.readFully(record);
+                reader.read(new DataInputStream(new ByteArrayInputStream(record)));
+                records++;
+                validLength += 4 + record.length;
+            }
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.INFO, "File " + file.getName() + " ends with an incomplete record");
+            truncate(file, validLength);
+        }
+        return records;
+    }
+
+    private boolean rotateJournal() {
+        if (!journal.exists()) {
+            return true;
+        }
+        try {
+            if (rotatedJournal.exists()) {
+                Files.write(rotatedJournal.toPath(), Files.readAllBytes(journal.toPath()), StandardOpenOption.APPEND);
+                Files.delete(journal.toPath());
+            } else {
+                Files.move(journal.toPath(), rotatedJournal.toPath());
+            }
+            journalWriter.setRecords(0);
+            return true;
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not rotate file " + journal.getName());
+            return false;
+        }
+    }
+
+    private static FileLock lockDirectory(File directory) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(new File(directory, "calendar.lock").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not lock directory " + directory.getName());
+            return null;
+        }
+        boolean held = true;
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another FileManager of this process
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not lock directory " + directory.getName());
+            held = false;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not close file calendar.lock");
+        }
+        if (held) {
+            throw new IllegalStateException("The calendar in " + directory + " is already open");
+        }
+        return null;
+    }
+
+    private void truncate(File file, long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not truncate file " + file.getName());
+        }
+    }
+
+    private boolean serialize(File file, Object object) {
         try {
             FileOutputStream fos = new FileOutputStream(file);
             ObjectOutputStream oos = new ObjectOutputStream(fos);
             oos.writeObject(object);
             oos.close();
             fos.close();
+            return true;
         } catch (IOException e) {
             Calendar.LOGGER.log(Level.WARNING, "Error occurred while writing stream header");
+            return false;
         }
     }
 
@@ -131,4 +948,59 @@ public class FileManager {
             Calendar.LOGGER.log(Level.WARNING, "Error occurred while writing stream header");
         }
     }
+
+    private interface RecordReader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * The changes recorded since the segments were last written, reduced to the latest state of every
+     * changed Task together with the months whose segments they touch.
+     */
+    private static class Changes {
+        private final LinkedHashMap<UUID, Task> updated = new LinkedHashMap<>();
+        private final HashSet<UUID> deleted = new HashSet<>();
+        private final HashSet<YearMonth> months = new HashSet<>();
+
+        private void put(Task task, YearMonth previous, YearMonth month) {
+            deleted.remove(task.getUUID());
+            updated.put(task.getUUID(), task);
+            months.add(previous);
+            months.add(month);
+        }
+
+        private void delete(UUID uuid, YearMonth month) {
+            updated.remove(uuid);
+            deleted.add(uuid);
+            months.add(month);
+        }
+
+        private void putAll(Changes newer) {
+            for (UUID uuid : newer.deleted) {
+                updated.remove(uuid);
+                deleted.add(uuid);
+            }
+            for (Task task : newer.updated.values()) {
+                deleted.remove(task.getUUID());
+                updated.put(task.getUUID(), task);
+            }
+            months.addAll(newer.months);
+        }
+
+        private void apply(YearMonth month, LinkedHashMap<UUID, Task> partition) {
+            if (!months.contains(month)) {
+                return;
+            }
+            for (UUID uuid : deleted) {
+                partition.remove(uuid);
+            }
+            for (Task task : updated.values()) {
+                if (getMonth(task).equals(month)) {
+                    partition.put(task.getUUID(), task);
+                } else {
+                    partition.remove(task.getUUID());
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,237 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * A class that reads the events of an iCalendar (.ics) stream as Tasks, one at a time. Only the
+ * current line and the event being read are held in memory, so a file of any size can be read.
+ * <p>
+ * Every VEVENT becomes a Task: SUMMARY is the text, DTSTART the date and time, PRIORITY the priority,
+ * and UID the UUID. A UID that is not a UUID is turned into a name-based UUID, so reading the same file
+ * twice yields the same Tasks. Times in UTC or with a TZID are converted to the time zone of the
+ * system, and events that only have a date are placed at 11:59 PM. Line breaks in the SUMMARY become
+ * spaces, since the text of a Task is a single line. Events without a DTSTART, or whose DTSTART can not
+ * be read, are skipped. Components nested in an event, such as alarms, are ignored.
+ */
+public class ICalendarReader implements Closeable {
+    /**
+     * The maximum number of characters of the text of an imported Task. Longer summaries are cut off.
+     */
+    public static final int MAX_TEXT_LENGTH = 4096;
+    private static final int END_OF_DAY = 23 * 60 + 59;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private final BufferedReader reader;
+    private String pending;
+    private int skipped;
+
+    /**
+     * Constructs a new ICalendarReader of the specified stream.
+     *
+     * @param reader the Reader of the iCalendar stream
+     */
+    public ICalendarReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next event of the stream.
+     *
+     * @return the Task of the event, or null if the stream has no more events
+     * @throws IOException if an I/O error occurs
+     */
+    public Task next() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.equalsIgnoreCase("BEGIN:VEVENT")) {
+                Task task = readEvent();
+                if (task != null) {
+                    return task;
+                }
+                skipped++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the number of events that have been skipped because they could not be read.
+     *
+     * @return the number of skipped events
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Task readEvent() throws IOException {
+        String text = "";
+        String uid = null;
+        int priority = Task.PRIORITY_MEDIUM;
+        LocalDateTime start = null;
+        int depth = 0;
+        String line;
+        while ((line = readLine()) != null) {
+            int colon = indexOfValue(line);
+            if (colon == -1) {
+                continue;
+            }
+            String name = line.substring(0, colon);
+            String value = line.substring(colon + 1);
+            String parameters = "";
+            int semicolon = name.indexOf(';');
+            if (semicolon != -1) {
+                parameters = name.substring(semicolon + 1);
+                name = name.substring(0, semicolon);
+            }
+            name = name.toUpperCase();
+
+            if (name.equals("BEGIN")) {
+                depth++;
+            } else if (name.equals("END")) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (depth == 0) {
+                switch (name) {
+                    case "SUMMARY" -> text = unescape(value);
+                    case "UID" -> uid = value.trim();
+                    case "PRIORITY" -> priority = toPriority(value.trim());
+                    case "DTSTART" -> start = toDateTime(value.trim(), parameters);
+                    default -> {
+                    }
+                }
+            }
+        }
+        if (start == null) {
+            return null;
+        }
+        if (text.length() > MAX_TEXT_LENGTH) {
+            text = text.substring(0, MAX_TEXT_LENGTH);
+        }
+        return new Task(text, (int) start.toLocalDate().toEpochDay(),
+                start.getHour() * 60 + start.getMinute(), priority, toUUID(uid));
+    }
+
+    private String readLine() throws IOException {
+        String line = pending != null ? pending : reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        StringBuilder unfolded = null;
+        pending = reader.readLine();
+        while (pending != null && !pending.isEmpty() && (pending.charAt(0) == ' ' || pending.charAt(0) == '\t')) {
+            if (unfolded == null) {
+                unfolded = new StringBuilder(line);
+            }
+            unfolded.append(pending, 1, pending.length());
+            pending = reader.readLine();
+        }
+        return unfolded == null ? line : unfolded.toString();
+    }
+
+    private static int indexOfValue(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static LocalDateTime toDateTime(String value, String parameters) {
+        try {
+            if (value.length() == 8) {
+                return LocalDate.parse(value, DATE).atTime(END_OF_DAY / 60, END_OF_DAY % 60);
+            }
+            if (value.endsWith("Z")) {
+                LocalDateTime utc = LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME);
+                return utc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            LocalDateTime local = LocalDateTime.parse(value, DATE_TIME);
+            String zone = getParameter(parameters, "TZID");
+            if (zone != null) {
+                try {
+                    return local.atZone(ZoneId.of(zone)).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+                } catch (DateTimeException e) {
+                    return local;
+                }
+            }
+            return local;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String getParameter(String parameters, String name) {
+        for (String parameter : parameters.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals != -1 && parameter.substring(0, equals).equalsIgnoreCase(name)) {
+                String value = parameter.substring(equals + 1);
+                return value.startsWith("\"") && value.endsWith("\"") && value.length() > 1
+                        ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    private static int toPriority(String value) {
+        try {
+            int priority = Integer.parseInt(value);
+            if (priority >= 1 && priority <= 4) {
+                return Task.PRIORITY_HIGH;
+            } else if (priority >= 6 && priority <= 9) {
+                return Task.PRIORITY_LOW;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        return Task.PRIORITY_MEDIUM;
+    }
+
+    private static UUID toUUID(String uid) {
+        if (uid == null || uid.isEmpty()) {
+            return UUID.randomUUID();
+        }
+        try {
+            return UUID.fromString(uid);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(uid.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') == -1) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 'n' || next == 'N' ? ' ' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.gui.Calendar;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A class that writes Tasks to an iCalendar (.ics) stream as they are handed to it, so that a calendar
+ * of any size can be written without holding its Tasks in memory. The header is written before the
+ * first Task and the footer when the ICalendarWriter is closed.
+ * <p>
+ * Every Task becomes a VEVENT with its UUID as UID, its text as SUMMARY, its date and time as a
+ * DTSTART in local time, and its priority as PRIORITY 1 (high), 5 (medium) or 9 (low), which
+ * {@link ICalendarReader} reads back into the same Task.
+ */
+public class ICalendarWriter implements Closeable {
+    private static final int MAX_LINE_LENGTH = 75;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private final BufferedWriter writer;
+    private final String timestamp;
+    private boolean started;
+
+    /**
+     * Constructs a new ICalendarWriter to the specified stream.
+     *
+     * @param writer the Writer of the iCalendar stream
+     */
+    public ICalendarWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+        timestamp = ZonedDateTime.now(ZoneOffset.UTC).format(TIMESTAMP);
+    }
+
+    /**
+     * Writes a Task as a VEVENT.
+     *
+     * @param task the Task to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(Task task) throws IOException {
+        start();
+        int minuteOfDay = task.getMinuteOfDay();
+        writeLine("BEGIN:VEVENT");
+        writeLine("UID:" + task.getUUID());
+        writeLine("DTSTAMP:" + timestamp);
+        writeLine("DTSTART:" + LocalDate.ofEpochDay(task.getEpochDay()).format(DATE) + "T"
+                + minuteOfDay / 600 + minuteOfDay / 60 % 10 + minuteOfDay % 60 / 10 + minuteOfDay % 10 + "00");
+        writeLine("SUMMARY:" + escape(task.getText()));
+        writeLine("PRIORITY:" + switch (task.getPriority()) {
+            case Task.PRIORITY_HIGH -> 1;
+            case Task.PRIORITY_LOW -> 9;
+            default -> 5;
+        });
+        writeLine("END:VEVENT");
+    }
+
+    /**
+     * Writes the footer of the stream and closes it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            start();
+            writeLine("END:VCALENDAR");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            started = true;
+            writeLine("BEGIN:VCALENDAR");
+            writeLine("VERSION:2.0");
+            writeLine("PRODID:-//CalAnders//" + Calendar.TITLE + " " + Calendar.VERSION + "//EN");
+            writeLine("CALSCALE:GREGORIAN");
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+        if (line.length() <= MAX_LINE_LENGTH / 3) {
+            writer.write(line);
+            writer.write("\r\n");
+            return;
+        }
+        int bytes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int length = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : 3;
+            if (bytes + length > MAX_LINE_LENGTH) {
+                writer.write("\r\n ");
+                bytes = 1;
+            }
+            writer.write(c);
+            if (Character.isHighSurrogate(c) && i + 1 < line.length()) {
+                writer.write(line.charAt(++i));
+            }
+            bytes += length;
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> sb.append('\\').append(c);
+                case '\n' -> sb.append("\\n");
+                case '\r' -> {
+                }
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
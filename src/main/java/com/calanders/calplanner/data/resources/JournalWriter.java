@@ -0,0 +1,215 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.gui.Calendar;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * A class that appends encoded journal records on a dedicated writer thread so that callers never wait
+ * for the disk. Records queued in a burst are written with a single flush. Actions such as rotating the
+ * journal are queued as well, so they run in order with the records around them.
+ */
+class JournalWriter implements Runnable {
+    private final File journal;
+    private final BlockingQueue<Entry> queue;
+    private final Thread thread;
+    private DataOutputStream stream;
+    private volatile int records;
+    private volatile long lastFlushLatency;
+
+    /**
+     * Constructs a new JournalWriter for the specified journal and starts its writer thread.
+     *
+     * @param journal the journal File to append to
+     */
+    JournalWriter(File journal) {
+        this.journal = journal;
+        queue = new LinkedBlockingQueue<>();
+        thread = new Thread(this, "CalPlanner-Writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues an encoded record to be appended to the journal.
+     *
+     * @param record the encoded record
+     */
+    void append(byte[] record) {
+        queue.add(new Entry(new byte[][]{record}, null, null));
+    }
+
+    /**
+     * Queues encoded records to be appended to the journal together, so that they are written with a
+     * single flush.
+     *
+     * @param records the encoded records
+     */
+    void appendAll(List<byte[]> records) {
+        if (!records.isEmpty()) {
+            queue.add(new Entry(records.toArray(new byte[0][]), null, null));
+        }
+    }
+
+    /**
+     * Queues an action to be run on the writer thread after every record queued before it has been
+     * written. The journal is closed before the action runs and reopened for the next record.
+     *
+     * @param action the action to run
+     */
+    void submit(Runnable action) {
+        queue.add(new Entry(null, action, null));
+    }
+
+    /**
+     * Blocks until every record queued before this call has been written, or until the timeout elapses.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if the records were written, false if the timeout elapsed
+     */
+    boolean flush(long timeout) {
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.add(new Entry(null, null, latch));
+        try {
+            return latch.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Sets the number of records in the journal, for example after it has been replayed or rotated.
+     *
+     * @param records the number of records
+     */
+    void setRecords(int records) {
+        this.records = records;
+    }
+
+    /**
+     * Retrieves the number of records written to the journal since it was last reset.
+     *
+     * @return the number of records
+     */
+    int getRecords() {
+        return records;
+    }
+
+    /**
+     * Retrieves the number of entries waiting to be written.
+     *
+     * @return the queue depth
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Retrieves the time the last batch took to be written and flushed.
+     *
+     * @return the latency in nanoseconds, or 0 if nothing has been written yet
+     */
+    long getLastFlushLatency() {
+        return lastFlushLatency;
+    }
+
+    @Override
+    public void run() {
+        ArrayList<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                close();
+                return;
+            }
+            queue.drainTo(batch);
+
+            long start = System.nanoTime();
+            int written = 0;
+            for (Entry entry : batch) {
+                // A failing entry must not stop the thread, or every later record and flush would hang
+                try {
+                    if (entry.records != null) {
+                        for (byte[] record : entry.records) {
+                            write(record);
+                        }
+                        written += entry.records.length;
+                    } else if (entry.action != null) {
+                        close();
+                        entry.action.run();
+                    } else {
+                        flushStream();
+                    }
+                } catch (RuntimeException e) {
+                    Calendar.LOGGER.log(Level.SEVERE, "Journal writer task failed: " + e);
+                } finally {
+                    if (entry.latch != null) {
+                        entry.latch.countDown();
+                    }
+                }
+            }
+            flushStream();
+            if (written > 0) {
+                lastFlushLatency = System.nanoTime() - start;
+                Calendar.LOGGER.log(Level.FINE, "Wrote " + written + " journal records in "
+                        + lastFlushLatency / 1000 + " us, " + queue.size() + " queued");
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(byte[] record) {
+        try {
+            if (stream == null) {
+                stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journal, true)));
+            }
+            stream.writeInt(record.length);
+            stream.write(record);
+            records++;
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not write to file " + journal.getName());
+        }
+    }
+
+    private void flushStream() {
+        if (stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                Calendar.LOGGER.log(Level.WARNING, "Could not write to file " + journal.getName());
+            }
+        }
+    }
+
+    private void close() {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                Calendar.LOGGER.log(Level.WARNING, "Could not close file " + journal.getName());
+            }
+            stream = null;
+        }
+    }
+
+    private static class Entry {
+        private final byte[][] records;
+        private final Runnable action;
+        private final CountDownLatch latch;
+
+        private Entry(byte[][] records, Runnable action, CountDownLatch latch) {
+            this.records = records;
+            this.action = action;
+            this.latch = latch;
+        }
+    }
+}
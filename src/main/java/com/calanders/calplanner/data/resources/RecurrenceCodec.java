@@ -0,0 +1,106 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Recurrence;
+import com.calanders.calplanner.data.Task;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A class that encodes Recurrences in the binary format of the recurrences.dat file. The file starts
+ * with a header holding {@link #MAGIC}, the format {@link #VERSION} and the number of Recurrences,
+ * followed by one record per Recurrence: the template as a {@link TaskCodec} record, the frequency as a
+ * byte, the interval as a short, the count and the end date as ints, the number of exceptions followed
+ * by their epoch days, and the number of overrides followed by the original epoch day and the
+ * {@link TaskCodec} record of each.
+ */
+public class RecurrenceCodec {
+    /**
+     * The magic number at the start of every Recurrence file ("CPLR").
+     */
+    public static final int MAGIC = 0x43504C52;
+    /**
+     * The current version of the Recurrence file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Writes the header and every Recurrence of the specified Collection.
+     *
+     * @param out the DataOutput to write to
+     * @param recurrences the Recurrences to write
+     * @throws IOException if an I/O error occurs or a Recurrence can not be encoded
+     */
+    public static void writeRecurrences(DataOutput out, Collection<Recurrence> recurrences) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(recurrences.size());
+        for (Recurrence recurrence : recurrences) {
+            if (recurrence.getInterval() > 0xFFFF) {
+                throw new IOException("Recurrence interval is too large to encode");
+            }
+            TaskCodec.writeTask(out, recurrence.getTemplate());
+            out.writeByte(recurrence.getFrequency().ordinal());
+            out.writeShort(recurrence.getInterval());
+            out.writeInt(recurrence.getCount());
+            out.writeInt(recurrence.getUntilEpochDay());
+            out.writeInt(recurrence.getExceptions().size());
+            for (int epochDay : recurrence.getExceptions()) {
+                out.writeInt(epochDay);
+            }
+            out.writeInt(recurrence.getOverrides().size());
+            for (Map.Entry<Integer, Task> entry : recurrence.getOverrides().entrySet()) {
+                out.writeInt(entry.getKey());
+                TaskCodec.writeTask(out, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads the header and every Recurrence written by {@link #writeRecurrences(DataOutput, Collection)}.
+     *
+     * @param in the DataInput to read from
+     * @return the ArrayList of Recurrences
+     * @throws IOException if an I/O error occurs or the data is not in a supported format
+     */
+    public static ArrayList<Recurrence> readRecurrences(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a recurrence file");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported recurrence file version " + version);
+        }
+        int count = in.readInt();
+        ArrayList<Recurrence> recurrences = new ArrayList<>(count);
+        Recurrence.Frequency[] frequencies = Recurrence.Frequency.values();
+        for (int i = 0; i < count; i++) {
+            Task template = TaskCodec.readTask(in);
+            int frequency = in.readUnsignedByte();
+            if (frequency >= frequencies.length) {
+                throw new IOException("Recurrence " + template.getUUID() + " has an invalid frequency");
+            }
+            int interval = in.readUnsignedShort();
+            int occurrences = in.readInt();
+            int untilEpochDay = in.readInt();
+            List<Integer> exceptions = new ArrayList<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                exceptions.add(in.readInt());
+            }
+            Map<Integer, Task> overrides = new HashMap<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                overrides.put(in.readInt(), TaskCodec.readTask(in));
+            }
+
+            try {
+                recurrences.add(new Recurrence(template, frequencies[frequency], interval, occurrences,
+                        untilEpochDay, exceptions, overrides));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Recurrence " + template.getUUID() + " can not be decoded", e);
+            }
+        }
+        return recurrences;
+    }
+}
@@ -0,0 +1,277 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.gui.Calendar;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * A class that stores Tasks partitioned by month. Every month that holds Tasks is saved as its own
+ * segment file in the {@link TaskCodec} format, named after the month (for example "2024-01.dat"). The
+ * year has at least four digits and a leading minus sign before year 0. A small index file lists the
+ * months that have a segment together with their Task counts, so that the segments can be loaded one at
+ * a time without scanning the directory.
+ * <p>
+ * A segment that can not be decoded is renamed to end in .corrupt and left out of the index, so that
+ * its month starts out empty and writing the month again does not destroy what is left of it. Should
+ * the segment not be renamed, its month is not written at all.
+ */
+class SegmentStore {
+    private static final int INDEX_MAGIC = 0x43504C49;
+    private static final int INDEX_VERSION = 1;
+    private final File directory;
+    private final File index;
+    private final TreeMap<YearMonth, Integer> segments;
+    private final Set<YearMonth> unreadable;
+
+    /**
+     * Constructs a new SegmentStore in the specified directory and reads its index if it exists.
+     *
+     * @param directory the directory of the segment files
+     */
+    SegmentStore(File directory) {
+        this.directory = directory;
+        index = new File(directory, "index.dat");
+        segments = new TreeMap<>();
+        unreadable = new HashSet<>();
+
+        directory.mkdirs();
+        if (index.exists()) {
+            readIndex();
+        }
+    }
+
+    /**
+     * Returns whether the index of this SegmentStore has been written.
+     *
+     * @return true if the index exists, false otherwise
+     */
+    boolean exists() {
+        return index.exists();
+    }
+
+    /**
+     * Retrieves the months that have a segment.
+     *
+     * @return the months in chronological order
+     */
+    synchronized TreeSet<YearMonth> getMonths() {
+        return new TreeSet<>(segments.keySet());
+    }
+
+    /**
+     * Retrieves the number of Tasks in the segment of the specified month.
+     *
+     * @param month the month of the segment
+     * @return the number of Tasks, or 0 if the month has no segment
+     */
+    synchronized int getCount(YearMonth month) {
+        return segments.getOrDefault(month, 0);
+    }
+
+    /**
+     * Reads the Tasks in the segment of the specified month. A segment that can not be read is set
+     * aside.
+     *
+     * @param month the month of the segment
+     * @return the ArrayList of Tasks, which is empty if the month has no segment or it can not be read
+     */
+    ArrayList<Task> readSegment(YearMonth month) {
+        if (getCount(month) == 0) {
+            return new ArrayList<>();
+        }
+        File file = getSegmentFile(month);
+        try {
+            return readTasks(file);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "File " + file.getName() + " is invalid", e);
+            setAside(month, file);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Writes the Tasks of the specified month to its segment, replacing the previous segment. The
+     * segment is deleted if there are no Tasks. The index is not written until {@link #writeIndex()}.
+     *
+     * @param month the month of the segment
+     * @param tasks the Tasks of the month
+     * @return true if the segment was written, false otherwise
+     */
+    boolean writeSegment(YearMonth month, Collection<Task> tasks) {
+        File file = getSegmentFile(month);
+        synchronized (this) {
+            if (unreadable.contains(month)) {
+                Calendar.LOGGER.log(Level.WARNING, "File " + file.getName() + " is invalid and is not replaced");
+                return false;
+            }
+        }
+        if (tasks.isEmpty()) {
+            if (file.exists() && !file.delete()) {
+                Calendar.LOGGER.log(Level.WARNING, "Could not delete file " + file.getName());
+                return false;
+            }
+            synchronized (this) {
+                segments.remove(month);
+            }
+            return true;
+        }
+        if (!writeTasks(file, tasks)) {
+            return false;
+        }
+        synchronized (this) {
+            segments.put(month, tasks.size());
+        }
+        return true;
+    }
+
+    /**
+     * Writes the index of the months that have a segment.
+     *
+     * @return true if the index was written, false otherwise
+     */
+    synchronized boolean writeIndex() {
+        File temp = new File(index.getPath() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            dos.writeInt(INDEX_MAGIC);
+            dos.writeShort(INDEX_VERSION);
+            dos.writeInt(segments.size());
+            for (Map.Entry<YearMonth, Integer> entry : segments.entrySet()) {
+                dos.writeInt(entry.getKey().getYear());
+                dos.writeByte(entry.getKey().getMonthValue());
+                dos.writeInt(entry.getValue());
+            }
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not write file " + index.getName());
+            return false;
+        }
+        return replace(temp, index);
+    }
+
+    private synchronized void readIndex() {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+            if (dis.readInt() != INDEX_MAGIC || dis.readUnsignedShort() != INDEX_VERSION) {
+                throw new IOException("Unsupported index");
+            }
+            int count = dis.readInt();
+            for (int i = 0; i < count; i++) {
+                segments.put(YearMonth.of(dis.readInt(), dis.readByte()), dis.readInt());
+            }
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.INFO, "File " + index.getName() + " is invalid, rebuilding it");
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        segments.clear();
+        File[] files = directory.listFiles((dir, name) -> name.matches("-?\\d{4,}-\\d{2}\\.dat"));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                int separator = name.lastIndexOf('-');
+                YearMonth month = YearMonth.of(Integer.parseInt(name.substring(0, separator)),
+                        Integer.parseInt(name.substring(separator + 1, separator + 3)));
+                try {
+                    segments.put(month, readTasks(file).size());
+                } catch (IOException e) {
+                    Calendar.LOGGER.log(Level.WARNING, "File " + file.getName() + " is invalid", e);
+                    setAside(month, file);
+                }
+            }
+        }
+        writeIndex();
+    }
+
+    private synchronized void setAside(YearMonth month, File file) {
+        if (!file.exists() || moveAside(file)) {
+            // A file that does not exist has been set aside by another thread already, or was lost
+            segments.remove(month);
+            writeIndex();
+        } else {
+            unreadable.add(month);
+        }
+    }
+
+    private File getSegmentFile(YearMonth month) {
+        int year = month.getYear();
+        return new File(directory, String.format(Locale.ROOT, "%s%04d-%02d.dat", year < 0 ? "-" : "",
+                Math.abs(year), month.getMonthValue()));
+    }
+
+    /**
+     * Reads a file written in the {@link TaskCodec} format.
+     *
+     * @param file the File to read
+     * @return the ArrayList of Tasks
+     * @throws IOException if the file can not be read or is invalid
+     */
+    static ArrayList<Task> readTasks(File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return TaskCodec.readTasks(dis);
+        }
+    }
+
+    /**
+     * Renames a file that can not be read to end in .corrupt, numbered if such a file exists already, so
+     * that it is kept for recovery instead of being replaced.
+     *
+     * @param file the File to set aside
+     * @return true if the file was renamed, false otherwise
+     */
+    static boolean moveAside(File file) {
+        File corrupt = new File(file.getPath() + ".corrupt");
+        for (int i = 1; corrupt.exists(); i++) {
+            corrupt = new File(file.getPath() + ".corrupt" + i);
+        }
+        try {
+            Files.move(file.toPath(), corrupt.toPath());
+            Calendar.LOGGER.log(Level.WARNING, "Moved file " + file.getName() + " to " + corrupt.getName());
+            return true;
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.SEVERE, "Could not move file " + file.getName() + " aside");
+            return false;
+        }
+    }
+
+    /**
+     * Writes a file in the {@link TaskCodec} format. The file is written next to its destination first
+     * and then moved into place, so it is never left half-written.
+     *
+     * @param file the File to write
+     * @param tasks the Tasks to write
+     * @return true if the file was written, false otherwise
+     */
+    static boolean writeTasks(File file, Collection<Task> tasks) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            TaskCodec.writeTasks(dos, tasks);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not write file " + file.getName());
+            return false;
+        }
+        return replace(temp, file);
+    }
+
+    /**
+     * Moves a file that was written next to its destination into place, replacing the destination.
+     *
+     * @param source the written File
+     * @param target the destination File
+     * @return true if the file was moved, false otherwise
+     */
+    static boolean replace(File source, File target) {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.WARNING, "Could not replace file " + target.getName());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.util.TextPool;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A class that encodes Tasks in the compact binary format used by the .dat files. A file starts with a
+ * header holding {@link #MAGIC}, the format {@link #VERSION} and the number of Tasks, followed by one
+ * record per Task: the date as an epoch day int, the time as a minute-of-day short, the priority as
+ * a byte, the UUID as two longs, and the text as a length-prefixed UTF-8 byte sequence.
+ * <p>
+ * The texts of decoded Tasks are shared through a {@link TextPool} of {@link #TEXT_POOL_SIZE} slots, so
+ * that recurring texts, such as those of a routine that is entered every week, are held once. Since
+ * the pool is bounded, texts that are imported or received from elsewhere can not make it grow.
+ */
+public class TaskCodec {
+    /**
+     * The magic number at the start of every Task file ("CPLT").
+     */
+    public static final int MAGIC = 0x43504C54;
+    /**
+     * The current version of the Task file format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The number of texts that are kept for sharing between decoded Tasks.
+     */
+    public static final int TEXT_POOL_SIZE = 1 << 12;
+    private static final TextPool TEXTS = new TextPool(TEXT_POOL_SIZE);
+    private static final int MAX_TEXT_LENGTH = 0xFFFF;
+
+    /**
+     * Writes the header and every Task of the specified Collection.
+     *
+     * @param out the DataOutput to write to
+     * @param tasks the Tasks to write
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeTasks(DataOutput out, Collection<Task> tasks) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(tasks.size());
+        for (Task task : tasks) {
+            writeTask(out, task);
+        }
+    }
+
+    /**
+     * Reads the header and every Task written by {@link #writeTasks(DataOutput, Collection)}.
+     *
+     * @param in the DataInput to read from
+     * @return the ArrayList of Tasks
+     * @throws IOException if an I/O error occurs or the data is not in a supported format
+     */
+    public static ArrayList<Task> readTasks(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a task file");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported task file version " + version);
+        }
+        int count = in.readInt();
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(in));
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes a single Task record without a header.
+     *
+     * @param out the DataOutput to write to
+     * @param task the Task to write
+     * @throws IOException if an I/O error occurs or the Task text is too long
+     */
+    public static void writeTask(DataOutput out, Task task) throws IOException {
+        byte[] text = task.getText().getBytes(StandardCharsets.UTF_8);
+        if (text.length > MAX_TEXT_LENGTH) {
+            throw new IOException("Task text is too long to encode");
+        }
+        UUID uuid = task.getUUID();
+        out.writeInt(task.getEpochDay());
+        out.writeShort(task.getMinuteOfDay());
+        out.writeByte(task.getPriority());
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeShort(text.length);
+        out.write(text);
+    }
+
+    /**
+     * Reads a single Task record written by {@link #writeTask(DataOutput, Task)}.
+     *
+     * @param in the DataInput to read from
+     * @return the Task
+     * @throws IOException if an I/O error occurs or the record is invalid
+     */
+    public static Task readTask(DataInput in) throws IOException {
+        int epochDay = in.readInt();
+        int minuteOfDay = in.readUnsignedShort();
+        int priority = in.readByte();
+        UUID uuid = new UUID(in.readLong(), in.readLong());
+        byte[] text = new byte[in.readUnsignedShort()];
+        in.readFully(text);
+
+        try {
+            return new Task(TEXTS.get(new String(text, StandardCharsets.UTF_8)), epochDay, minuteOfDay, priority,
+                    uuid);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Task " + uuid + " can not be decoded", e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+
+/**
+ * A class that writes a store of Tasks directly, one Task at a time, in any of the formats that a
+ * FileManager reads, so that large calendars can be created for benchmarks and load tests. A
+ * FileManager opened on the directory afterwards reads the store as if it had written it, and
+ * partitions the older formats into segments the first time, just as it does after an upgrade. The
+ * directory should not hold a store yet, since a FileManager prefers segments over the older files.
+ * <p>
+ * The segments and tasks.dat are written as the Tasks are handed over, so only the Tasks of one month
+ * are held at a time, as long as the Tasks are written in the order of their months. The tasks.ser
+ * file of the first versions is a single serialized ArrayList, which can only be written as a whole,
+ * so its Tasks are held until the TaskStoreWriter is closed.
+ */
+public class TaskStoreWriter implements Closeable {
+    private final Format format;
+    private final File file;
+    private final int count;
+    private int written;
+    private DataOutputStream out;
+    private ArrayList<Task> tasks;
+    private SegmentStore segmentStore;
+    private YearMonth month;
+
+    /**
+     * The formats of a store of Tasks.
+     */
+    public enum Format {
+        /**
+         * The serialized ArrayList of the tasks.ser file of the first versions.
+         */
+        SER("tasks.ser"),
+        /**
+         * The single tasks.dat file in the {@link TaskCodec} format that came before the segments.
+         */
+        DAT("tasks.dat"),
+        /**
+         * The segments by month of the current versions, in the tasks directory.
+         */
+        SEGMENTS("tasks");
+
+        private final String fileName;
+
+        Format(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Retrieves the name of the file or directory of the store in the directory of a calendar.
+         *
+         * @return the file name
+         */
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    /**
+     * Constructs a new TaskStoreWriter of a store in the specified format in the directory of a
+     * calendar, which is created if it does not exist.
+     *
+     * @param directory the directory of the calendar
+     * @param format the Format of the store
+     * @param count the number of Tasks that will be written, which the header of tasks.dat holds
+     * @throws IOException if the store can not be created
+     */
+    public TaskStoreWriter(File directory, Format format, int count) throws IOException {
+        this.format = format;
+        this.count = count;
+        directory.mkdirs();
+        file = new File(directory, format.getFileName());
+        switch (format) {
+            case SER -> tasks = new ArrayList<>(count);
+            case DAT -> {
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getTemp())));
+                out.writeInt(TaskCodec.MAGIC);
+                out.writeShort(TaskCodec.VERSION);
+                out.writeInt(count);
+            }
+            case SEGMENTS -> {
+                segmentStore = new SegmentStore(file);
+                tasks = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Writes a Task to the store. For segments, the Tasks of a month must be written before those of
+     * any later month.
+     *
+     * @param task the Task to write
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a segment has already been written for a later month
+     */
+    public void write(Task task) throws IOException {
+        switch (format) {
+            case SER -> tasks.add(task);
+            case DAT -> {
+                if (written == count) {
+                    throw new IOException("The header of " + file.getName() + " only holds " + count + " Tasks");
+                }
+                TaskCodec.writeTask(out, task);
+            }
+            case SEGMENTS -> {
+                YearMonth taskMonth = YearMonth.from(LocalDate.ofEpochDay(task.getEpochDay()));
+                if (month != null && taskMonth.isBefore(month)) {
+                    throw new IllegalArgumentException("The segment of " + taskMonth + " has already been written");
+                }
+                if (!taskMonth.equals(month)) {
+                    writeSegment();
+                    month = taskMonth;
+                }
+                tasks.add(task);
+            }
+        }
+        written++;
+    }
+
+    /**
+     * Writes the rest of the store and closes it.
+     *
+     * @throws IOException if an I/O error occurs, or if fewer Tasks were written to tasks.dat than its
+     * header holds
+     */
+    @Override
+    public void close() throws IOException {
+        switch (format) {
+            case SER -> {
+                try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(getTemp())))) {
+                    oos.writeObject(tasks);
+                }
+                tasks = null;
+                replace();
+            }
+            case DAT -> {
+                out.close();
+                if (written != count) {
+                    getTemp().delete();
+                    throw new IOException("Only " + written + " of the " + count + " Tasks of " + file.getName()
+                            + " were written");
+                }
+                replace();
+            }
+            case SEGMENTS -> {
+                writeSegment();
+                if (!segmentStore.writeIndex()) {
+                    throw new IOException("Could not write the index of " + file.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of Tasks that have been written.
+     *
+     * @return the number of written Tasks
+     */
+    public int getWritten() {
+        return written;
+    }
+
+    private void writeSegment() throws IOException {
+        if (month != null && !tasks.isEmpty()) {
+            if (!segmentStore.writeSegment(month, tasks)) {
+                throw new IOException("Could not write the segment of " + month);
+            }
+            tasks = new ArrayList<>();
+        }
+    }
+
+    private File getTemp() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private void replace() throws IOException {
+        if (!SegmentStore.replace(getTemp(), file)) {
+            throw new IOException("Could not write " + file.getName());
+        }
+    }
+}
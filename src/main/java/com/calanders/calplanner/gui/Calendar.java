@@ -1,30 +1,50 @@
 package com.calanders.calplanner.gui;
 
+import com.calanders.calplanner.data.CalendarService;
+import com.calanders.calplanner.data.CalendarSet;
+import com.calanders.calplanner.data.Recurrence;
 import com.calanders.calplanner.data.Settings;
 import com.calanders.calplanner.data.Task;
 import com.calanders.calplanner.data.resources.FileManager;
 import com.calanders.calplanner.data.resources.Resources;
 import com.calanders.calplanner.gui.table.CalendarModel;
+import com.calanders.calplanner.gui.table.TaskCellRenderer;
+import com.calanders.calplanner.server.CalendarServer;
 import com.calanders.calplanner.util.HTMLUtil;
-import com.calanders.calplanner.util.Util;
+import com.calanders.calplanner.util.Week;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.plaf.nimbus.NimbusLookAndFeel;
 import javax.swing.table.JTableHeader;
-import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.temporal.TemporalAdjusters;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * A class that represents a seven-day calendar in which tasks may be added and modified. The Calendar is
  * displayed with seven columns to signify days of the week. Tasks can be added to the Calendar and are
  * placed in their corresponding date.
+ * <p>
+ * The Tasks are held and changed by a {@link CalendarService}, of which the Calendar is only a client.
+ * It displays what the CalendarService holds and repaints the days that the CalendarService reports
+ * as changed, no matter which thread changed them.
+ * <p>
+ * Other calendars, such as those of teams, are displayed as overlays of the primary calendar through a
+ * {@link CalendarSet}, and every Task is marked in the color of its calendar. New Tasks, imports, and
+ * exports belong to the primary calendar, while a Task of another calendar is edited and deleted in that
+ * calendar. Undo and redo follow the changes of every calendar in the order they were made.
  *
  * @author CalAnders
  * @version 1.0.7
@@ -39,22 +59,29 @@ public class Calendar {
     private final JButton createTaskButton;
     private final JButton editTaskButton;
     private final JButton deleteTaskButton;
+    private final JButton importButton;
+    private final JButton exportButton;
     private final JButton homeButton;
     private final JButton overviewButton;
     private final JButton settingsButton;
     private final CalendarModel calendarModel;
     private final JTable calendarTable;
     private final JPanel calendarPanel;
+    private final JPanel viewPanel;
+    private final OverviewPanel overviewPanel;
     private final JButton last;
     private final JButton next;
     private final TaskMenu taskMenu;
     private final SettingsMenu settingsMenu;
-    private final FileManager fileManager;
-    private final ArrayList<Task> tasks;
+    private final CalendarSet calendars;
+    private final CalendarService service;
+    private final WeekPrefetcher weekPrefetcher;
     private Settings settings;
     private static final Color MENU_COLOR = new Color(216, 216, 216);
+    private static final String WEEK_VIEW = "Week";
+    private static final String OVERVIEW_VIEW = "Overview";
     private int weekOffset = 0;
-    private int rowCount = 26;
+    private boolean isOverviewShown = false;
 
     /**
      * Constructs a new Calendar object with all required components.
@@ -66,19 +93,48 @@ public class Calendar {
         createTaskButton = createNewTaskButton();
         editTaskButton = createEditTaskButton();
         deleteTaskButton = createDeleteTaskButton();
+        importButton = createImportButton();
+        exportButton = createExportButton();
         homeButton = createControlButton("Home", Resources.HOME_ICON);
         overviewButton = createControlButton("Overview", Resources.OVERVIEW_ICON);
         settingsButton = createControlButton("Settings", Resources.SETTINGS_ICON);
-        calendarModel = new CalendarModel(new String[7], rowCount);
+        calendars = CalendarSet.open(FileManager.getDefaultDirectory(),
+                LocalDate.ofEpochDay(Week.of(-WeekPrefetcher.DISTANCE).getFirstEpochDay()),
+                LocalDate.ofEpochDay(Week.of(WeekPrefetcher.DISTANCE).getLastEpochDay()));
+        service = calendars.getPrimary();
+        calendarModel = new CalendarModel(calendars);
         calendarTable = new JTable(calendarModel);
         calendarPanel = new JPanel();
+        viewPanel = new JPanel(new CardLayout());
+        overviewPanel = new OverviewPanel(calendars);
         last = createNavButton("←");
         next = createNavButton("→");
         taskMenu = new TaskMenu(this);
         settingsMenu = new SettingsMenu(this);
-        fileManager = new FileManager();
-        tasks = fileManager.getTasks();
-        settings = fileManager.getSettings();
+        weekPrefetcher = new WeekPrefetcher(calendars, calendarModel);
+        calendars.setChangeListener(new CalendarService.ChangeListener() {
+            @Override
+            public void daysChanged(Set<Integer> epochDays) {
+                runOnEventDispatchThread(() -> {
+                    for (int epochDay : epochDays) {
+                        weekPrefetcher.invalidate(epochDay);
+                    }
+                    calendarModel.daysChanged(epochDays);
+                    update();
+                });
+            }
+
+            @Override
+            public void allDaysChanged() {
+                runOnEventDispatchThread(() -> {
+                    weekPrefetcher.clear();
+                    calendarModel.reload();
+                    weekPrefetcher.prefetch(weekOffset);
+                    update();
+                });
+            }
+        });
+        settings = service.getSettings();
 
         init();
         initMenu();
@@ -96,12 +152,33 @@ public class Calendar {
         frame.setMinimumSize(new Dimension(960, 540));
         frame.setExtendedState(Frame.MAXIMIZED_BOTH);
         frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                calendars.close();
+            }
+        });
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo", calendars::undo);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo", calendars::redo);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                "redo", calendars::redo);
         frame.setLocationRelativeTo(null);
         frame.pack();
         frame.setVisible(true);
         panel.setLayout(new BorderLayout());
     }
 
+    private void bindKey(KeyStroke keyStroke, String name, Runnable action) {
+        JRootPane rootPane = frame.getRootPane();
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(keyStroke, name);
+        rootPane.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
     private void initMenu() {
         menuPanel.setLayout(new BorderLayout());
         menuPanel.setBackground(MENU_COLOR);
@@ -115,14 +192,31 @@ public class Calendar {
         nav.add(Box.createRigidArea(new Dimension(5, 0)));
         nav.add(deleteTaskButton);
         nav.add(Box.createRigidArea(new Dimension(5, 0)));
+        nav.add(importButton);
+        nav.add(Box.createRigidArea(new Dimension(5, 0)));
+        nav.add(exportButton);
+        nav.add(Box.createRigidArea(new Dimension(5, 0)));
         homeButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseReleased(MouseEvent e) {
-                setCalendarWeek(0);
+                showWeek(0);
             }
         });
         nav.add(homeButton);
         nav.add(Box.createRigidArea(new Dimension(5, 0)));
+        overviewButton.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (!isOverviewShown) {
+                    showOverview(OverviewPanel.Mode.MONTH,
+                            YearMonth.from(LocalDate.ofEpochDay(getWeek().getFirstEpochDay())));
+                } else if (overviewPanel.getMode() == OverviewPanel.Mode.MONTH) {
+                    showOverview(OverviewPanel.Mode.YEAR, YearMonth.from(overviewPanel.getFirstDate()));
+                } else {
+                    showWeek(weekOffset);
+                }
+            }
+        });
         nav.add(overviewButton);
         nav.add(Box.createRigidArea(new Dimension(5, 0)));
         settingsButton.addMouseListener(new MouseAdapter() {
@@ -133,6 +227,18 @@ public class Calendar {
         });
         nav.add(settingsButton);
         menuPanel.add(nav, BorderLayout.LINE_END);
+        if (calendars.getCalendarCount() > 1) {
+            JPanel legend = new JPanel();
+            legend.setBackground(MENU_COLOR);
+            for (int i = 0; i < calendars.getCalendarCount(); i++) {
+                JLabel label = new JLabel(calendars.getName(i));
+                label.setFont(new Font("Arial", Font.BOLD, 14));
+                label.setForeground(TaskCellRenderer.getCalendarColor(i));
+                legend.add(label);
+                legend.add(Box.createRigidArea(new Dimension(10, 0)));
+            }
+            menuPanel.add(legend, BorderLayout.LINE_START);
+        }
         panel.add(menuPanel, BorderLayout.PAGE_START);
     }
 
@@ -147,6 +253,8 @@ public class Calendar {
         calendarTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         calendarTable.setCellSelectionEnabled(true);
         calendarTable.setRowHeight(120);
+        TaskCellRenderer taskCellRenderer = new TaskCellRenderer();
+        calendarTable.setDefaultRenderer(Object.class, taskCellRenderer);
         calendarTable.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseReleased(MouseEvent e) {
@@ -161,7 +269,7 @@ public class Calendar {
                     if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1) {
                         taskMenu.displayCreator();
                         taskMenu.setLocation(getPointForComponent(taskMenu.getSize().getWidth(), taskMenu.getSize().getHeight()));
-                        taskMenu.setDate(getWeekDates()[calendarTable.getSelectedColumn()]);
+                        taskMenu.setDate(getWeek().getDate(calendarTable.getSelectedColumn()));
                     }
                 }
             }
@@ -172,8 +280,7 @@ public class Calendar {
                 refreshMenu();
                 if (isTaskSelected()) {
                     if (e.getKeyCode() == KeyEvent.VK_DELETE) {
-                        deleteTask(getTask(calendarTable.getSelectedRow(),
-                                calendarTable.getSelectedColumn()));
+                        deleteSelectedTask();
                     }
                 }
             }
@@ -181,10 +288,16 @@ public class Calendar {
 
         calendarPanel.setLayout(new BorderLayout());
         calendarPanel.setBackground(MENU_COLOR);
-        last.addActionListener(e -> setCalendarWeek(--weekOffset));
+        last.addActionListener(e -> navigate(-1));
         calendarPanel.add(last, BorderLayout.LINE_START);
-        calendarPanel.add(new JScrollPane(calendarTable), BorderLayout.CENTER);
-        next.addActionListener(e -> setCalendarWeek(++weekOffset));
+        JScrollPane calendarScrollPane = new JScrollPane(calendarTable);
+        taskCellRenderer.attach(calendarTable, calendarScrollPane.getViewport());
+        viewPanel.add(calendarScrollPane, WEEK_VIEW);
+        overviewPanel.setDayListener(date -> showWeek(
+                Math.floorDiv((int) date.toEpochDay() - Week.of(0).getFirstEpochDay(), 7)));
+        viewPanel.add(overviewPanel, OVERVIEW_VIEW);
+        calendarPanel.add(viewPanel, BorderLayout.CENTER);
+        next.addActionListener(e -> navigate(1));
         calendarPanel.add(next, BorderLayout.LINE_END);
 
         panel.addComponentListener(new ComponentAdapter() {
@@ -199,111 +312,217 @@ public class Calendar {
         setCalendarWeek(weekOffset);
     }
 
+    private void deleteSelectedTask() {
+        Task task = getTask(calendarTable.getSelectedRow(), calendarTable.getSelectedColumn());
+        CalendarService taskService = calendars.getService(task);
+        Recurrence recurrence = taskService.getRecurrence(task);
+        if (recurrence == null) {
+            taskService.deleteTask(task);
+            return;
+        }
+        String[] options = {"This Occurrence", "All Occurrences", "Cancel"};
+        int option = JOptionPane.showOptionDialog(frame, "Delete only this occurrence or every occurrence?",
+                "Delete Task", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (option == 0) {
+            taskService.deleteTask(task);
+        } else if (option == 1) {
+            taskService.deleteRecurrence(recurrence);
+        }
+    }
+
+    private void navigate(int offset) {
+        if (isOverviewShown) {
+            overviewPanel.move(offset);
+            loadTasks(overviewPanel.getFirstDate(), overviewPanel.getLastDate());
+        } else {
+            setCalendarWeek(weekOffset + offset);
+        }
+    }
+
     /**
-     * Adds a new Task to the Calendar. The Task argument will be appropriately stored and displayed
-     * in the Calendar. First, the Task is stored on user's system and is then rendered into the Calendar.
+     * Imports the events of an iCalendar (.ics) file as Tasks in the background. The imported Tasks of
+     * loaded months are indexed as they are stored, and the others are loaded when their months are
+     * viewed. The number of imported Tasks and the import rate are shown once the import is done.
      *
-     * @param task the Task to be added
+     * @param file the iCalendar File to import
      */
-    public void addTask(Task task) {
-        if (task != null) {
-            tasks.add(task);
-            update();
-        }
+    public void importCalendar(File file) {
+        importButton.setEnabled(false);
+        new SwingWorker<Integer, Void>() {
+            private final long start = System.nanoTime();
+
+            @Override
+            protected Integer doInBackground() {
+                return service.importCalendar(file);
+            }
+
+            @Override
+            protected void done() {
+                importButton.setEnabled(true);
+                int imported = getResult(this);
+                if (imported < 0) {
+                    JOptionPane.showMessageDialog(frame, "Could not read " + file.getName() + ".",
+                            "Import", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    long nanos = Math.max(System.nanoTime() - start, 1);
+                    JOptionPane.showMessageDialog(frame, "Imported " + imported + " Tasks in "
+                            + String.format("%.1f", nanos / 1e9) + " s (" + imported * 1000000000L / nanos
+                            + " events/s).", "Import", JOptionPane.INFORMATION_MESSAGE);
+                }
+            }
+        }.execute();
     }
 
     /**
-     * Modifies the Task contained in the Calendar that matches the specified Task. This method looks
-     * at the UUID of the Task argument and locates the Task with the exact UUID in the Calendar. If
-     * the Calendar does not contain a Task with this UUID, it will not be added to the Calendar.
+     * Exports every stored Task to an iCalendar (.ics) file in the background.
      *
-     * @param task the Task to edit
+     * @param file the iCalendar File to write
      */
-    public void editTask(Task task) {
-        if (task != null) {
-            int row = getTaskRow(task);
-            int col = getTaskColumn(task);
-            for (int i = 0; i < tasks.size(); i++) {
-                if (tasks.get(i).getUUID().toString().equals(task.getUUID().toString())) {
-                    tasks.set(i, task);
-                    calendarTable.setValueAt(task, row, col);
-                    update();
-                    break;
+    public void exportCalendar(File file) {
+        exportButton.setEnabled(false);
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return service.exportCalendar(file);
+            }
+
+            @Override
+            protected void done() {
+                exportButton.setEnabled(true);
+                int exported = getResult(this);
+                if (exported < 0) {
+                    JOptionPane.showMessageDialog(frame, "Could not write " + file.getName() + ".",
+                            "Export", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(frame, "Exported " + exported + " Tasks to " + file.getName() + ".",
+                            "Export", JOptionPane.INFORMATION_MESSAGE);
                 }
             }
+        }.execute();
+    }
+
+    private static int getResult(SwingWorker<Integer, Void> worker) {
+        try {
+            return worker.get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Could not finish transfer: " + e.getMessage());
+            return -1;
         }
     }
 
     /**
-     * Deletes the Task at the selected row and column if it contains a valid Task. This method will
-     * remove the Task from storage and the Calendar display.
+     * Shows the overview of a month or a year in place of the week. The Tasks of the period are loaded
+     * first, after which the overview is painted from the counters of the TaskIndex.
      *
-     * @param task the Task to delete
+     * @param mode the Mode of the overview
+     * @param month the month to show, or a month of the year to show
      */
-    public void deleteTask(Task task) {
-        if (task != null) {
-            int row = getTaskRow(task);
-            int col = getTaskColumn(task);
-            tasks.remove(task);
-            calendarTable.setValueAt(null, row, col);
-            calendarModel.moveRow(row + 1, calendarTable.getRowCount() - 1, row);
-            update();
-        }
+    public void showOverview(OverviewPanel.Mode mode, YearMonth month) {
+        overviewPanel.setPeriod(mode, month);
+        loadTasks(overviewPanel.getFirstDate(), overviewPanel.getLastDate());
+        ((CardLayout) viewPanel.getLayout()).show(viewPanel, OVERVIEW_VIEW);
+        isOverviewShown = true;
+    }
+
+    /**
+     * Shows the week at an offset (in weeks) from the current week in place of the overview.
+     *
+     * @param offset the offset in weeks from current week
+     */
+    public void showWeek(int offset) {
+        ((CardLayout) viewPanel.getLayout()).show(viewPanel, WEEK_VIEW);
+        isOverviewShown = false;
+        setCalendarWeek(offset);
     }
 
     private void update() {
-        fileManager.saveTasks(tasks);
-        renderTasks();
-        editTaskButton.setEnabled(false);
-        deleteTaskButton.setEnabled(false);
+        refreshMenu();
+        overviewPanel.repaint();
+    }
+
+    private static void runOnEventDispatchThread(Runnable runnable) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            runnable.run();
+        } else {
+            SwingUtilities.invokeLater(runnable);
+        }
     }
 
     /**
-     * Renders the Tasks from storage. This will render all Tasks for all dates, so only one call is
-     * required for all Tasks until one of them is modified.
+     * Renders the loaded Tasks of the set week. Only the months that have been viewed are loaded from
+     * storage, which happens whenever the week is set. The CalendarModel reads the cells straight from
+     * the Tasks indexed by day, so rendering only touches the Tasks of the seven displayed days. If the
+     * week has been prepared by the WeekPrefetcher, its row count is not computed again.
      */
     public void renderTasks() {
-        calendarModel.setRowCount(0);
-        rowCount = Util.clamp(getAppropriateRowCount(weekOffset), 10, Integer.MAX_VALUE) + 1;
-        calendarModel.setRowCount(rowCount);
-        for (int col = 0; col < getWeekDates().length; col++) {
-            for (int i = 0; i < tasks.size(); i++) {
-                if (tasks.get(i).getDate().equals(getWeekDates()[col])) {
-                    for (int row = 0; row < calendarTable.getRowCount(); row++) {
-                        if (getColumn(tasks.get(i).getDate()) != null) {
-                            if (calendarTable.getValueAt(row, col) == null) {
-                                calendarTable.setValueAt(HTMLUtil.getTaskHTML(tasks.get(i)), row, col);
-                                break;
-                            }
-                        }
-                    }
-                } else {
-                    if (i < rowCount) {
-                        calendarTable.setValueAt(null, i, col);
-                    }
-                }
-            }
+        int rowCount = weekPrefetcher.getRowCount(weekOffset);
+        if (rowCount == -1) {
+            calendarModel.setWeek(getWeek());
+        } else {
+            calendarModel.setWeek(getWeek(), rowCount);
         }
     }
 
-    private int getAppropriateRowCount(int weekOffset) {
-        HashMap<String, Integer> dateCounts = new HashMap<>();
-        for (Task task : tasks) {
-            if (Util.indexOf(task.getDate(), getWeekDates(weekOffset)) != -1) {
-                if (dateCounts.containsKey(task.getDate())) {
-                    dateCounts.put(task.getDate(), dateCounts.get(task.getDate()) + 1);
-                } else {
-                    dateCounts.put(task.getDate(), 1);
-                }
-            }
+    /**
+     * Exports the Tasks of the set week as HTML, with a column for every day.
+     *
+     * @return the HTML String of the week
+     */
+    public String getWeekHTML() {
+        Week week = getWeek();
+        List<List<Task>> days = new ArrayList<>();
+        for (int col = 0; col < 7; col++) {
+            days.add(calendars.getTasks(week.getEpochDay(col)));
         }
-        int count = 0;
-        for (Map.Entry<String, Integer> entry : dateCounts.entrySet()) {
-            if (entry.getValue() >= count) {
-                count = entry.getValue();
-            }
+        return HTMLUtil.getWeekHTML(week.getDates(), days);
+    }
+
+    /**
+     * Writes the Tasks of the set week to an HTML file, with a column for every day.
+     *
+     * @param file the HTML File to write
+     */
+    public void exportWeekHTML(File file) {
+        try {
+            Files.writeString(file.toPath(), getWeekHTML(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write file " + file.getName());
+            JOptionPane.showMessageDialog(frame, "Could not write " + file.getName() + ".",
+                    "Export", JOptionPane.ERROR_MESSAGE);
         }
-        return count;
+    }
+
+    /**
+     * Loads the Tasks of a range of dates of every calendar from storage, so that they are indexed and
+     * included in the TaskColumns. The occurrences of the Recurrences within the weeks of the range are
+     * created as well.
+     *
+     * @param from the first date to load, inclusive
+     * @param to the last date to load, inclusive
+     */
+    public void loadTasks(LocalDate from, LocalDate to) {
+        calendars.loadTasks(from, to);
+    }
+
+    /**
+     * Retrieves the CalendarService that holds the Tasks of the primary calendar. New Tasks are added
+     * through it, and the Calendar repaints the days it reports as changed.
+     *
+     * @return the CalendarService of the primary calendar
+     */
+    public CalendarService getService() {
+        return service;
+    }
+
+    /**
+     * Retrieves the CalendarService of the calendar that a displayed Task belongs to, through which it
+     * is edited and deleted.
+     *
+     * @param task the Task
+     * @return the CalendarService of the calendar of the Task
+     */
+    public CalendarService getService(Task task) {
+        return calendars.getService(task);
     }
 
     /**
@@ -331,17 +550,7 @@ public class Calendar {
      * @return the row index of the Task or -1 if not found
      */
     public int getTaskRow(Task task) {
-        for (int col = 0; col < getWeekDates().length; col++) {
-            for (int row = 0; row < calendarTable.getRowCount(); row++) {
-                if (calendarTable.getValueAt(row, col) != null) {
-                    UUID cellUUID = HTMLUtil.getUUIDFromHTML(calendarTable.getValueAt(row, col).toString());
-                    if (task.getUUID().toString().equals(cellUUID.toString())) {
-                        return row;
-                    }
-                }
-            }
-        }
-        return -1;
+        return calendarModel.getTaskRow(task);
     }
 
     /**
@@ -351,29 +560,11 @@ public class Calendar {
      * @return the column index of the Task or -1 if not found
      */
     public int getTaskColumn(Task task) {
-        for (int col = 0; col < getWeekDates().length; col++) {
-            for (int row = 0; row < calendarTable.getRowCount(); row++) {
-                if (calendarTable.getValueAt(row, col) != null) {
-                    UUID cellUUID = HTMLUtil.getUUIDFromHTML(calendarTable.getValueAt(row, col).toString());
-                    if (task.getUUID().toString().equals(cellUUID.toString())) {
-                        return col;
-                    }
-                }
-            }
-        }
-        return -1;
+        return calendarModel.getTaskColumn(task);
     }
 
     private Task getTask(int row, int col) {
-        if (calendarTable.getValueAt(row, col) != null) {
-            UUID cellUUID = HTMLUtil.getUUIDFromHTML(calendarTable.getValueAt(row, col).toString());
-            for (Task t : tasks) {
-                if (t.getUUID().equals(cellUUID)) {
-                    return t;
-                }
-            }
-        }
-        return null;
+        return calendarModel.getTask(row, col);
     }
 
     /**
@@ -403,19 +594,24 @@ public class Calendar {
     /**
      * Sets the Calendar's week display to match an offset (in weeks) from the current week. For example,
      * calling setCalendarWeek(1) will display the next week. Also, setCalendarWeek(-1) will display the
-     * last week.
+     * last week. The Tasks of the week are only loaded and its occurrences expanded here if the
+     * WeekPrefetcher has not already prepared it, after which the weeks around it are prepared in the background.
      *
      * @param offset the offset in weeks from current week
      */
     public void setCalendarWeek(int offset) {
         weekOffset = offset;
-        String[] weekDates = getWeekDates();
+        Week week = getWeek();
+        if (weekPrefetcher.getRowCount(offset) == -1) {
+            loadTasks(LocalDate.ofEpochDay(week.getFirstEpochDay()), LocalDate.ofEpochDay(week.getLastEpochDay()));
+        }
         JTableHeader header = calendarTable.getTableHeader();
         for (int col = 0; col < 7; col++) {
-            header.getColumnModel().getColumn(col).setHeaderValue(weekDates[col]);
+            header.getColumnModel().getColumn(col).setHeaderValue(week.getDate(col));
         }
         header.repaint();
         renderTasks();
+        weekPrefetcher.prefetch(offset);
     }
 
     /**
@@ -426,23 +622,7 @@ public class Calendar {
      * @return an array of Strings containing the names of the week days
      */
     public String[] getWeekDates(int offset) {
-        LocalDate localDate = LocalDate.now().plusWeeks(offset);
-        List<LocalDate> weekDates = new ArrayList<>();
-        for (int i = 1; i < localDate.getDayOfWeek().getValue(); i++) {
-            weekDates.add(localDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.of(i))));
-        }
-        for (int i = localDate.getDayOfWeek().getValue(); i <= 7; i++) {
-            weekDates.add(localDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.of(i))));
-        }
-
-        String[] dates = new String[7];
-        for (int col = 0; col < 7; col++) {
-            dates[col] = weekDates.get(col).getDayOfWeek() + " "
-                    + weekDates.get(col).getMonthValue() + "-"
-                    + weekDates.get(col).getDayOfMonth() + "-"
-                    + weekDates.get(col).getYear();
-        }
-        return dates;
+        return Week.of(offset).getDates();
     }
 
     /**
@@ -455,6 +635,15 @@ public class Calendar {
         return getWeekDates(weekOffset);
     }
 
+    /**
+     * Retrieves the set week of the Calendar.
+     *
+     * @return the Week that is displayed
+     */
+    public Week getWeek() {
+        return Week.of(weekOffset);
+    }
+
     /**
      * Retrieves the current day of the week according to the user's system.
      *
@@ -472,21 +661,7 @@ public class Calendar {
      * @return the index of the column, or -1 if not found.
      */
     public int getColumnIndex(Object title) {
-        for (int col = 0; col < 7; col++) {
-            if (calendarTable.getColumnModel().getColumn(col).getHeaderValue().equals(title)) {
-                return col;
-            }
-        }
-        return -1;
-    }
-
-    private TableColumn getColumn(Object title) {
-        for (int col = 0; col < 7; col++) {
-            if (calendarTable.getColumnModel().getColumn(col).getHeaderValue().equals(title)) {
-                return calendarTable.getColumnModel().getColumn(col);
-            }
-        }
-        return null;
+        return title instanceof String ? getWeek().getColumn((String) title) : -1;
     }
 
     /**
@@ -584,15 +759,63 @@ public class Calendar {
             @Override
             public void mouseReleased(MouseEvent e) {
                 if (b.isEnabled()) {
-                    deleteTask(getTask(
-                            calendarTable.getSelectedRow(),
-                            calendarTable.getSelectedColumn()));
+                    deleteSelectedTask();
                 }
             }
         });
         return b;
     }
 
+    private JButton createImportButton() {
+        JButton b = createControlButton("Import");
+        b.setToolTipText("Import Tasks from an iCalendar File");
+        b.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                JFileChooser chooser = createCalendarChooser();
+                if (b.isEnabled() && chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    importCalendar(chooser.getSelectedFile());
+                }
+            }
+        });
+        return b;
+    }
+
+    private JButton createExportButton() {
+        JButton b = createControlButton("Export");
+        b.setToolTipText("Export Tasks to an iCalendar File, or the Week as HTML");
+        b.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                JFileChooser chooser = createCalendarChooser();
+                FileNameExtensionFilter htmlFilter = new FileNameExtensionFilter("Week as HTML (*.html)", "html");
+                chooser.addChoosableFileFilter(htmlFilter);
+                if (b.isEnabled() && chooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    File file = chooser.getSelectedFile();
+                    String name = file.getName().toLowerCase();
+                    if (chooser.getFileFilter() == htmlFilter || name.endsWith(".html")) {
+                        if (!name.endsWith(".html")) {
+                            file = new File(file.getParentFile(), file.getName() + ".html");
+                        }
+                        exportWeekHTML(file);
+                    } else {
+                        if (!name.endsWith(".ics")) {
+                            file = new File(file.getParentFile(), file.getName() + ".ics");
+                        }
+                        exportCalendar(file);
+                    }
+                }
+            }
+        });
+        return b;
+    }
+
+    private static JFileChooser createCalendarChooser() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("iCalendar Files (*.ics)", "ics"));
+        return chooser;
+    }
+
     private JButton createControlButton(String text) {
         JButton b = new JButton(text);
         b.setToolTipText(text + " Task");
@@ -625,11 +848,25 @@ public class Calendar {
     }
 
     /**
-     * The main method of the application. This method creates a new Calendar window.
+     * The main method of the application. This method creates a new Calendar window, or with the
+     * argument "--server" and an optional port, runs a {@link CalendarServer} without any window. The
+     * window is not shown if the calendar is already open, for example by a CalendarServer.
      *
      * @param args the command line arguments array
      */
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(Calendar::new);
+        if (args.length > 0 && args[0].equals("--server")) {
+            CalendarServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            try {
+                new Calendar();
+            } catch (IllegalStateException e) {
+                String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                LOGGER.log(Level.SEVERE, "Could not open the calendar: " + message);
+                JOptionPane.showMessageDialog(null, message + ".", TITLE, JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 }
@@ -0,0 +1,298 @@
+package com.calanders.calplanner.gui;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskRepository;
+import com.calanders.calplanner.gui.table.TaskCellRenderer;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A class that paints an overview of a month or a year of the Calendar. In the month view, every day
+ * shows its number of Tasks for every priority and its most important Tasks. In the year view, every
+ * day is a small square in the color of its most important priority, which is darker the more Tasks the
+ * day has. The summaries are read from the counters of a TaskRepository, so painting a year only costs a few
+ * lookups per day, regardless of the number of Tasks. Next to the title, the number of Tasks of every
+ * priority in the whole period is read from the range counts of the TaskRepository, so the totals stay live
+ * as Tasks are loaded and changed. Clicking a day notifies the day listener.
+ */
+public class OverviewPanel extends JComponent {
+    /**
+     * The periods that an OverviewPanel can display.
+     */
+    public enum Mode {
+        MONTH,
+        YEAR
+    }
+
+    private static final Color BACKGROUND_COLOR = Color.WHITE;
+    private static final Color GRID_COLOR = new Color(216, 216, 216);
+    private static final Color EMPTY_DAY_COLOR = new Color(240, 240, 240);
+    private static final Color TEXT_COLOR = new Color(64, 64, 64);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Font HEADER_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font DAY_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font TASK_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final Font SMALL_FONT = new Font("Arial", Font.PLAIN, 9);
+    private static final String[] PRIORITY_NAMES = {"low", "medium", "high"};
+    private static final int TOP_TASKS = 3;
+    private static final int PADDING = 10;
+    private static final int TITLE_HEIGHT = 36;
+    private static final int HEADER_HEIGHT = 20;
+    private final TaskRepository tasks;
+    private Mode mode;
+    private YearMonth month;
+    private Consumer<LocalDate> dayListener;
+
+    /**
+     * Constructs a new OverviewPanel that displays the current month of a TaskRepository.
+     *
+     * @param tasks the TaskRepository to summarize
+     */
+    public OverviewPanel(TaskRepository tasks) {
+        this.tasks = tasks;
+        mode = Mode.MONTH;
+        month = YearMonth.now();
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                LocalDate date = getDateAt(e.getX(), e.getY());
+                if (date != null && dayListener != null) {
+                    dayListener.accept(date);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the listener that is notified with the date of a day when it is clicked.
+     *
+     * @param dayListener the listener
+     */
+    public void setDayListener(Consumer<LocalDate> dayListener) {
+        this.dayListener = dayListener;
+    }
+
+    /**
+     * Sets the period displayed by the OverviewPanel.
+     *
+     * @param mode the Mode of the OverviewPanel
+     * @param month the displayed month, or a month of the displayed year
+     */
+    public void setPeriod(Mode mode, YearMonth month) {
+        this.mode = mode;
+        this.month = month;
+        repaint();
+    }
+
+    /**
+     * Moves the displayed period by a number of months or years, depending on the Mode.
+     *
+     * @param offset the number of periods to move, which is negative to move back
+     */
+    public void move(int offset) {
+        setPeriod(mode, mode == Mode.MONTH ? month.plusMonths(offset) : month.plusYears(offset));
+    }
+
+    /**
+     * Retrieves the Mode of the OverviewPanel.
+     *
+     * @return the Mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Retrieves the first date of the displayed period.
+     *
+     * @return the first day of the month or year
+     */
+    public LocalDate getFirstDate() {
+        return mode == Mode.MONTH ? month.atDay(1) : LocalDate.of(month.getYear(), 1, 1);
+    }
+
+    /**
+     * Retrieves the last date of the displayed period.
+     *
+     * @return the last day of the month or year
+     */
+    public LocalDate getLastDate() {
+        return mode == Mode.MONTH ? month.atEndOfMonth() : LocalDate.of(month.getYear(), 12, 31);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (g instanceof Graphics2D) {
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+        g.setFont(TITLE_FONT);
+        g.setColor(TEXT_COLOR);
+        String title = mode == Mode.MONTH ? month.getMonth() + " " + month.getYear() : String.valueOf(month.getYear());
+        g.drawString(title, PADDING, PADDING + g.getFontMetrics().getAscent());
+        paintTotals(g, PADDING + g.getFontMetrics().stringWidth(title) + 3 * PADDING,
+                PADDING + g.getFontMetrics().getAscent());
+
+        if (mode == Mode.MONTH) {
+            paintMonth(g, month, getMonthBounds(), true);
+        } else {
+            for (int m = 0; m < 12; m++) {
+                paintMonth(g, YearMonth.of(month.getYear(), m + 1), getYearMonthBounds(m), false);
+            }
+        }
+    }
+
+    private void paintTotals(Graphics g, int x, int y) {
+        int[] counts = tasks.getRangeCounts((int) getFirstDate().toEpochDay(), (int) getLastDate().toEpochDay());
+        g.setFont(HEADER_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        for (int priority = Task.PRIORITY_HIGH; priority >= Task.PRIORITY_LOW; priority--) {
+            String label = counts[priority] + " " + PRIORITY_NAMES[priority];
+            g.setColor(TaskCellRenderer.getPriorityColor(priority));
+            g.fillOval(x, y - metrics.getAscent() + 2, 8, 8);
+            g.drawString(label, x + 12, y);
+            x += 12 + metrics.stringWidth(label) + 2 * PADDING;
+        }
+    }
+
+    private void paintMonth(Graphics g, YearMonth month, Rectangle bounds, boolean detailed) {
+        int top = bounds.y;
+        if (!detailed) {
+            g.setFont(HEADER_FONT);
+            g.setColor(TEXT_COLOR);
+            g.drawString(month.getMonth().toString(), bounds.x, top + g.getFontMetrics().getAscent());
+            top += HEADER_HEIGHT;
+        }
+        int cellWidth = bounds.width / 7;
+        int cellHeight = (bounds.y + bounds.height - top - HEADER_HEIGHT) / 6;
+
+        g.setFont(detailed ? HEADER_FONT : SMALL_FONT);
+        g.setColor(TEXT_COLOR);
+        for (int col = 0; col < 7; col++) {
+            String day = DayOfWeek.of(col + 1).toString();
+            g.drawString(detailed ? day : day.substring(0, 1), bounds.x + col * cellWidth + 2,
+                    top + g.getFontMetrics().getAscent());
+        }
+        top += HEADER_HEIGHT;
+
+        int firstCol = month.atDay(1).getDayOfWeek().getValue() - 1;
+        int firstEpochDay = (int) month.atDay(1).toEpochDay();
+        for (int day = 0; day < month.lengthOfMonth(); day++) {
+            int cell = firstCol + day;
+            int x = bounds.x + (cell % 7) * cellWidth;
+            int y = top + (cell / 7) * cellHeight;
+            if (detailed) {
+                paintDay(g, firstEpochDay + day, day + 1, x, y, cellWidth, cellHeight);
+            } else {
+                paintDaySquare(g, firstEpochDay + day, day + 1, x, y, cellWidth, cellHeight);
+            }
+        }
+    }
+
+    private void paintDay(Graphics g, int epochDay, int dayOfMonth, int x, int y, int width, int height) {
+        g.setColor(GRID_COLOR);
+        g.drawRect(x, y, width, height);
+        Shape clip = g.getClip();
+        g.clipRect(x + 1, y + 1, width - 2, height - 2);
+
+        g.setFont(DAY_FONT);
+        FontMetrics dayMetrics = g.getFontMetrics();
+        int line = y + 4 + dayMetrics.getAscent();
+        g.setColor(TEXT_COLOR);
+        g.drawString(String.valueOf(dayOfMonth), x + 4, line);
+
+        int countX = x + 8 + dayMetrics.stringWidth("00");
+        for (int priority = Task.PRIORITY_HIGH; priority >= Task.PRIORITY_LOW; priority--) {
+            int count = tasks.getCount(epochDay, priority);
+            if (count > 0) {
+                String label = String.valueOf(count);
+                g.setColor(TaskCellRenderer.getPriorityColor(priority));
+                g.fillOval(countX, line - dayMetrics.getAscent() + 2, 8, 8);
+                g.drawString(label, countX + 10, line);
+                countX += 16 + dayMetrics.stringWidth(label);
+            }
+        }
+
+        g.setFont(TASK_FONT);
+        FontMetrics taskMetrics = g.getFontMetrics();
+        int lines = Math.min(TOP_TASKS, (y + height - line - 4) / taskMetrics.getHeight());
+        if (lines > 0) {
+            List<Task> top = tasks.getTopTasks(epochDay, lines);
+            for (Task task : top) {
+                line += taskMetrics.getHeight();
+                g.setColor(TaskCellRenderer.getPriorityColor(task.getPriority()));
+                g.drawString(task.getTime() + " " + task.getText(), x + 4, line);
+            }
+        }
+        g.setClip(clip);
+    }
+
+    private void paintDaySquare(Graphics g, int epochDay, int dayOfMonth, int x, int y, int width, int height) {
+        int count = tasks.getCount(epochDay);
+        if (count == 0) {
+            g.setColor(EMPTY_DAY_COLOR);
+        } else {
+            int priority = Task.PRIORITY_HIGH;
+            while (priority > Task.PRIORITY_LOW && tasks.getCount(epochDay, priority) == 0) {
+                priority--;
+            }
+            Color color = TaskCellRenderer.getPriorityColor(priority);
+            g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), Math.min(255, 96 + 32 * count)));
+        }
+        g.fillRect(x + 1, y + 1, width - 2, height - 2);
+        if (height >= 14 && width >= 14) {
+            g.setFont(SMALL_FONT);
+            g.setColor(TEXT_COLOR);
+            g.drawString(String.valueOf(dayOfMonth), x + 3, y + 1 + g.getFontMetrics().getAscent());
+        }
+    }
+
+    private Rectangle getMonthBounds() {
+        return new Rectangle(PADDING, PADDING + TITLE_HEIGHT,
+                getWidth() - 2 * PADDING, getHeight() - 2 * PADDING - TITLE_HEIGHT);
+    }
+
+    private Rectangle getYearMonthBounds(int monthIndex) {
+        int width = (getWidth() - PADDING) / 4;
+        int height = (getHeight() - PADDING - TITLE_HEIGHT) / 3;
+        return new Rectangle(PADDING + (monthIndex % 4) * width, PADDING + TITLE_HEIGHT + (monthIndex / 4) * height,
+                width - PADDING, height - PADDING);
+    }
+
+    private LocalDate getDateAt(int x, int y) {
+        if (mode == Mode.MONTH) {
+            return getDateAt(month, getMonthBounds(), true, x, y);
+        }
+        for (int m = 0; m < 12; m++) {
+            Rectangle bounds = getYearMonthBounds(m);
+            if (bounds.contains(x, y)) {
+                return getDateAt(YearMonth.of(month.getYear(), m + 1), bounds, false, x, y);
+            }
+        }
+        return null;
+    }
+
+    private static LocalDate getDateAt(YearMonth month, Rectangle bounds, boolean detailed, int x, int y) {
+        int top = bounds.y + HEADER_HEIGHT + (detailed ? 0 : HEADER_HEIGHT);
+        int cellWidth = bounds.width / 7;
+        int cellHeight = (bounds.y + bounds.height - top) / 6;
+        if (x < bounds.x || y < top || cellWidth == 0 || cellHeight == 0) {
+            return null;
+        }
+        int col = (x - bounds.x) / cellWidth;
+        int row = (y - top) / cellHeight;
+        int day = row * 7 + col - (month.atDay(1).getDayOfWeek().getValue() - 1) + 1;
+        return col < 7 && day >= 1 && day <= month.lengthOfMonth() ? month.atDay(day) : null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.calanders.calplanner.gui;
 
+import com.calanders.calplanner.data.CalendarService;
+import com.calanders.calplanner.data.Recurrence;
 import com.calanders.calplanner.data.Task;
 import com.calanders.calplanner.data.resources.Resources;
 import com.calanders.calplanner.util.JTextFieldLimiter;
@@ -22,20 +24,26 @@ import java.util.Objects;
  * A class that serves to provide a Task creation and modification graphical user interface for Tasks
  * added to a Calendar. The TaskMenu can generate a new Task based on user input and selections
  * which will be added to the Calendar upon submission. Also, a TaskMenu can edit an existing
- * Task if supplied with a Task object.
+ * Task if supplied with a Task object. New Tasks are handed to the CalendarService of the primary
+ * calendar, and edited Tasks to that of the calendar they belong to.
  */
 public class TaskMenu {
     private final JFrame frame;
     private final Calendar calendar;
+    private final CalendarService service;
     private final JPanel panel;
     private final JPanel formPanel;
     private String[] dates;
     private final String[] times;
     private final String[] priorities;
+    private final String[] repeats;
+    private final String[] counts;
     private final JTextField text;
     private final JComboBox<String> date;
     private final JComboBox<String> time;
     private final JComboBox<String> priority;
+    private final JComboBox<String> repeat;
+    private final JComboBox<String> count;
     private final JButton submit;
     private boolean isEditing;
     private Task editingTask;
@@ -47,16 +55,21 @@ public class TaskMenu {
      */
     public TaskMenu(Calendar calendar) {
         this.calendar = calendar;
+        service = calendar.getService();
         frame = new JFrame("New Task");
         panel = new JPanel();
         formPanel = new JPanel();
         dates = calendar.getWeekDates();
         times = getTimes();
         priorities = new String[]{"Priority: Low", "Priority: Medium", "Priority: High"};
+        repeats = new String[]{"Repeat: Never", "Repeat: Daily", "Repeat: Weekly", "Repeat: Monthly"};
+        counts = new String[]{"Until Deleted", "5 Times", "10 Times", "26 Times", "52 Times"};
         text = new JTextField();
         date = createJComboBox(dates, calendar.getCurrentDayOfWeek().getValue() - 1);
         time = createJComboBox(times, 0);
         priority = createJComboBox(priorities, 1);
+        repeat = createJComboBox(repeats, 0);
+        count = createJComboBox(counts, 0);
         submit = createSubmitButton();
         isEditing = false;
 
@@ -94,6 +107,12 @@ public class TaskMenu {
         formPanel.add(time, formConstraints);
         formConstraints.gridx++;
         formPanel.add(priority, formConstraints);
+        formConstraints.gridx = 0;
+        formConstraints.gridy++;
+        formPanel.add(repeat, formConstraints);
+        formConstraints.gridx++;
+        formPanel.add(count, formConstraints);
+        repeat.addActionListener(e -> count.setEnabled(repeat.isEnabled() && repeat.getSelectedIndex() > 0));
         panel.add(formPanel);
 
         GridBagConstraints panelConstraints = new GridBagConstraints();
@@ -130,13 +149,18 @@ public class TaskMenu {
         resetJComboBox(date, dates, calendar.getCurrentDayOfWeek().getValue() - 1);
         resetJComboBox(time, times, 0);
         resetJComboBox(priority, priorities, Task.PRIORITY_MEDIUM);
+        repeat.setEnabled(true);
+        resetJComboBox(repeat, repeats, 0);
+        resetJComboBox(count, counts, 0);
         submit.setText("Create Task");
         frame.setTitle("New Task");
         frame.setVisible(true);
     }
 
     /**
-     * Displays the TaskMenu with options populated based on the Task argument.
+     * Displays the TaskMenu with options populated based on the Task argument. If the Task is an
+     * occurrence of a Recurrence, its repetition is shown but can not be changed, since only the
+     * occurrence is edited.
      *
      * @param task the Task to edit
      */
@@ -148,6 +172,10 @@ public class TaskMenu {
         resetJComboBox(date, dates, Util.indexOf(task.getDate(), calendar.getWeekDates()));
         resetJComboBox(time, times, Util.indexOf(task.getTime(), times));
         resetJComboBox(priority, priorities, task.getPriority());
+        Recurrence recurrence = calendar.getService(task).getRecurrence(task);
+        repeat.setEnabled(false);
+        resetJComboBox(repeat, repeats, recurrence == null ? 0 : recurrence.getFrequency().ordinal() + 1);
+        resetJComboBox(count, counts, 0);
         submit.setText("Update Task");
         frame.setTitle("Edit Task");
         frame.setVisible(true);
@@ -162,9 +190,13 @@ public class TaskMenu {
         if (!task.getText().isEmpty()) {
             if (isEditing) {
                 task.setUUID(editingTask.getUUID());
-                calendar.editTask(task);
+                calendar.getService(editingTask).editTask(task);
+            } else if (repeat.getSelectedIndex() > 0) {
+                service.addRecurrence(new Recurrence(task,
+                        Recurrence.Frequency.values()[repeat.getSelectedIndex() - 1], 1,
+                        getCount(), Recurrence.NO_END));
             } else {
-                calendar.addTask(task);
+                service.addTask(task);
             }
             frame.dispose();
         }
@@ -269,6 +301,11 @@ public class TaskMenu {
         return Arrays.copyOf(timeList.toArray(), timeList.size(), String[].class);
     }
 
+    private int getCount() {
+        String selected = Objects.requireNonNull(count.getSelectedItem()).toString();
+        return count.getSelectedIndex() == 0 ? 0 : Integer.parseInt(selected.substring(0, selected.indexOf(' ')));
+    }
+
     private JComboBox<String> createJComboBox(String[] items, int defaultIndex) {
         JComboBox<String> cb = new JComboBox<>(items);
         cb.setSelectedIndex(defaultIndex);
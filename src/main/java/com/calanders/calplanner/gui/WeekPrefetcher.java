@@ -0,0 +1,147 @@
+package com.calanders.calplanner.gui;
+
+import com.calanders.calplanner.data.CalendarSet;
+import com.calanders.calplanner.gui.table.CalendarModel;
+import com.calanders.calplanner.util.Week;
+
+import javax.swing.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+
+/**
+ * A class that prepares the weeks next to the displayed week of the Calendar in the background, so that
+ * navigating to them does not wait for storage. While a week is displayed, a SwingWorker loads the
+ * Tasks of every calendar of the weeks up to {@link #DISTANCE} weeks before and after it into the
+ * CalendarSet, which also expands their occurrences. Once the SwingWorker is done, the row count of
+ * every prepared week is computed and cached.
+ * <p>
+ * The cache is keyed by the first day of every week rather than its offset from the current week, so it
+ * stays valid when the current week changes at midnight. It only holds the weeks within
+ * {@link #DISTANCE} of the displayed week. A prepared week is
+ * dropped when one of its days is changed, and every prepared week is dropped when a Recurrence is
+ * changed. Dropped weeks are prepared again by the next prefetch.
+ */
+class WeekPrefetcher {
+    /**
+     * The number of weeks before and after the displayed week that are prepared.
+     */
+    static final int DISTANCE = 2;
+    private final CalendarSet calendars;
+    private final CalendarModel calendarModel;
+    private final HashMap<Integer, Integer> rowCounts;
+    private SwingWorker<List<Week>, Void> worker;
+    private int offset;
+
+    /**
+     * Constructs a new WeekPrefetcher.
+     *
+     * @param calendars the CalendarSet to load the Tasks of every calendar into
+     * @param calendarModel the CalendarModel to compute the row counts with
+     */
+    WeekPrefetcher(CalendarSet calendars, CalendarModel calendarModel) {
+        this.calendars = calendars;
+        this.calendarModel = calendarModel;
+        rowCounts = new HashMap<>();
+    }
+
+    /**
+     * Retrieves the row count of a prepared week.
+     *
+     * @param offset the offset in weeks from the current week
+     * @return the row count, or -1 if the week has not been prepared
+     */
+    int getRowCount(int offset) {
+        return rowCounts.getOrDefault(Week.of(offset).getFirstEpochDay(), -1);
+    }
+
+    /**
+     * Prepares the weeks around the displayed week in the background and drops the prepared weeks that
+     * are too far from it. Must be called on the event dispatch thread.
+     *
+     * @param offset the offset in weeks of the displayed week
+     */
+    void prefetch(int offset) {
+        this.offset = offset;
+        rowCounts.keySet().removeIf(monday -> !isNear(monday));
+        if (worker == null || worker.isDone()) {
+            List<Week> weeks = getMissingWeeks();
+            if (!weeks.isEmpty()) {
+                worker = new PrefetchWorker(weeks);
+                worker.execute();
+            }
+        }
+    }
+
+    /**
+     * Drops the prepared week that contains the specified day. Must be called on the event dispatch
+     * thread whenever the Tasks of a day change.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     */
+    void invalidate(int epochDay) {
+        rowCounts.keySet().removeIf(monday -> epochDay >= monday && epochDay < monday + 7);
+    }
+
+    /**
+     * Drops every prepared week. Must be called on the event dispatch thread whenever the Tasks of an
+     * unknown number of days change.
+     */
+    void clear() {
+        rowCounts.clear();
+    }
+
+    private boolean isNear(int monday) {
+        return Math.abs(monday - Week.of(offset).getFirstEpochDay()) <= DISTANCE * 7;
+    }
+
+    private List<Week> getMissingWeeks() {
+        List<Week> weeks = new ArrayList<>();
+        for (int distance = 0; distance <= DISTANCE; distance++) {
+            for (int o : new int[]{offset + distance, offset - distance}) {
+                Week week = Week.of(o);
+                if (!rowCounts.containsKey(week.getFirstEpochDay()) && !weeks.contains(week)) {
+                    weeks.add(week);
+                }
+            }
+        }
+        return weeks;
+    }
+
+    private class PrefetchWorker extends SwingWorker<List<Week>, Void> {
+        private final List<Week> weeks;
+
+        private PrefetchWorker(List<Week> weeks) {
+            this.weeks = weeks;
+        }
+
+        @Override
+        protected List<Week> doInBackground() {
+            for (Week week : weeks) {
+                calendars.loadTasks(LocalDate.ofEpochDay(week.getFirstEpochDay()),
+                        LocalDate.ofEpochDay(week.getLastEpochDay()));
+            }
+            return weeks;
+        }
+
+        @Override
+        protected void done() {
+            try {
+                for (Week week : get()) {
+                    if (isNear(week.getFirstEpochDay())) {
+                        rowCounts.put(week.getFirstEpochDay(), calendarModel.getAppropriateRowCount(week));
+                    }
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                Calendar.LOGGER.log(Level.WARNING, "Could not prefetch " + weeks.size() + " weeks", e);
+                return;
+            }
+            if (!getMissingWeeks().isEmpty()) {
+                prefetch(offset);
+            }
+        }
+    }
+}
@@ -1,19 +1,174 @@
 package com.calanders.calplanner.gui.table;
 
-import javax.swing.table.DefaultTableModel;
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskRepository;
+import com.calanders.calplanner.util.Util;
+import com.calanders.calplanner.util.Week;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+import java.util.Collection;
+import java.util.List;
 
 /**
- * A class that represents the model of the Calendar.
+ * A class that represents the model of the Calendar. The model displays one week, with a column for
+ * every day, and reads its cells directly from a TaskRepository rather than storing copies of the Tasks. The
+ * row of a cell is the position of the Task within its day, and its value is the Task itself, which is
+ * painted by a TaskCellRenderer. After the TaskRepository changes, the model must be told which days
+ * were affected so that only their columns are repainted.
  */
-public class CalendarModel extends DefaultTableModel {
+public class CalendarModel extends AbstractTableModel {
+    private static final int MINIMUM_ROW_COUNT = 10;
+    private final TaskRepository tasks;
+    private Week week;
+    private int rowCount;
+
+    /**
+     * Constructs a new CalendarModel that displays the Tasks of a TaskRepository.
+     *
+     * @param tasks the TaskRepository to display
+     */
+    public CalendarModel(TaskRepository tasks) {
+        this.tasks = tasks;
+        week = Week.of(0);
+        rowCount = MINIMUM_ROW_COUNT + 1;
+    }
+
+    /**
+     * Sets the week displayed by the model and reloads every cell.
+     *
+     * @param week the Week to display
+     */
+    public void setWeek(Week week) {
+        setWeek(week, getAppropriateRowCount(week));
+    }
+
+    /**
+     * Sets the week displayed by the model with a row count that has already been computed by
+     * {@link #getAppropriateRowCount(Week)}, and reloads every cell.
+     *
+     * @param week the Week to display
+     * @param rowCount the row count of the Week
+     */
+    public void setWeek(Week week, int rowCount) {
+        this.week = week;
+        this.rowCount = rowCount;
+        fireTableDataChanged();
+    }
+
     /**
-     * Constructs a new CalendarModel with an array of column names and the number of rows in the model.
+     * Reloads every cell of the displayed week.
+     */
+    public void reload() {
+        rowCount = getAppropriateRowCount(week);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Notifies the model that any number of Tasks of the specified days have changed. The row count is
+     * updated once, and only the columns of the displayed days among them are repainted.
+     *
+     * @param epochDays the days counted from the epoch (1970-01-01) whose Tasks have changed
+     */
+    public void daysChanged(Collection<Integer> epochDays) {
+        if (updateRowCount()) {
+            return;
+        }
+        boolean[] changed = new boolean[7];
+        for (int epochDay : epochDays) {
+            int col = week.getColumn(epochDay);
+            if (col != -1 && !changed[col]) {
+                changed[col] = true;
+                fireColumnUpdated(0, col);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the Task displayed in the specified cell.
      *
-     * @param columnNames the names of the columns
-     * @param rowCount the number of rows
+     * @param row the row
+     * @param col the column
+     * @return the Task, or null if the cell is empty or out of range
      */
-    public CalendarModel(Object[] columnNames, int rowCount) {
-        super(columnNames, rowCount);
+    public Task getTask(int row, int col) {
+        if (col < 0 || col >= 7 || row < 0) {
+            return null;
+        }
+        return tasks.getTask(week.getEpochDay(col), row);
+    }
+
+    /**
+     * Retrieves the number of calendars whose Tasks are displayed together.
+     *
+     * @return the number of calendars
+     */
+    public int getCalendarCount() {
+        return tasks.getCalendarCount();
+    }
+
+    /**
+     * Retrieves the calendar that the Task displayed in the specified cell belongs to.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the index of the calendar, or 0 if the cell is out of range
+     */
+    public int getCalendarIndex(int row, int col) {
+        if (col < 0 || col >= 7 || row < 0) {
+            return 0;
+        }
+        return tasks.getCalendarIndex(week.getEpochDay(col), row);
+    }
+
+    /**
+     * Retrieves the row in which a Task is displayed.
+     *
+     * @param task the Task
+     * @return the row, or -1 if the Task is not displayed
+     */
+    public int getTaskRow(Task task) {
+        int col = getTaskColumn(task);
+        if (col == -1) {
+            return -1;
+        }
+        List<Task> day = tasks.getTasks(week.getEpochDay(col));
+        for (int row = 0; row < day.size(); row++) {
+            if (day.get(row).hasUUID(task.getUUID())) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the column in which a Task is displayed.
+     *
+     * @param task the Task
+     * @return the column, or -1 if the Task is not in the displayed week
+     */
+    public int getTaskColumn(Task task) {
+        return week.getColumn(task.getEpochDay());
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return 7;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return week.getDate(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return getTask(row, column);
     }
 
     /**
@@ -28,4 +183,31 @@ public class CalendarModel extends DefaultTableModel {
     public boolean isCellEditable(int row, int column) {
         return false;
     }
+
+    private boolean updateRowCount() {
+        int count = getAppropriateRowCount(week);
+        if (count == rowCount) {
+            return false;
+        }
+        rowCount = count;
+        fireTableDataChanged();
+        return true;
+    }
+
+    /**
+     * Computes the number of rows needed to display a week, which is one more than the number of Tasks
+     * of its busiest day, but at least {@value #MINIMUM_ROW_COUNT} plus one.
+     *
+     * @param week the Week
+     * @return the row count of the Week
+     */
+    public int getAppropriateRowCount(Week week) {
+        return Util.clamp(tasks.getMaxCount(week.getFirstEpochDay()), MINIMUM_ROW_COUNT, Integer.MAX_VALUE) + 1;
+    }
+
+    private void fireColumnUpdated(int firstRow, int col) {
+        if (col != -1) {
+            fireTableChanged(new TableModelEvent(this, Math.max(firstRow, 0), rowCount - 1, col));
+        }
+    }
 }
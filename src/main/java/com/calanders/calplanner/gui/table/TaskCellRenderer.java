@@ -0,0 +1,273 @@
+package com.calanders.calplanner.gui.table;
+
+import com.calanders.calplanner.data.Task;
+
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class that paints the Tasks of the Calendar directly onto the table. The text of a Task is drawn in
+ * bold in the color of its priority and wrapped onto as many lines as fit, followed by its time. The
+ * fonts and colors are created once, and the line breaks of every Task are computed once per column
+ * width, so painting a cell does not allocate.
+ * <p>
+ * When the Tasks of several calendars are displayed together, a stripe in the color of its calendar is
+ * drawn along the left edge of every Task.
+ * <p>
+ * The line breaks are only kept for the cells around the viewport of the table. Once the renderer is
+ * attached to a JViewport with {@link #attach(JTable, JViewport)}, it computes the line breaks of the
+ * visible rows and {@value #OVERSCAN} rows above and below them whenever the viewport is scrolled or
+ * resized, and discards those of the rows that have been scrolled away. The memory of the renderer is
+ * then bounded by the size of the screen rather than the number of Tasks of the displayed week.
+ */
+public class TaskCellRenderer extends JComponent implements TableCellRenderer {
+    private static final Color LOW_COLOR = new Color(0, 192, 0);
+    private static final Color MEDIUM_COLOR = new Color(255, 176, 0);
+    private static final Color HIGH_COLOR = new Color(255, 64, 64);
+    private static final Color[] CALENDAR_COLORS = {
+            new Color(66, 133, 244),
+            new Color(142, 36, 170),
+            new Color(0, 137, 123),
+            new Color(216, 27, 96),
+            new Color(121, 85, 72),
+            new Color(84, 110, 122)
+    };
+    private static final Font TEXT_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font TIME_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final int PADDING = 4;
+    private static final int STRIPE_WIDTH = 3;
+    private static final int LINE_SPACING = 4;
+    private static final int OVERSCAN = 2;
+    private static final int MINIMUM_CAPACITY = 7 * 16;
+    private final LinkedHashMap<Task, TextLayout> layouts;
+    private int capacity;
+    private Task task;
+    private Color calendarColor;
+    private Color background;
+    private Color timeColor;
+    private Border focusBorder;
+
+    /**
+     * Constructs a new TaskCellRenderer.
+     */
+    public TaskCellRenderer() {
+        capacity = MINIMUM_CAPACITY;
+        layouts = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Task, TextLayout> eldest) {
+                return size() > capacity;
+            }
+        };
+        setOpaque(true);
+    }
+
+    /**
+     * Attaches the renderer to the JViewport of a JTable, so that the line breaks of the rows around
+     * the viewport are computed as it is scrolled and only those are kept.
+     *
+     * @param table the JTable that uses this renderer
+     * @param viewport the JViewport that displays the JTable
+     */
+    public void attach(JTable table, JViewport viewport) {
+        viewport.addChangeListener(e -> prepare(table, viewport.getViewRect()));
+    }
+
+    private void prepare(JTable table, Rectangle view) {
+        int rowCount = table.getRowCount();
+        if (rowCount == 0) {
+            return;
+        }
+        int first = table.rowAtPoint(new Point(0, view.y));
+        int last = table.rowAtPoint(new Point(0, view.y + view.height - 1));
+        first = Math.max(0, (first == -1 ? 0 : first) - OVERSCAN);
+        last = Math.min(rowCount - 1, (last == -1 ? rowCount - 1 : last) + OVERSCAN);
+
+        capacity = Math.max(MINIMUM_CAPACITY, (last - first + 1) * table.getColumnCount());
+        Iterator<Task> eldest = layouts.keySet().iterator();
+        while (layouts.size() > capacity) {
+            eldest.next();
+            eldest.remove();
+        }
+        FontMetrics metrics = getFontMetrics(TEXT_FONT);
+        for (int row = first; row <= last; row++) {
+            for (int col = 0; col < table.getColumnCount(); col++) {
+                Object value = table.getValueAt(row, col);
+                if (value instanceof Task) {
+                    getLayout((Task) value, metrics, table.getCellRect(row, col, false).width - 2 * PADDING);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        task = value instanceof Task ? (Task) value : null;
+        calendarColor = null;
+        if (task != null && table.getModel() instanceof CalendarModel) {
+            CalendarModel model = (CalendarModel) table.getModel();
+            if (model.getCalendarCount() > 1) {
+                calendarColor = getCalendarColor(model.getCalendarIndex(row, table.convertColumnIndexToModel(column)));
+            }
+        }
+        background = isSelected ? table.getSelectionBackground() : table.getBackground();
+        timeColor = isSelected ? table.getSelectionForeground() : table.getForeground();
+        focusBorder = hasFocus ? UIManager.getBorder("Table.focusCellHighlightBorder") : null;
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(background);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (task != null) {
+            if (g instanceof Graphics2D) {
+                ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                        RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            }
+            if (calendarColor != null) {
+                g.setColor(calendarColor);
+                g.fillRect(0, 0, STRIPE_WIDTH, getHeight());
+            }
+            FontMetrics textMetrics = getFontMetrics(TEXT_FONT);
+            FontMetrics timeMetrics = getFontMetrics(TIME_FONT);
+            TextLayout layout = getLayout(task, textMetrics, getWidth() - 2 * PADDING);
+            int timeHeight = LINE_SPACING + timeMetrics.getHeight();
+            int lines = Math.min(layout.lines,
+                    Math.max(1, (getHeight() - 2 * PADDING - timeHeight) / textMetrics.getHeight()));
+            int height = lines * textMetrics.getHeight() + timeHeight;
+            int y = Math.max(PADDING, (getHeight() - height) / 2);
+
+            g.setFont(TEXT_FONT);
+            g.setColor(getPriorityColor(task.getPriority()));
+            int start = 0;
+            for (int line = 0; line < lines; line++) {
+                y += textMetrics.getHeight();
+                g.drawChars(layout.chars, start, layout.breaks[line] - start, PADDING, y - textMetrics.getDescent());
+                start = layout.breaks[line];
+                while (start < layout.chars.length && layout.chars[start] == ' ') {
+                    start++;
+                }
+            }
+
+            g.setFont(TIME_FONT);
+            g.setColor(timeColor);
+            y += LINE_SPACING + timeMetrics.getHeight();
+            g.drawString(task.getTime(), PADDING, y - timeMetrics.getDescent());
+        }
+        if (focusBorder != null) {
+            focusBorder.paintBorder(this, g, 0, 0, getWidth(), getHeight());
+        }
+    }
+
+    private TextLayout getLayout(Task task, FontMetrics metrics, int width) {
+        TextLayout layout = layouts.get(task);
+        if (layout == null || layout.width != width) {
+            layout = new TextLayout(task.getText().toCharArray(), metrics, width);
+            layouts.put(task, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Retrieves the color in which Tasks of the specified priority are painted.
+     *
+     * @param priority the priority
+     * @return the Color of the priority
+     */
+    public static Color getPriorityColor(int priority) {
+        return switch (priority) {
+            case Task.PRIORITY_LOW -> LOW_COLOR;
+            case Task.PRIORITY_HIGH -> HIGH_COLOR;
+            default -> MEDIUM_COLOR;
+        };
+    }
+
+    /**
+     * Retrieves the color that marks the Tasks of a calendar when several calendars are displayed.
+     *
+     * @param index the index of the calendar
+     * @return the Color of the calendar
+     */
+    public static Color getCalendarColor(int index) {
+        return CALENDAR_COLORS[index % CALENDAR_COLORS.length];
+    }
+
+    /* Overridden for performance reasons, as in DefaultTableCellRenderer */
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+
+    /**
+     * The line breaks of the text of a Task for a given width. Lines are broken after the last space
+     * that fits, or mid-word if a single word is wider than the cell.
+     */
+    private static class TextLayout {
+        private final char[] chars;
+        private final int width;
+        private final int[] breaks;
+        private final int lines;
+
+        private TextLayout(char[] chars, FontMetrics metrics, int width) {
+            this.chars = chars;
+            this.width = width;
+            breaks = new int[Math.max(chars.length, 1)];
+
+            int count = 0;
+            int start = 0;
+            while (start < chars.length) {
+                int end = start;
+                int lastSpace = -1;
+                while (end < chars.length && metrics.charsWidth(chars, start, end - start + 1) <= width) {
+                    if (chars[end] == ' ') {
+                        lastSpace = end;
+                    }
+                    end++;
+                }
+                if (end < chars.length && chars[end] != ' ') {
+                    if (lastSpace > start) {
+                        end = lastSpace;
+                    } else if (end == start) {
+                        end++;
+                    }
+                }
+                breaks[count++] = end;
+                start = end;
+                while (start < chars.length && chars[start] == ' ') {
+                    start++;
+                }
+            }
+            lines = count;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.calanders.calplanner.server;
+
+import com.calanders.calplanner.data.CalendarService;
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.resources.FileManager;
+import com.calanders.calplanner.data.resources.ICalendarReader;
+import com.calanders.calplanner.gui.Calendar;
+import com.calanders.calplanner.util.JSONUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * A class that serves the Tasks of a CalendarService as JSON over HTTP, so that other tools on the same
+ * host can read and write them without the Calendar window. The server only listens on the loopback
+ * address. Tasks are written as by {@link JSONUtil}, and the following requests are answered:
+ * <ul>
+ * <li>GET /tasks?from=2023-08-14&amp;to=2023-08-20&amp;priority=high - the Tasks of a range of dates,
+ * optionally of one priority, ordered by day</li>
+ * <li>POST /tasks - adds the Task, or the array of Tasks, in the body. A UUID is created if the body
+ * has none. Nothing is added if a stored Task already has one of the UUIDs</li>
+ * <li>GET, PUT, DELETE /tasks/{uuid} - retrieves, modifies, or deletes a Task. Fields that a PUT leaves
+ * out keep their values</li>
+ * <li>GET /weeks/2023-08-16 - the Tasks of every day of the week, from Monday to Sunday, that contains
+ * the date</li>
+ * <li>GET /counts?from=2023-08-01&amp;to=2023-08-31 - the number of Tasks of a range of dates by
+ * priority</li>
+ * <li>GET /status - the number of loaded Tasks, the number of journal records waiting to be written,
+ * and the time in nanoseconds that the last batch of them took to be written and flushed</li>
+ * </ul>
+ * The weeks of a range are loaded before it is read, and a Task can only be found by its UUID once its
+ * week has been loaded by such a read, just as in the Calendar window.
+ * <p>
+ * Every request is handled on a thread of its own. On Java 21 and later these are virtual threads, so
+ * thousands of requests can be handled at once, and on older versions they come from a pool of
+ * {@link #FALLBACK_THREADS} platform threads. Since the CalendarService reads the Tasks of loaded weeks
+ * without locking, reads are never blocked by the single change that is made at a time.
+ */
+public class CalendarServer {
+    /**
+     * The port that the server listens on unless another port is specified.
+     */
+    public static final int DEFAULT_PORT = 8642;
+    /**
+     * The maximum number of days of a range that is read at once.
+     */
+    public static final int MAX_RANGE_DAYS = 366;
+    /**
+     * The number of platform threads that handle requests when virtual threads are not available.
+     */
+    public static final int FALLBACK_THREADS = 256;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_BODY_LENGTH = 4 * 1024 * 1024;
+    private final CalendarService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new CalendarServer of the specified CalendarService. The server does not accept any
+     * request before it is started.
+     *
+     * @param service the CalendarService to serve
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port can not be bound
+     */
+    public CalendarServer(CalendarService service, int port) throws IOException {
+        this.service = service;
+        // Read once by the JDK when its first server is created. Without them every response waits for
+        // a delayed acknowledgement, and connections beyond the 200th are closed once idle, which the
+        // clients of thousands of concurrent requests would find closed when they reuse them
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+        System.getProperties().putIfAbsent("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/tasks", exchange -> handle(exchange, this::handleTasks));
+        server.createContext("/weeks", exchange -> handle(exchange, this::handleWeeks));
+        server.createContext("/counts", exchange -> handle(exchange, this::handleCounts));
+        server.createContext("/status", exchange -> handle(exchange, this::handleStatus));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        Calendar.LOGGER.log(Level.INFO, "Serving tasks on http://" + server.getAddress().getHostString() + ":"
+                + getPort());
+    }
+
+    /**
+     * Stops accepting requests and waits a moment for the requests that are being handled to finish.
+     * The CalendarService is not closed.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieves the port that the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Creates the ExecutorService that handles the requests. Virtual threads are looked up at runtime,
+     * so that the same classes run on Java 17 and use virtual threads on Java 21 and later.
+     *
+     * @return a virtual thread per task executor, or a pool of platform threads
+     */
+    static ExecutorService newExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            Calendar.LOGGER.log(Level.INFO, "Virtual threads are not available, handling requests on "
+                    + FALLBACK_THREADS + " threads");
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread t = new Thread(r, "CalPlanner-Server");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /* Handlers */
+
+    private void handleTasks(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring("/tasks".length());
+        if (path.isEmpty() || path.equals("/")) {
+            switch (method) {
+                case "GET" -> getTasks(exchange);
+                case "POST" -> addTasks(exchange);
+                default -> throw new RequestException(405, "Method not allowed");
+            }
+            return;
+        }
+        UUID uuid = toUUID(path.substring(1));
+        switch (method) {
+            case "GET" -> {
+                Task task = service.get(uuid);
+                if (task == null) {
+                    throw new RequestException(404, "No loaded task has the UUID " + uuid);
+                }
+                send(exchange, 200, JSONUtil.getTaskJSON(task));
+            }
+            case "PUT" -> editTask(exchange, uuid);
+            case "DELETE" -> {
+                Task task = service.get(uuid);
+                if (task == null) {
+                    throw new RequestException(404, "No loaded task has the UUID " + uuid);
+                }
+                service.deleteTask(task);
+                send(exchange, 204, null);
+            }
+            default -> throw new RequestException(405, "Method not allowed");
+        }
+    }
+
+    private void handleWeeks(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new RequestException(405, "Method not allowed");
+        }
+        String path = exchange.getRequestURI().getPath().substring("/weeks".length());
+        LocalDate monday = toDate(path.startsWith("/") ? path.substring(1) : path)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        service.loadTasks(monday, monday.plusDays(6));
+
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("{\"monday\":\"").append(monday).append("\",\"days\":[");
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = monday.plusDays(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"date\":\"").append(date).append("\",\"tasks\":");
+            JSONUtil.appendTasks(sb, service.getTasks((int) date.toEpochDay()));
+            sb.append('}');
+        }
+        send(exchange, 200, sb.append("]}").toString());
+    }
+
+    private void handleCounts(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new RequestException(405, "Method not allowed");
+        }
+        Map<String, String> query = getQuery(exchange);
+        LocalDate from = toDate(query.get("from"));
+        LocalDate to = toDate(query.get("to"));
+        loadRange(from, to);
+
+        int[] counts = service.getRangeCounts((int) from.toEpochDay(), (int) to.toEpochDay());
+        send(exchange, 200, "{\"low\":" + counts[Task.PRIORITY_LOW]
+                + ",\"medium\":" + counts[Task.PRIORITY_MEDIUM]
+                + ",\"high\":" + counts[Task.PRIORITY_HIGH] + "}");
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new RequestException(405, "Method not allowed");
+        }
+        send(exchange, 200, "{\"tasks\":" + service.size()
+                + ",\"journalQueueDepth\":" + service.getJournalQueueDepth()
+                + ",\"lastFlushLatency\":" + service.getLastFlushLatency() + "}");
+    }
+
+    private void getTasks(HttpExchange exchange) throws IOException {
+        Map<String, String> query = getQuery(exchange);
+        LocalDate from = toDate(query.get("from"));
+        LocalDate to = toDate(query.get("to"));
+        int priority = query.containsKey("priority") ? toPriority(query.get("priority")) : -1;
+        loadRange(from, to);
+
+        List<Task> found = new ArrayList<>();
+        for (int epochDay = (int) from.toEpochDay(); epochDay <= to.toEpochDay(); epochDay++) {
+            for (Task task : service.getTasks(epochDay)) {
+                if (priority == -1 || task.getPriority() == priority) {
+                    found.add(task);
+                }
+            }
+        }
+        send(exchange, 200, JSONUtil.appendTasks(new StringBuilder(found.size() * 128 + 2), found).toString());
+    }
+
+    private void addTasks(HttpExchange exchange) throws IOException {
+        Object body = readBody(exchange);
+        if (body instanceof List) {
+            List<Task> added = new ArrayList<>();
+            Set<UUID> uuids = new HashSet<>();
+            for (Object element : (List<?>) body) {
+                Task task = toTask(toObject(element), null, null);
+                if (!uuids.add(task.getUUID())) {
+                    throw new RequestException(400, "The UUID " + task.getUUID() + " is used more than once");
+                }
+                added.add(task);
+            }
+            addAll(added);
+            send(exchange, 201, JSONUtil.appendTasks(new StringBuilder(), added).toString());
+            return;
+        }
+        Task task = toTask(toObject(body), null, null);
+        addAll(List.of(task));
+        exchange.getResponseHeaders().set("Location", "/tasks/" + task.getUUID());
+        send(exchange, 201, JSONUtil.getTaskJSON(task));
+    }
+
+    private void addAll(List<Task> tasks) {
+        UUID existing = service.addAllIfAbsent(tasks);
+        if (existing != null) {
+            throw new RequestException(409, "A task with the UUID " + existing + " already exists");
+        }
+    }
+
+    private void editTask(HttpExchange exchange, UUID uuid) throws IOException {
+        Map<String, Object> object = toObject(readBody(exchange));
+        if (object.get("date") instanceof String) {
+            // A Task that is moved within its week is found without being loaded first
+            LocalDate date = toDate((String) object.get("date"));
+            LocalDate monday = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            service.loadTasks(monday, monday.plusDays(6));
+        }
+        Task previous = service.get(uuid);
+        if (previous == null) {
+            throw new RequestException(404, "No loaded task has the UUID " + uuid);
+        }
+        Task task = toTask(object, uuid, previous);
+        service.editTask(task);
+        send(exchange, 200, JSONUtil.getTaskJSON(task));
+    }
+
+    private void loadRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RequestException(400, "The range ends before it starts");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new RequestException(400, "The range is longer than " + MAX_RANGE_DAYS + " days");
+        }
+        // Whole weeks are loaded, so that reading the range again does not take the write lock
+        service.loadTasks(from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+                to.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)));
+    }
+
+    /* Requests and responses */
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        try (exchange) {
+            try {
+                handler.handle(exchange);
+            } catch (RequestException e) {
+                if (e.status == 405) {
+                    exchange.getResponseHeaders().set("Allow", exchange.getHttpContext().getPath().equals("/tasks")
+                            ? "GET, POST, PUT, DELETE" : "GET");
+                }
+                send(exchange, e.status, JSONUtil.appendString(new StringBuilder("{\"error\":"), e.getMessage())
+                        .append('}').toString());
+            } catch (RuntimeException e) {
+                Calendar.LOGGER.log(Level.SEVERE, "Could not handle " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI() + ": " + e);
+                send(exchange, 500, "{\"error\":\"Internal error\"}");
+            }
+        } catch (IOException e) {
+            // The client has gone away
+            Calendar.LOGGER.log(Level.FINE, "Could not respond: " + e.getMessage());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Object readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_LENGTH + 1);
+        }
+        if (bytes.length > MAX_BODY_LENGTH) {
+            throw new RequestException(413, "The body is longer than " + MAX_BODY_LENGTH + " bytes");
+        }
+        try {
+            return JSONUtil.parse(new String(bytes, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, String> getQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String parameter : raw.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals != -1) {
+                    query.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+
+    /* Conversions */
+
+    private static Task toTask(Map<String, Object> object, UUID uuid, Task previous) {
+        if (uuid == null) {
+            uuid = object.get("uuid") instanceof String ? toUUID((String) object.get("uuid")) : UUID.randomUUID();
+        }
+        String text = previous != null ? previous.getText() : null;
+        int epochDay = previous != null ? previous.getEpochDay() : 0;
+        int minuteOfDay = previous != null ? previous.getMinuteOfDay() : 0;
+        int priority = previous != null ? previous.getPriority() : Task.PRIORITY_MEDIUM;
+
+        if (object.containsKey("text")) {
+            text = toString(object, "text");
+            if (text.length() > ICalendarReader.MAX_TEXT_LENGTH) {
+                throw new RequestException(400, "The text is longer than " + ICalendarReader.MAX_TEXT_LENGTH
+                        + " characters");
+            }
+        } else if (previous == null) {
+            throw new RequestException(400, "The task has no text");
+        }
+        if (object.containsKey("date")) {
+            epochDay = (int) toDate(toString(object, "date")).toEpochDay();
+        } else if (previous == null) {
+            throw new RequestException(400, "The task has no date");
+        }
+        if (object.containsKey("time")) {
+            minuteOfDay = toMinuteOfDay(toString(object, "time"));
+        }
+        if (object.containsKey("priority")) {
+            priority = toPriority(toString(object, "priority"));
+        }
+        return new Task(text, epochDay, minuteOfDay, priority, uuid);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toObject(Object value) {
+        if (!(value instanceof Map)) {
+            throw new RequestException(400, "Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static String toString(Map<String, Object> object, String name) {
+        if (!(object.get(name) instanceof String)) {
+            throw new RequestException(400, "The " + name + " is not a string");
+        }
+        return (String) object.get(name);
+    }
+
+    private static UUID toUUID(String s) {
+        try {
+            return UUID.fromString(s);
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Invalid UUID: " + s);
+        }
+    }
+
+    private static LocalDate toDate(String s) {
+        if (s == null) {
+            throw new RequestException(400, "A date is missing");
+        }
+        try {
+            return LocalDate.parse(s);
+        } catch (DateTimeParseException e) {
+            throw new RequestException(400, "Invalid date: " + s);
+        }
+    }
+
+    private static int toMinuteOfDay(String s) {
+        int colon = s.indexOf(':');
+        try {
+            int hour = Integer.parseInt(s.substring(0, colon));
+            int minute = Integer.parseInt(s.substring(colon + 1));
+            if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+                return hour * 60 + minute;
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException ignored) {
+        }
+        throw new RequestException(400, "Invalid time: " + s);
+    }
+
+    private static int toPriority(String s) {
+        int priority = JSONUtil.toPriority(s);
+        if (priority == -1) {
+            throw new RequestException(400, "Invalid priority: " + s);
+        }
+        return priority;
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static class RequestException extends RuntimeException {
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Runs the CalendarServer on its own, without the Calendar window, until the process is stopped.
+     * Every pending change is written to storage when it is stopped. Nothing is served if the calendar
+     * is already open, for example in the Calendar window.
+     *
+     * @param args the port to listen on, optionally
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        CalendarService service;
+        try {
+            service = new CalendarService(new FileManager());
+        } catch (IllegalStateException e) {
+            Calendar.LOGGER.log(Level.SEVERE, "Could not open the calendar: " + e.getMessage());
+            return;
+        }
+        CalendarServer server;
+        try {
+            server = new CalendarServer(service, port);
+        } catch (IOException e) {
+            Calendar.LOGGER.log(Level.SEVERE, "Could not listen on port " + port + ": " + e.getMessage());
+            service.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            service.close();
+        }, "CalPlanner-Shutdown"));
+        server.start();
+    }
+}
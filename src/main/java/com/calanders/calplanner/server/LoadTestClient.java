@@ -0,0 +1,200 @@
+package com.calanders.calplanner.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A command line client that loads a running CalendarServer with many concurrent requests and reports
+ * the latency of its reads and writes. The requests are made over a year of weeks starting at the
+ * current one: reads retrieve weeks, counts of four weeks, and single Tasks, while writes add Tasks
+ * and modify the Tasks they added before. Every week is read once before the measurement, so that the
+ * latencies are those of loaded weeks. The kinds, dates, and times of the requests are the same for
+ * the same seed.
+ * <p>
+ * Usage: LoadTestClient [port] [concurrency] [requests] [write percentage] [seed], by default
+ * {@value CalendarServer#DEFAULT_PORT} 1000 100000 10 42. The Tasks that are added are not deleted, so
+ * this should be run against a calendar that is only used for testing.
+ */
+public class LoadTestClient {
+    private static final int WEEKS = 52;
+    private final HttpClient client;
+    private final String base;
+    private final int concurrency;
+    private final int requests;
+    private final int writePercentage;
+    private final Random random;
+    private final LocalDate firstMonday;
+    private final AtomicReferenceArray<UUID> added;
+    private final AtomicInteger addedCount;
+    private final AtomicInteger errors;
+
+    private LoadTestClient(int port, int concurrency, int requests, int writePercentage, long seed) {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        base = "http://127.0.0.1:" + port;
+        this.concurrency = concurrency;
+        this.requests = requests;
+        this.writePercentage = writePercentage;
+        random = new Random(seed);
+        firstMonday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        added = new AtomicReferenceArray<>(requests);
+        addedCount = new AtomicInteger();
+        errors = new AtomicInteger();
+    }
+
+    private void run() throws InterruptedException {
+        System.out.println("Loading " + WEEKS + " weeks");
+        for (int week = 0; week < WEEKS; week++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/weeks/" + firstMonday.plusWeeks(week)))
+                    .build();
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (Exception e) {
+                System.out.println("Could not reach the server at " + base + ": " + e);
+                return;
+            }
+        }
+
+        System.out.println("Sending " + requests + " requests, " + concurrency + " at a time, " + writePercentage
+                + "% writes");
+        long[] readLatencies = new long[requests];
+        long[] writeLatencies = new long[requests];
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            boolean write = random.nextInt(100) < writePercentage;
+            HttpRequest request = write ? nextWrite() : nextRead();
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, e) -> {
+                long latency = System.nanoTime() - sent;
+                if (write) {
+                    writeLatencies[writes.getAndIncrement()] = latency;
+                } else {
+                    readLatencies[reads.getAndIncrement()] = latency;
+                }
+                if (e != null || response.statusCode() >= 400) {
+                    if (errors.getAndIncrement() == 0) {
+                        System.out.println("First error: " + (e != null ? e : response.statusCode() + " "
+                                + response.body()));
+                    }
+                } else if (write && response.statusCode() == 201) {
+                    String body = response.body();
+                    int index = body.indexOf("\"uuid\":\"") + 8;
+                    added.set(addedCount.getAndIncrement(), UUID.fromString(body.substring(index, index + 36)));
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d requests in %.2f s (%.0f/s), %d errors%n", requests, seconds, requests / seconds,
+                errors.get());
+        report("reads", Arrays.copyOf(readLatencies, reads.get()));
+        report("writes", Arrays.copyOf(writeLatencies, writes.get()));
+    }
+
+    private HttpRequest nextRead() {
+        int kind = random.nextInt(10);
+        UUID uuid = randomAdded();
+        if (kind == 0 && uuid != null) {
+            return HttpRequest.newBuilder(URI.create(base + "/tasks/" + uuid)).build();
+        } else if (kind <= 2) {
+            LocalDate from = randomMonday();
+            LocalDate to = from.plusWeeks(4).minusDays(1);
+            if (to.isAfter(lastDay())) {
+                to = lastDay();
+            }
+            return HttpRequest.newBuilder(URI.create(base + "/counts?from=" + from + "&to=" + to)).build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + "/weeks/" + randomMonday().plusDays(random.nextInt(7))))
+                .build();
+    }
+
+    private HttpRequest nextWrite() {
+        UUID uuid = randomAdded();
+        LocalDate date = randomMonday().plusDays(random.nextInt(7));
+        int minuteOfDay = random.nextInt(24 * 4) * 15;
+        String priority = switch (random.nextInt(3)) {
+            case 0 -> "low";
+            case 1 -> "medium";
+            default -> "high";
+        };
+        String json = "{\"text\":\"Load test " + random.nextInt(1000) + "\",\"date\":\"" + date
+                + "\",\"time\":\"" + minuteOfDay / 60 / 10 + minuteOfDay / 60 % 10 + ":" + minuteOfDay % 60 / 10
+                + minuteOfDay % 10 + "\",\"priority\":\"" + priority + "\"}";
+        if (random.nextBoolean() && uuid != null) {
+            return HttpRequest.newBuilder(URI.create(base + "/tasks/" + uuid))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(json.replace(",\"date\":\"" + date + "\"", "")))
+                    .build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private UUID randomAdded() {
+        // Always drawn, so that the other requests do not depend on how quickly the Tasks were added
+        int index = random.nextInt(Integer.MAX_VALUE);
+        int count = addedCount.get();
+        // A slot may not have been filled yet by the response that claimed it
+        return count > 0 ? added.get(index % count) : null;
+    }
+
+    private LocalDate randomMonday() {
+        return firstMonday.plusWeeks(random.nextInt(WEEKS));
+    }
+
+    private LocalDate lastDay() {
+        return firstMonday.plusWeeks(WEEKS).minusDays(1);
+    }
+
+    private static void report(String name, long[] latencies) {
+        if (latencies.length == 0) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%s: %d, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", name, latencies.length,
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Runs the load test against a CalendarServer on this host.
+     *
+     * @param args the port, concurrency, number of requests, write percentage, and seed, optionally
+     * @throws InterruptedException if interrupted while waiting for the requests
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : CalendarServer.DEFAULT_PORT;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        int writePercentage = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+        new LoadTestClient(port, concurrency, requests, writePercentage, seed).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.calanders.calplanner.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * A utility class for converting between the display Strings used by Tasks and their numeric forms.
+ * Dates are displayed in the format of "DAY month-day-year", for example "SUNDAY 8-20-2023", and
+ * times in the format of "hour:minute AM/PM", for example "8:30 AM".
+ */
+public class DateUtil {
+    private static final String[] TIMES = new String[24 * 60];
+
+    /**
+     * Formats a LocalDate as a display date. For example, a possible date is "SUNDAY 8-20-2023".
+     *
+     * @param date the LocalDate to format
+     * @return the display date
+     */
+    public static String toDate(LocalDate date) {
+        return date.getDayOfWeek() + " "
+                + date.getMonthValue() + "-"
+                + date.getDayOfMonth() + "-"
+                + date.getYear();
+    }
+
+    /**
+     * Formats a day counted from the epoch (1970-01-01) as a display date.
+     *
+     * @param epochDay the day counted from the epoch
+     * @return the display date
+     */
+    public static String toDate(long epochDay) {
+        return toDate(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /**
+     * Parses a display date into a LocalDate. The leading day of the week is ignored.
+     *
+     * @param date the display date, for example "SUNDAY 8-20-2023"
+     * @return the parsed LocalDate
+     * @throws IllegalArgumentException if the date is not a valid display date
+     */
+    public static LocalDate toLocalDate(String date) {
+        try {
+            int monthStart = date.indexOf(' ') + 1;
+            int dayStart = date.indexOf('-', monthStart) + 1;
+            int yearStart = date.indexOf('-', dayStart) + 1;
+            if (monthStart == 0 || dayStart == 0 || yearStart == 0) {
+                throw new IllegalArgumentException("Invalid date " + date);
+            }
+            return LocalDate.of(
+                    Integer.parseInt(date, yearStart, date.length(), 10),
+                    Integer.parseInt(date, monthStart, dayStart - 1, 10),
+                    Integer.parseInt(date, dayStart, yearStart - 1, 10));
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid date " + date, e);
+        }
+    }
+
+    /**
+     * Parses a display date into the day counted from the epoch (1970-01-01).
+     *
+     * @param date the display date, for example "SUNDAY 8-20-2023"
+     * @return the day counted from the epoch
+     * @throws IllegalArgumentException if the date is not a valid display date
+     */
+    public static int toEpochDay(String date) {
+        return (int) toLocalDate(date).toEpochDay();
+    }
+
+    /**
+     * Formats a minute of the day as a display time. For example, 510 is formatted as "8:30 AM". Every
+     * time is only formatted once and then shared.
+     *
+     * @param minuteOfDay the minute of the day, from 0 to 1439
+     * @return the display time
+     */
+    public static String toTime(int minuteOfDay) {
+        String time = TIMES[minuteOfDay];
+        if (time == null) {
+            time = formatTime(minuteOfDay);
+            TIMES[minuteOfDay] = time;
+        }
+        return time;
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        int displayHour = hour % 12 == 0 ? 12 : hour % 12;
+        return displayHour + ":" + (minute < 10 ? "0" : "") + minute + (hour < 12 ? " AM" : " PM");
+    }
+
+    /**
+     * Parses a display time into the minute of the day. For example, "8:30 AM" is parsed as 510.
+     *
+     * @param time the display time
+     * @return the minute of the day, from 0 to 1439
+     * @throws IllegalArgumentException if the time is not a valid display time
+     */
+    public static int toMinuteOfDay(String time) {
+        try {
+            int colon = time.indexOf(':');
+            int space = time.indexOf(' ', colon);
+            if (colon == -1 || space == -1) {
+                throw new IllegalArgumentException("Invalid time " + time);
+            }
+            int hour = Integer.parseInt(time, 0, colon, 10);
+            int minute = Integer.parseInt(time, colon + 1, space, 10);
+            boolean pm = time.regionMatches(true, space + 1, "PM", 0, 2);
+            if (hour < 1 || hour > 12 || minute < 0 || minute > 59) {
+                throw new IllegalArgumentException("Invalid time " + time);
+            }
+            return ((hour % 12) + (pm ? 12 : 0)) * 60 + minute;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time " + time, e);
+        }
+    }
+}
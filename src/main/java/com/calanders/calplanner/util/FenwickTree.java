@@ -0,0 +1,90 @@
+package com.calanders.calplanner.util;
+
+/**
+ * A Fenwick tree (binary indexed tree) of int counts keyed by int, for example by epoch day. Adding to
+ * the count of a key and summing the counts of a range of keys both take O(log n) time, where n is the
+ * number of keys the tree spans. The tree starts empty and doubles the range of keys it spans whenever
+ * a key outside of it is added. Keys outside the range have a count of 0.
+ */
+public class FenwickTree {
+    private static final int INITIAL_CAPACITY = 1024;
+    private int origin;
+    private int[] tree;
+
+    /**
+     * Constructs a new, empty FenwickTree.
+     */
+    public FenwickTree() {
+        tree = new int[1];
+    }
+
+    /**
+     * Adds to the count of the specified key.
+     *
+     * @param key the key
+     * @param delta the amount to add
+     */
+    public void add(int key, int delta) {
+        ensureCapacity(key);
+        for (int i = key - origin + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sums the counts of a range of keys.
+     *
+     * @param from the first key, inclusive
+     * @param to the last key, inclusive
+     * @return the sum of the counts, which is 0 if from is greater than to
+     */
+    public int sum(int from, int to) {
+        if (from > to) {
+            return 0;
+        }
+        return prefixSum(to) - prefixSum((long) from - 1);
+    }
+
+    private int prefixSum(long key) {
+        int sum = 0;
+        for (int i = (int) Math.min(Math.max(key - origin + 1, 0), tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int key) {
+        int capacity = tree.length - 1;
+        if (capacity == 0) {
+            origin = key - INITIAL_CAPACITY / 2;
+            tree = new int[INITIAL_CAPACITY + 1];
+            return;
+        }
+        if (key >= origin && key - origin < capacity) {
+            return;
+        }
+
+        int newOrigin = origin;
+        int newCapacity = capacity;
+        while (key < newOrigin || key - newOrigin >= newCapacity) {
+            if (key < newOrigin) {
+                newOrigin -= newCapacity;
+            }
+            newCapacity *= 2;
+        }
+
+        int[] newTree = new int[newCapacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            int oldKey = origin + i - 1;
+            newTree[oldKey - newOrigin + 1] = prefixSum(oldKey) - prefixSum(oldKey - 1);
+        }
+        for (int i = 1; i <= newCapacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newCapacity) {
+                newTree[parent] += newTree[i];
+            }
+        }
+        origin = newOrigin;
+        tree = newTree;
+    }
+}
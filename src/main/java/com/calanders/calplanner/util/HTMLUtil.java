@@ -2,10 +2,12 @@ package com.calanders.calplanner.util;
 
 import com.calanders.calplanner.data.Task;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
- * A utility class for Task and Calendar operations.
+ * A utility class for Task and Calendar operations. The Calendar paints its Tasks directly, so the HTML
+ * generated here is only used to export Tasks.
  */
 public class HTMLUtil {
     private static final String LOW_COLOR_HTML = "rgb(0, 192, 0)";
@@ -37,6 +39,30 @@ public class HTMLUtil {
         return html;
     }
 
+    /**
+     * Generates the HTML code for a week of Tasks as a String type. The HTML code is a table with a
+     * column for every day, headed by its date, that holds the HTML of every Task of that day.
+     *
+     * @param dates the display dates of the days
+     * @param days the Tasks of every day, in the same order as the dates
+     * @return the HTML String
+     */
+    public static String getWeekHTML(String[] dates, List<List<Task>> days) {
+        StringBuilder html = new StringBuilder("<html><table><tr>");
+        for (String date : dates) {
+            html.append("<th>").append(date).append("</th>");
+        }
+        html.append("</tr><tr>");
+        for (List<Task> day : days) {
+            html.append("<td style=\"vertical-align: top;\">");
+            for (Task task : day) {
+                html.append(getTaskHTML(task).replace("<html>", "").replace("</html>", ""));
+            }
+            html.append("</td>");
+        }
+        return html.append("</tr></table></html>").toString();
+    }
+
     /**
      * Locates the Task UUID from the HTML String.
      *
@@ -0,0 +1,130 @@
+package com.calanders.calplanner.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from int keys to int values that stores both in primitive arrays, so that neither
+ * retrieving nor updating a value creates any objects. Keys that are not in the map have a value of 0,
+ * and a key whose value becomes 0 is removed from the map.
+ */
+public class IntIntHashMap {
+    private static final int FREE = Integer.MIN_VALUE;
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs a new, empty IntIntHashMap.
+     */
+    public IntIntHashMap() {
+        keys = new int[16];
+        values = new int[16];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Retrieves the value of the specified key.
+     *
+     * @param key the key
+     * @return the value, or 0 if the key is not in the map
+     */
+    public int get(int key) {
+        int slot = find(key);
+        return keys[slot] == FREE ? 0 : values[slot];
+    }
+
+    /**
+     * Sets the value of the specified key. Setting a value of 0 removes the key.
+     *
+     * @param key the key, which may not be {@link Integer#MIN_VALUE}
+     * @param value the value
+     * @throws IllegalArgumentException if the key is {@link Integer#MIN_VALUE}
+     */
+    public void put(int key, int value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Invalid key " + key);
+        }
+        int slot = find(key);
+        if (keys[slot] != FREE) {
+            if (value == 0) {
+                remove(slot);
+            } else {
+                values[slot] = value;
+            }
+        } else if (value != 0) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > keys.length * 3 / 4) {
+                resize();
+            }
+        }
+    }
+
+    /**
+     * Adds to the value of the specified key.
+     *
+     * @param key the key, which may not be {@link Integer#MIN_VALUE}
+     * @param delta the amount to add
+     * @return the new value
+     * @throws IllegalArgumentException if the key is {@link Integer#MIN_VALUE}
+     */
+    public int add(int key, int delta) {
+        int value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Retrieves the number of keys in the map.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void remove(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        keys[gap] = FREE;
+        size--;
+        for (int next = (gap + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                keys[next] = FREE;
+                gap = next;
+            }
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
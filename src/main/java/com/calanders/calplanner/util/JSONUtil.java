@@ -0,0 +1,312 @@
+package com.calanders.calplanner.util;
+
+import com.calanders.calplanner.data.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A utility class for writing Tasks as JSON and for reading JSON documents. A Task is written as an
+ * object with its UUID, its text, its date in the format of "year-month-day", its time in the format
+ * of "hour:minute" on a 24-hour clock, and its priority as "low", "medium", or "high", for example
+ * {"uuid":"...","text":"Dentist","date":"2023-08-20","time":"08:30","priority":"high"}.
+ * <p>
+ * JSON is read into Maps, Lists, Strings, Doubles, Booleans and nulls, which is all that is needed
+ * for the small documents that are sent to the CalendarServer.
+ */
+public class JSONUtil {
+    /**
+     * Writes a Task as a JSON object.
+     *
+     * @param task the Task to write
+     * @return the JSON String
+     */
+    public static String getTaskJSON(Task task) {
+        return appendTask(new StringBuilder(128), task).toString();
+    }
+
+    /**
+     * Writes a Task as a JSON object to the end of a StringBuilder.
+     *
+     * @param sb the StringBuilder to append to
+     * @param task the Task to write
+     * @return the StringBuilder
+     */
+    public static StringBuilder appendTask(StringBuilder sb, Task task) {
+        int minuteOfDay = task.getMinuteOfDay();
+        sb.append("{\"uuid\":\"").append(task.getUUID()).append("\",\"text\":");
+        appendString(sb, task.getText());
+        sb.append(",\"date\":\"").append(LocalDate.ofEpochDay(task.getEpochDay()))
+                .append("\",\"time\":\"")
+                .append(minuteOfDay / 600).append(minuteOfDay / 60 % 10).append(':')
+                .append(minuteOfDay % 60 / 10).append(minuteOfDay % 10)
+                .append("\",\"priority\":\"").append(getPriorityName(task.getPriority())).append("\"}");
+        return sb;
+    }
+
+    /**
+     * Writes a List of Tasks as a JSON array to the end of a StringBuilder.
+     *
+     * @param sb the StringBuilder to append to
+     * @param tasks the Tasks to write
+     * @return the StringBuilder
+     */
+    public static StringBuilder appendTasks(StringBuilder sb, List<Task> tasks) {
+        sb.append('[');
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendTask(sb, tasks.get(i));
+        }
+        return sb.append(']');
+    }
+
+    /**
+     * Writes a String as a quoted and escaped JSON string to the end of a StringBuilder.
+     *
+     * @param sb the StringBuilder to append to
+     * @param s the String to write, or null
+     * @return the StringBuilder
+     */
+    public static StringBuilder appendString(StringBuilder sb, String s) {
+        if (s == null) {
+            return sb.append("null");
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * Retrieves the JSON name of a priority.
+     *
+     * @param priority the priority
+     * @return "low", "medium", or "high"
+     */
+    public static String getPriorityName(int priority) {
+        return switch (priority) {
+            case Task.PRIORITY_LOW -> "low";
+            case Task.PRIORITY_HIGH -> "high";
+            default -> "medium";
+        };
+    }
+
+    /**
+     * Parses the JSON name of a priority.
+     *
+     * @param name "low", "medium", or "high", in any case
+     * @return the priority, or -1 if the name is not a priority
+     */
+    public static int toPriority(String name) {
+        return switch (name.toLowerCase()) {
+            case "low" -> Task.PRIORITY_LOW;
+            case "medium" -> Task.PRIORITY_MEDIUM;
+            case "high" -> Task.PRIORITY_HIGH;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Parses a JSON document. Objects become LinkedHashMaps, arrays ArrayLists, numbers Doubles, and
+     * the literals Booleans and null.
+     *
+     * @param json the JSON document
+     * @return the parsed value
+     * @throws IllegalArgumentException if the document is not valid JSON
+     */
+    public static Object parse(String json) {
+        Parser parser = new Parser(json);
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.position < json.length()) {
+            throw parser.error("Unexpected content");
+        }
+        return value;
+    }
+
+    private static class Parser {
+        private static final int MAX_DEPTH = 64;
+        private final String json;
+        private int position;
+        private int depth;
+
+        private Parser(String json) {
+            this.json = json;
+        }
+
+        private Object readValue() {
+            skipWhitespace();
+            if (position >= json.length()) {
+                throw error("Unexpected end");
+            }
+            char c = json.charAt(position);
+            return switch (c) {
+                case '{' -> readObject();
+                case '[' -> readArray();
+                case '"' -> readString();
+                case 't' -> readLiteral("true", Boolean.TRUE);
+                case 'f' -> readLiteral("false", Boolean.FALSE);
+                case 'n' -> readLiteral("null", null);
+                default -> readNumber();
+            };
+        }
+
+        private Map<String, Object> readObject() {
+            enter();
+            position++;
+            Map<String, Object> object = new LinkedHashMap<>();
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                depth--;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("Expected a name");
+                }
+                String name = readString();
+                skipWhitespace();
+                expect(':');
+                object.put(name, readValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect('}');
+                    depth--;
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> readArray() {
+            enter();
+            position++;
+            List<Object> array = new ArrayList<>();
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                depth--;
+                return array;
+            }
+            while (true) {
+                array.add(readValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect(']');
+                    depth--;
+                    return array;
+                }
+            }
+        }
+
+        private String readString() {
+            position++;
+            StringBuilder sb = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return sb.toString();
+                } else if (c == '\\') {
+                    if (position >= json.length()) {
+                        break;
+                    }
+                    char escaped = json.charAt(position++);
+                    switch (escaped) {
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'u' -> {
+                            if (position + 4 > json.length()) {
+                                throw error("Invalid escape");
+                            }
+                            try {
+                                sb.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                            } catch (NumberFormatException e) {
+                                throw error("Invalid escape");
+                            }
+                            position += 4;
+                        }
+                        default -> sb.append(escaped);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Object readLiteral(String literal, Object value) {
+            if (!json.startsWith(literal, position)) {
+                throw error("Unexpected character");
+            }
+            position += literal.length();
+            return value;
+        }
+
+        private Double readNumber() {
+            int start = position;
+            while (position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) != -1) {
+                position++;
+            }
+            try {
+                return Double.valueOf(json.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("Unexpected character");
+            }
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) {
+                throw error("Nested too deeply");
+            }
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            position++;
+        }
+
+        private char peek() {
+            return position < json.length() ? json.charAt(position) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+}
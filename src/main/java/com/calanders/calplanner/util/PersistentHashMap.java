@@ -0,0 +1,457 @@
+package com.calanders.calplanner.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * An immutable hash map implemented as a hash array mapped trie. Putting or removing a key does not
+ * modify the map but returns a new version of it, which shares every node with the previous version
+ * except for the O(log n) nodes on the path to the key. Keeping many versions therefore costs little
+ * memory, and a version can be read by any number of threads without locking.
+ * <p>
+ * Two versions of a map are compared with {@link #diff(PersistentHashMap, DiffListener)}, which skips
+ * the nodes that both versions share, so comparing a version with the next one only visits the keys
+ * that changed in between.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class PersistentHashMap<K, V> {
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private final Node root;
+    private final int size;
+
+    /**
+     * A listener of the keys that differ between two versions of a map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public interface DiffListener<K, V> {
+        /**
+         * Called for every key whose value is not the same in both versions.
+         *
+         * @param key the key
+         * @param from the value in the first version, or null if the key was added
+         * @param to the value in the second version, or null if the key was removed
+         */
+        void changed(K key, V from, V to);
+    }
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Retrieves the empty map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty PersistentHashMap
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Retrieves the value of the specified key.
+     *
+     * @param key the key
+     * @return the value, or null if the map does not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        return root == null ? null : (V) root.get(key, hash(key), 0);
+    }
+
+    /**
+     * Creates a version of this map in which the specified key has the specified value.
+     *
+     * @param key the key, which may not be null
+     * @param value the value, which may not be null
+     * @return the new version, or this map if the key already has the value
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int[] added = new int[1];
+        Node node = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = node.put(key, value, hash(key), 0, added, null);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + added[0]);
+    }
+
+    /**
+     * Creates a version of this map in which every value of the specified Collection is put under the
+     * key computed for it. The nodes created for this version are filled in place while the values
+     * are put, so putting many values does not copy every node once per value.
+     *
+     * @param values the values to put
+     * @param keyFunction the function that computes the key of a value
+     * @return the new version
+     */
+    public PersistentHashMap<K, V> putAll(Collection<? extends V> values, Function<? super V, ? extends K> keyFunction) {
+        Object owner = new Object();
+        int[] added = new int[1];
+        Node newRoot = root == null ? BitmapNode.EMPTY : root;
+        for (V value : values) {
+            K key = Objects.requireNonNull(keyFunction.apply(value));
+            newRoot = newRoot.put(key, Objects.requireNonNull(value), hash(key), 0, added, owner);
+        }
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + added[0]);
+    }
+
+    /**
+     * Creates a version of this map without the specified key.
+     *
+     * @param key the key
+     * @return the new version, or this map if it does not contain the key
+     */
+    public PersistentHashMap<K, V> remove(K key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Retrieves the number of keys in the map.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Performs an action for every key and value of the map, in no particular order.
+     *
+     * @param action the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    /**
+     * Compares this version of the map with another one and reports every key whose value is not the
+     * same object in both. The nodes that both versions share are not visited.
+     *
+     * @param other the other version
+     * @param listener the listener of the differing keys
+     */
+    @SuppressWarnings("unchecked")
+    public void diff(PersistentHashMap<K, V> other, DiffListener<K, V> listener) {
+        diff(root, other.root, 0, (DiffListener<Object, Object>) listener);
+    }
+
+    private static void diff(Node a, Node b, int shift, DiffListener<Object, Object> listener) {
+        if (a == b) {
+            return;
+        }
+        if (a instanceof BitmapNode && b instanceof BitmapNode) {
+            BitmapNode x = (BitmapNode) a;
+            BitmapNode y = (BitmapNode) b;
+            for (int bits = x.bitmap | y.bitmap; bits != 0; bits &= bits - 1) {
+                int bit = bits & -bits;
+                diffSlots(x.array, x.indexOf(bit), y.array, y.indexOf(bit), shift + BITS, listener);
+            }
+            return;
+        }
+        diffNodes(a, b, shift, listener);
+    }
+
+    private static void diffSlots(Object[] a, int i, Object[] b, int j, int shift,
+                                  DiffListener<Object, Object> listener) {
+        if (i == -1) {
+            forEachSlot(b, j, (key, value) -> listener.changed(key, null, value));
+        } else if (j == -1) {
+            forEachSlot(a, i, (key, value) -> listener.changed(key, value, null));
+        } else if (a[i] != null && b[j] != null) {
+            if (a[i].equals(b[j])) {
+                if (a[i + 1] != b[j + 1]) {
+                    listener.changed(a[i], a[i + 1], b[j + 1]);
+                }
+            } else {
+                listener.changed(a[i], a[i + 1], null);
+                listener.changed(b[j], null, b[j + 1]);
+            }
+        } else {
+            diff(toNode(a, i, shift), toNode(b, j, shift), shift, listener);
+        }
+    }
+
+    private static void diffNodes(Node a, Node b, int shift, DiffListener<Object, Object> listener) {
+        if (a != null) {
+            a.forEach((key, value) -> {
+                Object other = b == null ? null : b.get(key, hash(key), shift);
+                if (other != value) {
+                    listener.changed(key, value, other);
+                }
+            });
+        }
+        if (b != null) {
+            b.forEach((key, value) -> {
+                if (a == null || a.get(key, hash(key), shift) == null) {
+                    listener.changed(key, null, value);
+                }
+            });
+        }
+    }
+
+    private static void forEachSlot(Object[] array, int i, BiConsumer<Object, Object> action) {
+        if (array[i] != null) {
+            action.accept(array[i], array[i + 1]);
+        } else {
+            ((Node) array[i + 1]).forEach(action);
+        }
+    }
+
+    private static Node toNode(Object[] array, int i, int shift) {
+        if (array[i] == null) {
+            return (Node) array[i + 1];
+        }
+        return BitmapNode.EMPTY.put(array[i], array[i + 1], hash(array[i]), shift, new int[1], null);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private interface Node {
+        Object get(Object key, int hash, int shift);
+
+        Node put(Object key, Object value, int hash, int shift, int[] added, Object owner);
+
+        Node remove(Object key, int hash, int shift);
+
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * A node that holds up to 32 slots selected by 5 bits of the hash. The array holds two elements
+     * per slot, which are either a key and its value, or null and a child Node.
+     */
+    private static final class BitmapNode implements Node {
+        private static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+        private final Object owner;
+        private int bitmap;
+        private Object[] array;
+
+        private BitmapNode(Object owner, int bitmap, Object[] array) {
+            this.owner = owner;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        public Object get(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if (array[i] == null) {
+                return ((Node) array[i + 1]).get(key, hash, shift + BITS);
+            }
+            return key.equals(array[i]) ? array[i + 1] : null;
+        }
+
+        @Override
+        public Node put(Object key, Object value, int hash, int shift, int[] added, Object owner) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                added[0]++;
+                if (isEditable(owner)) {
+                    bitmap |= bit;
+                    array = newArray;
+                    return this;
+                }
+                return new BitmapNode(owner, bitmap | bit, newArray);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).put(key, value, hash, shift + BITS, added, owner);
+                return child == v ? this : set(i + 1, child, owner);
+            }
+            if (key.equals(k)) {
+                return value == v ? this : set(i + 1, value, owner);
+            }
+            added[0]++;
+            Node child = createNode(k, v, hash(k), key, value, hash, shift + BITS, owner);
+            return set(i, null, i + 1, child, owner);
+        }
+
+        @Override
+        public Node remove(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).remove(key, hash, shift + BITS);
+                if (child == v) {
+                    return this;
+                }
+                if (child != null) {
+                    return set(i + 1, child, null);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new BitmapNode(null, bitmap ^ bit, newArray);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        private int indexOf(int bit) {
+            return (bitmap & bit) == 0 ? -1 : 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private boolean isEditable(Object owner) {
+            return owner != null && owner == this.owner;
+        }
+
+        private BitmapNode set(int i, Object value, Object owner) {
+            if (isEditable(owner)) {
+                array[i] = value;
+                return this;
+            }
+            Object[] newArray = array.clone();
+            newArray[i] = value;
+            return new BitmapNode(owner, bitmap, newArray);
+        }
+
+        private BitmapNode set(int i, Object a, int j, Object b, Object owner) {
+            if (isEditable(owner)) {
+                array[i] = a;
+                array[j] = b;
+                return this;
+            }
+            Object[] newArray = array.clone();
+            newArray[i] = a;
+            newArray[j] = b;
+            return new BitmapNode(owner, bitmap, newArray);
+        }
+
+        private static Node createNode(Object key1, Object value1, int hash1, Object key2, Object value2,
+                                       int hash2, int shift, Object owner) {
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            int[] added = new int[1];
+            return EMPTY.put(key1, value1, hash1, shift, added, owner)
+                    .put(key2, value2, hash2, shift, added, owner);
+        }
+    }
+
+    /**
+     * A node that holds the keys whose hashes are equal, as pairs of a key and its value.
+     */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Object[] array;
+
+        private CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        public Object get(Object key, int hash, int shift) {
+            int i = indexOf(key);
+            return i == -1 ? null : array[i + 1];
+        }
+
+        @Override
+        public Node put(Object key, Object value, int hash, int shift, int[] added, Object owner) {
+            if (hash != this.hash) {
+                Node node = new BitmapNode(null, 1 << ((this.hash >>> shift) & MASK), new Object[]{null, this});
+                return node.put(key, value, hash, shift, added, owner);
+            }
+            int i = indexOf(key);
+            if (i != -1) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            added[0]++;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public Node remove(Object key, int hash, int shift) {
+            int i = indexOf(key);
+            if (i == -1) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.calanders.calplanner.util;
+
+/**
+ * A bounded pool of Strings that lets equal texts share one String. The pool has a fixed number of
+ * slots, and every text can only be kept in the slot of its hash code, where it replaces whatever text
+ * was kept there before. The pool therefore never holds more than its size, however many distinct texts
+ * pass through it, while texts that recur often stay in it.
+ * <p>
+ * The pool may be used by any number of threads without locking. A thread may miss a text that another
+ * thread has just pooled, which only costs the sharing of that text, since Strings are immutable.
+ */
+public class TextPool {
+    private final String[] slots;
+
+    /**
+     * Constructs a new, empty TextPool.
+     *
+     * @param size the number of slots, which must be a power of two
+     * @throws IllegalArgumentException if the size is not a power of two
+     */
+    public TextPool(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Size " + size + " is not a power of two");
+        }
+        slots = new String[size];
+    }
+
+    /**
+     * Retrieves the pooled String that is equal to the specified text, or pools the text if there is
+     * none.
+     *
+     * @param text the text
+     * @return the pooled String equal to the text, or the text itself
+     */
+    public String get(String text) {
+        if (text == null) {
+            return null;
+        }
+        int hash = text.hashCode();
+        int slot = (hash ^ hash >>> 16) & (slots.length - 1);
+        String pooled = slots[slot];
+        if (text.equals(pooled)) {
+            return pooled;
+        }
+        slots[slot] = text;
+        return text;
+    }
+
+    /**
+     * Retrieves the number of slots, which is the most texts the pool holds at once.
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,133 @@
+package com.calanders.calplanner.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class that describes a week of the Calendar, from Monday to Sunday, by the epoch days and display
+ * dates of its days. A Week is immutable and is computed only once: the Weeks are retrieved by their
+ * offset from the current week with {@link #of(int)}, which keeps the most recently used Weeks in a
+ * small cache. The cache is cleared when the current date changes at midnight, since every offset then
+ * refers to a different week.
+ */
+public class Week {
+    private static final int CACHE_SIZE = 16;
+    private static final Map<Integer, Week> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Week> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static LocalDate today;
+    private static long nextMidnight;
+    private final int[] epochDays;
+    private final String[] dates;
+    private final HashMap<String, Integer> columns;
+
+    private Week(LocalDate monday) {
+        epochDays = new int[7];
+        dates = new String[7];
+        columns = new HashMap<>();
+        for (int col = 0; col < 7; col++) {
+            LocalDate date = monday.plusDays(col);
+            epochDays[col] = (int) date.toEpochDay();
+            dates[col] = DateUtil.toDate(date);
+            columns.put(dates[col], col);
+        }
+    }
+
+    /**
+     * Retrieves the Week at an offset (in weeks) from the current week. For example, of(1) is the next
+     * week and of(-1) is the last week.
+     *
+     * @param offset the offset in weeks from the current week
+     * @return the Week
+     */
+    public static synchronized Week of(int offset) {
+        if (today == null || System.currentTimeMillis() >= nextMidnight) {
+            today = LocalDate.now();
+            nextMidnight = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            CACHE.clear();
+        }
+        Week week = CACHE.get(offset);
+        if (week == null) {
+            week = new Week(today.plusWeeks(offset).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            CACHE.put(offset, week);
+        }
+        return week;
+    }
+
+    /**
+     * Retrieves the epoch day of a day of the Week.
+     *
+     * @param col the column of the day, from 0 (Monday) to 6 (Sunday)
+     * @return the day counted from the epoch (1970-01-01)
+     */
+    public int getEpochDay(int col) {
+        return epochDays[col];
+    }
+
+    /**
+     * Retrieves the epoch day of the first day (Monday) of the Week.
+     *
+     * @return the day counted from the epoch (1970-01-01)
+     */
+    public int getFirstEpochDay() {
+        return epochDays[0];
+    }
+
+    /**
+     * Retrieves the epoch day of the last day (Sunday) of the Week.
+     *
+     * @return the day counted from the epoch (1970-01-01)
+     */
+    public int getLastEpochDay() {
+        return epochDays[6];
+    }
+
+    /**
+     * Retrieves the display date of a day of the Week, for example "SUNDAY 8-20-2023".
+     *
+     * @param col the column of the day, from 0 (Monday) to 6 (Sunday)
+     * @return the display date
+     */
+    public String getDate(int col) {
+        return dates[col];
+    }
+
+    /**
+     * Retrieves the display dates of the days of the Week.
+     *
+     * @return a copy of the array of display dates
+     */
+    public String[] getDates() {
+        return dates.clone();
+    }
+
+    /**
+     * Retrieves the column of a day of the Week by its display date.
+     *
+     * @param date the display date
+     * @return the column of the day, or -1 if the date is not in the Week
+     */
+    public int getColumn(String date) {
+        Integer col = columns.get(date);
+        return col == null ? -1 : col;
+    }
+
+    /**
+     * Retrieves the column of a day of the Week by its epoch day.
+     *
+     * @param epochDay the day counted from the epoch (1970-01-01)
+     * @return the column of the day, or -1 if the day is not in the Week
+     */
+    public int getColumn(int epochDay) {
+        int col = epochDay - epochDays[0];
+        return col >= 0 && col < 7 ? col : -1;
+    }
+}
@@ -0,0 +1,124 @@
+package com.calanders.calplanner.workload;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskChange;
+import com.calanders.calplanner.data.resources.TaskCodec;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A class that holds a recorded sequence of changes to the Tasks of a calendar together with the span
+ * of days they are made on, so that the same sequence can be replayed against any calendar. A log
+ * starts with a header of a magic number, a version, the first and last day of the span, and the
+ * number of changes, followed by one record per change: its {@link TaskChange.Type} as a byte and its
+ * Task in the {@link TaskCodec} format.
+ */
+public class ChangeLog {
+    /**
+     * The magic number that starts a change log, "CPLC".
+     */
+    public static final int MAGIC = 0x43504C43;
+    /**
+     * The version of the change log format.
+     */
+    public static final int VERSION = 1;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final List<TaskChange> changes;
+
+    private ChangeLog(LocalDate from, LocalDate to, List<TaskChange> changes) {
+        this.from = from;
+        this.to = to;
+        this.changes = changes;
+    }
+
+    /**
+     * Records a sequence of changes to a file. The changes are written as the Iterator is advanced.
+     *
+     * @param file the File to write to
+     * @param from the first day of the span of the changes
+     * @param to the last day of the span of the changes
+     * @param count the number of changes
+     * @param changes the Iterator of at least that many TaskChanges
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(File file, LocalDate from, LocalDate to, int count, Iterator<TaskChange> changes)
+            throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(from.toEpochDay());
+            out.writeLong(to.toEpochDay());
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                TaskChange change = changes.next();
+                out.writeByte(change.getType().ordinal());
+                TaskCodec.writeTask(out, change.getTask());
+            }
+        }
+    }
+
+    /**
+     * Reads a recorded sequence of changes from a file.
+     *
+     * @param file the File to read from
+     * @return the ChangeLog
+     * @throws IOException if an I/O error occurs or the file is not a change log
+     */
+    public static ChangeLog read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                throw new IOException(file.getName() + " is not a change log");
+            }
+            LocalDate from = LocalDate.ofEpochDay(in.readLong());
+            LocalDate to = LocalDate.ofEpochDay(in.readLong());
+            int count = in.readInt();
+            TaskChange.Type[] types = TaskChange.Type.values();
+            List<TaskChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int type = in.readUnsignedByte();
+                if (type >= types.length) {
+                    throw new IOException("Invalid change type " + type);
+                }
+                Task task = TaskCodec.readTask(in);
+                changes.add(switch (types[type]) {
+                    case ADD -> TaskChange.add(task);
+                    case EDIT -> TaskChange.edit(task);
+                    case DELETE -> TaskChange.delete(task);
+                });
+            }
+            return new ChangeLog(from, to, changes);
+        }
+    }
+
+    /**
+     * Retrieves the first day of the span of the changes.
+     *
+     * @return the first day
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Retrieves the last day of the span of the changes.
+     *
+     * @return the last day
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Retrieves the changes in the order they were recorded.
+     *
+     * @return the List of TaskChanges
+     */
+    public List<TaskChange> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,378 @@
+package com.calanders.calplanner.workload;
+
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskChange;
+import com.calanders.calplanner.data.resources.ICalendarReader;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * A class that generates synthetic Tasks and changes to them for benchmarks and load tests. A
+ * TaskGenerator is immutable and configured by deriving new ones from it, and the same seed and
+ * configuration always generate the same Tasks, so a workload can be reproduced anywhere from a few
+ * numbers instead of being shipped as a file.
+ * <p>
+ * The Tasks are spread over a span of days according to a {@link Distribution}. The number of Tasks of
+ * each day is decided before any Task is generated, so the Tasks are generated one at a time in order of
+ * their dates and times, and any number of them can be written to a store without holding them all.
+ */
+public class TaskGenerator {
+    /**
+     * The exponent of the Zipf distribution, for which the n-th busiest day holds 1/n of the Tasks of
+     * the busiest day.
+     */
+    public static final double ZIPF_EXPONENT = 1.0;
+    /**
+     * The probability that a burst starts on any day of the bursty distribution.
+     */
+    public static final double BURST_PROBABILITY = 0.05;
+    /**
+     * The maximum length of a burst in days.
+     */
+    public static final int MAX_BURST_DAYS = 5;
+    /**
+     * How many more Tasks a day of a burst holds than any other day.
+     */
+    public static final double BURST_WEIGHT = 20;
+    /**
+     * The first day of the default span. It is fixed rather than the current date, so that a
+     * TaskGenerator generates the same Tasks on whatever day it runs.
+     */
+    public static final LocalDate DEFAULT_FROM = LocalDate.of(2025, 1, 1);
+    /**
+     * The number of days of the default span.
+     */
+    public static final int DEFAULT_DAYS = 365;
+    private static final String[] WORDS = {
+            "Review", "the", "quarterly", "report", "with", "team", "call", "dentist", "pick", "up",
+            "groceries", "and", "prepare", "slides", "for", "Monday", "standup", "deploy", "release",
+            "candidate", "to", "staging", "book", "flights", "conference"
+    };
+    private final long seed;
+    private final LocalDate from;
+    private final int days;
+    private final Distribution distribution;
+    private final int[] priorityMix;
+    private final int minTextLength;
+    private final int maxTextLength;
+
+    /**
+     * The ways in which the Tasks are spread over the days.
+     */
+    public enum Distribution {
+        /**
+         * Every day holds about as many Tasks as any other.
+         */
+        UNIFORM,
+        /**
+         * The days are ranked in a random order, and the number of Tasks of a day falls with its rank
+         * following Zipf's law, so a few days hold far more Tasks than the others.
+         */
+        ZIPF,
+        /**
+         * Most days hold a few Tasks, and runs of up to {@value #MAX_BURST_DAYS} days, such as
+         * conferences or releases, hold many more.
+         */
+        BURSTY
+    }
+
+    /**
+     * Constructs a new TaskGenerator with the specified seed that spreads Tasks evenly over the
+     * {@value #DEFAULT_DAYS} days starting at {@link #DEFAULT_FROM}, with as many Tasks of every priority
+     * and texts of 10 to 40 characters.
+     *
+     * @param seed the seed of the random numbers
+     */
+    public TaskGenerator(long seed) {
+        this(seed, DEFAULT_FROM, DEFAULT_DAYS, Distribution.UNIFORM, new int[]{1, 1, 1}, 10, 40);
+    }
+
+    private TaskGenerator(long seed, LocalDate from, int days, Distribution distribution, int[] priorityMix,
+                          int minTextLength, int maxTextLength) {
+        this.seed = seed;
+        this.from = from;
+        this.days = days;
+        this.distribution = distribution;
+        this.priorityMix = priorityMix;
+        this.minTextLength = minTextLength;
+        this.maxTextLength = maxTextLength;
+    }
+
+    /**
+     * Creates a TaskGenerator like this one with another seed.
+     *
+     * @param seed the seed of the random numbers
+     * @return the new TaskGenerator
+     */
+    public TaskGenerator withSeed(long seed) {
+        return new TaskGenerator(seed, from, days, distribution, priorityMix, minTextLength, maxTextLength);
+    }
+
+    /**
+     * Creates a TaskGenerator like this one that spreads the Tasks over the specified days.
+     *
+     * @param from the first day
+     * @param days the number of days
+     * @return the new TaskGenerator
+     * @throws IllegalArgumentException if the number of days is not positive
+     */
+    public TaskGenerator withSpan(LocalDate from, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("The span must hold at least one day");
+        }
+        return new TaskGenerator(seed, from, days, distribution, priorityMix, minTextLength, maxTextLength);
+    }
+
+    /**
+     * Creates a TaskGenerator like this one that spreads the Tasks over the days as specified.
+     *
+     * @param distribution the Distribution
+     * @return the new TaskGenerator
+     */
+    public TaskGenerator withDistribution(Distribution distribution) {
+        return new TaskGenerator(seed, from, days, distribution, priorityMix, minTextLength, maxTextLength);
+    }
+
+    /**
+     * Creates a TaskGenerator like this one with the specified proportions of priorities. For example,
+     * 6, 3, and 1 generate 60% low, 30% medium, and 10% high priority Tasks.
+     *
+     * @param low the proportion of low priority Tasks
+     * @param medium the proportion of medium priority Tasks
+     * @param high the proportion of high priority Tasks
+     * @return the new TaskGenerator
+     * @throws IllegalArgumentException if a proportion is negative or all of them are zero
+     */
+    public TaskGenerator withPriorityMix(int low, int medium, int high) {
+        if (low < 0 || medium < 0 || high < 0 || low + medium + high == 0) {
+            throw new IllegalArgumentException("Invalid priority mix " + low + ":" + medium + ":" + high);
+        }
+        return new TaskGenerator(seed, from, days, distribution, new int[]{low, medium, high}, minTextLength,
+                maxTextLength);
+    }
+
+    /**
+     * Creates a TaskGenerator like this one whose Task texts are between the specified numbers of
+     * characters long.
+     *
+     * @param min the minimum length of a text
+     * @param max the maximum length of a text
+     * @return the new TaskGenerator
+     * @throws IllegalArgumentException if the minimum is not positive or greater than the maximum, or
+     * the maximum is longer than an imported text can be
+     */
+    public TaskGenerator withTextLength(int min, int max) {
+        if (min < 1 || max < min || max > ICalendarReader.MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Invalid text length " + min + " to " + max);
+        }
+        return new TaskGenerator(seed, from, days, distribution, priorityMix, min, max);
+    }
+
+    /**
+     * Retrieves the first day that Tasks are placed on.
+     *
+     * @return the first day
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Retrieves the last day that Tasks are placed on.
+     *
+     * @return the last day
+     */
+    public LocalDate getTo() {
+        return from.plusDays(days - 1);
+    }
+
+    /**
+     * Generates a number of Tasks in order of their dates and times. The Tasks are generated as the
+     * Iterator is advanced.
+     *
+     * @param count the number of Tasks
+     * @return the Iterator of the Tasks
+     */
+    public Iterator<Task> generate(int count) {
+        Random random = new Random(seed);
+        double[] cumulative = getCumulativeWeights(random);
+        int[] counts = getCounts(random, cumulative, count);
+        int firstEpochDay = (int) from.toEpochDay();
+
+        return new Iterator<>() {
+            private int day = -1;
+            private int[] minutes = new int[0];
+            private int next;
+            private int generated;
+
+            @Override
+            public boolean hasNext() {
+                return generated < count;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (next == minutes.length) {
+                    day++;
+                    minutes = new int[counts[day]];
+                    for (int i = 0; i < minutes.length; i++) {
+                        minutes[i] = nextMinuteOfDay(random);
+                    }
+                    Arrays.sort(minutes);
+                    next = 0;
+                }
+                generated++;
+                return nextTask(random, firstEpochDay + day, minutes[next++]);
+            }
+        };
+    }
+
+    /**
+     * Generates a sequence of changes as a user of a calendar would make them: Tasks are added on days
+     * chosen by the Distribution, and the Tasks that were added before are modified and deleted. A
+     * change that would modify or delete a Task while none exists adds one instead, so the sequence
+     * starts with an addition.
+     *
+     * @param count the number of changes
+     * @param adds the proportion of additions
+     * @param edits the proportion of modifications
+     * @param deletes the proportion of deletions
+     * @return the Iterator of the TaskChanges
+     * @throws IllegalArgumentException if a proportion is negative or all of them are zero
+     */
+    public Iterator<TaskChange> generateChanges(int count, int adds, int edits, int deletes) {
+        if (adds < 0 || edits < 0 || deletes < 0 || adds + edits + deletes == 0) {
+            throw new IllegalArgumentException("Invalid change mix " + adds + ":" + edits + ":" + deletes);
+        }
+        Random random = new Random(seed);
+        double[] cumulative = getCumulativeWeights(random);
+        int firstEpochDay = (int) from.toEpochDay();
+        ArrayList<Task> existing = new ArrayList<>();
+
+        return new Iterator<>() {
+            private int generated;
+
+            @Override
+            public boolean hasNext() {
+                return generated < count;
+            }
+
+            @Override
+            public TaskChange next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                generated++;
+                int kind = random.nextInt(adds + edits + deletes);
+                if (kind < adds || existing.isEmpty()) {
+                    Task task = nextTask(random, firstEpochDay + nextDay(random, cumulative),
+                            nextMinuteOfDay(random));
+                    existing.add(task);
+                    return TaskChange.add(task);
+                }
+                int index = random.nextInt(existing.size());
+                Task task = existing.get(index);
+                if (kind < adds + edits) {
+                    Task edited = nextTask(random, task.getEpochDay(), nextMinuteOfDay(random));
+                    edited.setUUID(task.getUUID());
+                    existing.set(index, edited);
+                    return TaskChange.edit(edited);
+                }
+                existing.set(index, existing.get(existing.size() - 1));
+                existing.remove(existing.size() - 1);
+                return TaskChange.delete(task);
+            }
+        };
+    }
+
+    private double[] getCumulativeWeights(Random random) {
+        double[] weights = new double[days];
+        switch (distribution) {
+            case UNIFORM -> Arrays.fill(weights, 1);
+            case ZIPF -> {
+                int[] ranks = new int[days];
+                for (int i = 0; i < days; i++) {
+                    ranks[i] = i;
+                }
+                for (int i = days - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int rank = ranks[i];
+                    ranks[i] = ranks[j];
+                    ranks[j] = rank;
+                }
+                for (int i = 0; i < days; i++) {
+                    weights[i] = 1 / Math.pow(ranks[i] + 1, ZIPF_EXPONENT);
+                }
+            }
+            case BURSTY -> {
+                int day = 0;
+                while (day < days) {
+                    if (random.nextDouble() < BURST_PROBABILITY) {
+                        int end = Math.min(days, day + 1 + random.nextInt(MAX_BURST_DAYS));
+                        for (; day < end; day++) {
+                            weights[day] = BURST_WEIGHT;
+                        }
+                    } else {
+                        weights[day++] = 1;
+                    }
+                }
+            }
+        }
+        for (int i = 1; i < days; i++) {
+            weights[i] += weights[i - 1];
+        }
+        return weights;
+    }
+
+    private int[] getCounts(Random random, double[] cumulative, int count) {
+        // Every day gets the whole part of its share, and the rest of the Tasks are drawn by weight
+        double total = cumulative[days - 1];
+        int[] counts = new int[days];
+        int assigned = 0;
+        double previous = 0;
+        for (int i = 0; i < days; i++) {
+            counts[i] = (int) (count * ((cumulative[i] - previous) / total));
+            assigned += counts[i];
+            previous = cumulative[i];
+        }
+        for (; assigned < count; assigned++) {
+            counts[nextDay(random, cumulative)]++;
+        }
+        return counts;
+    }
+
+    private int nextDay(Random random, double[] cumulative) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[days - 1]);
+        return Math.min(index < 0 ? -index - 1 : index, days - 1);
+    }
+
+    private int nextMinuteOfDay(Random random) {
+        return random.nextInt(24 * 4) * 15;
+    }
+
+    private Task nextTask(Random random, int epochDay, int minuteOfDay) {
+        int length = minTextLength + random.nextInt(maxTextLength - minTextLength + 1);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        text.setLength(length);
+        String trimmed = text.toString().strip();
+
+        int priority = random.nextInt(priorityMix[0] + priorityMix[1] + priorityMix[2]);
+        priority = priority < priorityMix[0] ? Task.PRIORITY_LOW
+                : priority < priorityMix[0] + priorityMix[1] ? Task.PRIORITY_MEDIUM : Task.PRIORITY_HIGH;
+        // Random version 4 UUIDs, drawn from the seeded random numbers
+        long most = random.nextLong() & ~0xF000L | 0x4000L;
+        long least = random.nextLong() & ~(3L << 62) | 1L << 63;
+        return new Task(trimmed.isEmpty() ? WORDS[0] : trimmed, epochDay, minuteOfDay, priority,
+                new UUID(most, least));
+    }
+}
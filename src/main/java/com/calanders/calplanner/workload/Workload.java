@@ -0,0 +1,207 @@
+package com.calanders.calplanner.workload;
+
+import com.calanders.calplanner.data.CalendarService;
+import com.calanders.calplanner.data.Task;
+import com.calanders.calplanner.data.TaskChange;
+import com.calanders.calplanner.data.resources.FileManager;
+import com.calanders.calplanner.data.resources.TaskStoreWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A command line tool that creates reproducible workloads for load tests of CalPlanner:
+ * <ul>
+ *     <li>generate &lt;directory&gt; &lt;ser|dat|segments&gt; &lt;count&gt; [options] writes a calendar
+ *     of generated Tasks to a directory in the specified store format.</li>
+ *     <li>record &lt;file&gt; &lt;count&gt; [--mix add:edit:delete] [options] records a sequence of
+ *     generated changes to a change log, by default 6:3:1.</li>
+ *     <li>replay &lt;file&gt; &lt;directory&gt; applies the changes of a change log one at a time to the
+ *     calendar in a directory, through its CalendarService as the Calendar does, and reports the
+ *     throughput and latency of the changes together with the journal records still queued.</li>
+ * </ul>
+ * The options of the generated Tasks are --seed n, --from yyyy-mm-dd, --days n,
+ * --distribution uniform|zipf|bursty, --priorities low:medium:high, and --text min:max, by default
+ * 42, 2025-01-01, 365, uniform, 1:1:1, and 10:40, so the same options always give the same Tasks.
+ * A replay changes the calendar, so it should be run against a copy or a generated calendar.
+ */
+public class Workload {
+    private static final String USAGE = """
+            Usage:
+              generate <directory> <ser|dat|segments> <count> [options]
+              record <file> <count> [--mix add:edit:delete] [options]
+              replay <file> <directory>
+            Options: --seed n, --from yyyy-mm-dd, --days n, --distribution uniform|zipf|bursty,
+              --priorities low:medium:high, --text min:max""";
+
+    /**
+     * Writes a calendar of generated Tasks in the specified store format.
+     *
+     * @param directory the directory of the calendar
+     * @param format the Format of the store
+     * @param generator the TaskGenerator of the Tasks
+     * @param count the number of Tasks
+     * @throws IOException if the store can not be written
+     */
+    public static void generate(File directory, TaskStoreWriter.Format format, TaskGenerator generator, int count)
+            throws IOException {
+        Iterator<Task> tasks = generator.generate(count);
+        try (TaskStoreWriter writer = new TaskStoreWriter(directory, format, count)) {
+            while (tasks.hasNext()) {
+                writer.write(tasks.next());
+            }
+        }
+    }
+
+    /**
+     * Applies the changes of a change log one at a time to a calendar, and measures how long each change
+     * takes. The span of the changes is loaded first unless it has been loaded already.
+     *
+     * @param changeLog the ChangeLog to replay
+     * @param service the CalendarService of the calendar
+     * @return the latency of each change in nanoseconds, in the order of the changes
+     */
+    public static long[] replay(ChangeLog changeLog, CalendarService service) {
+        service.loadTasks(changeLog.getFrom(), changeLog.getTo());
+        List<TaskChange> changes = changeLog.getChanges();
+        long[] latencies = new long[changes.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            TaskChange change = changes.get(i);
+            long start = System.nanoTime();
+            switch (change.getType()) {
+                case ADD -> service.addTask(change.getTask());
+                case EDIT -> service.editTask(change.getTask());
+                case DELETE -> service.deleteTask(change.getTask());
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static TaskGenerator getGenerator(String[] args, int first) {
+        TaskGenerator generator = new TaskGenerator(42);
+        LocalDate from = TaskGenerator.DEFAULT_FROM;
+        int days = TaskGenerator.DEFAULT_DAYS;
+        for (int i = first; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seed" -> generator = generator.withSeed(Long.parseLong(value));
+                case "--from" -> from = LocalDate.parse(value);
+                case "--days" -> days = Integer.parseInt(value);
+                case "--distribution" -> generator = generator.withDistribution(
+                        TaskGenerator.Distribution.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "--priorities" -> {
+                    int[] mix = parseMix(value);
+                    generator = generator.withPriorityMix(mix[0], mix[1], mix[2]);
+                }
+                case "--text" -> {
+                    String[] lengths = value.split(":");
+                    generator = generator.withTextLength(Integer.parseInt(lengths[0]), Integer.parseInt(lengths[1]));
+                }
+                case "--mix" -> {
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        return generator.withSpan(from, days);
+    }
+
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected three proportions instead of " + value);
+        }
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+
+    private static String getOption(String[] args, int first, String name, String defaultValue) {
+        for (int i = first; i + 1 < args.length; i += 2) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Runs a command of the tool.
+     *
+     * @param args the command and its arguments
+     * @throws IOException if a file can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "";
+        try {
+            switch (command) {
+                case "generate" -> {
+                    if (args.length < 4) {
+                        throw new IllegalArgumentException("Missing arguments");
+                    }
+                    File directory = new File(args[1]);
+                    TaskStoreWriter.Format format = TaskStoreWriter.Format.valueOf(args[2].toUpperCase(Locale.ROOT));
+                    int count = Integer.parseInt(args[3]);
+                    TaskGenerator generator = getGenerator(args, 4);
+                    long start = System.nanoTime();
+                    generate(directory, format, generator, count);
+                    System.out.printf("Wrote %d Tasks from %s to %s to %s in %.2f s%n", count, generator.getFrom(),
+                            generator.getTo(), new File(directory, format.getFileName()),
+                            (System.nanoTime() - start) / 1e9);
+                }
+                case "record" -> {
+                    if (args.length < 3) {
+                        throw new IllegalArgumentException("Missing arguments");
+                    }
+                    int count = Integer.parseInt(args[2]);
+                    int[] mix = parseMix(getOption(args, 3, "--mix", "6:3:1"));
+                    TaskGenerator generator = getGenerator(args, 3);
+                    ChangeLog.write(new File(args[1]), generator.getFrom(), generator.getTo(), count,
+                            generator.generateChanges(count, mix[0], mix[1], mix[2]));
+                    System.out.println("Recorded " + count + " changes to " + args[1]);
+                }
+                case "replay" -> {
+                    if (args.length < 3) {
+                        throw new IllegalArgumentException("Missing arguments");
+                    }
+                    ChangeLog changeLog = ChangeLog.read(new File(args[1]));
+                    CalendarService service = new CalendarService(new FileManager(new File(args[2])));
+                    long loadStart = System.nanoTime();
+                    service.loadTasks(changeLog.getFrom(), changeLog.getTo());
+                    System.out.printf("Loaded %d Tasks from %s to %s in %.2f s%n", service.size(), changeLog.getFrom(),
+                            changeLog.getTo(), (System.nanoTime() - loadStart) / 1e9);
+                    long start = System.nanoTime();
+                    long[] latencies = replay(changeLog, service);
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%d journal records queued, last flush %.3f ms%n",
+                            service.getJournalQueueDepth(), service.getLastFlushLatency() / 1e6);
+                    long closeStart = System.nanoTime();
+                    service.close();
+                    double closeSeconds = (System.nanoTime() - closeStart) / 1e9;
+
+                    Arrays.sort(latencies);
+                    System.out.printf("%d changes in %.2f s (%.0f/s)%n", latencies.length, seconds,
+                            latencies.length / seconds);
+                    if (latencies.length > 0) {
+                        System.out.printf("p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", percentile(latencies, 50) / 1e6,
+                                percentile(latencies, 99) / 1e6, latencies[latencies.length - 1] / 1e6);
+                    }
+                    System.out.printf("%d Tasks written to storage in %.2f s%n", service.size(), closeSeconds);
+                }
+                default -> System.out.println(USAGE);
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+        }
+    }
+}
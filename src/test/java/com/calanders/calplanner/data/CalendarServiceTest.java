@@ -0,0 +1,87 @@
+package com.calanders.calplanner.data;
+
+import com.calanders.calplanner.data.resources.FileManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of CalendarService against a calendar in a temporary directory, which is closed and opened
+ * again to check what was stored.
+ */
+class CalendarServiceTest {
+    private static final int DAY = (int) LocalDate.of(2024, 3, 14).toEpochDay();
+    @TempDir
+    File directory;
+
+    @Test
+    void addAllIfAbsentRejectsUUIDStoredInUnloadedMonth() {
+        Task stored = new Task("Stored", DAY, 540, Task.PRIORITY_LOW, UUID.randomUUID());
+        CalendarService service = open();
+        service.addTask(stored);
+        service.close();
+
+        service = open();
+        Task duplicate = new Task("Duplicate", DAY, 600, Task.PRIORITY_HIGH, stored.getUUID());
+        assertEquals(stored.getUUID(), service.addAllIfAbsent(List.of(duplicate)));
+        assertEquals("Stored", service.get(stored.getUUID()).getText());
+        assertEquals(1, service.getCount(DAY));
+        assertEquals(1, service.count(DAY, DAY, TaskColumns.ANY_PRIORITY));
+        service.close();
+
+        service = open();
+        service.loadTasks(LocalDate.ofEpochDay(DAY), LocalDate.ofEpochDay(DAY));
+        assertEquals("Stored", service.get(stored.getUUID()).getText());
+        service.close();
+    }
+
+    @Test
+    void addAllIfAbsentAddsNewTasks() {
+        CalendarService service = open();
+        Task first = new Task("First", DAY, 540, Task.PRIORITY_LOW, UUID.randomUUID());
+        Task second = new Task("Second", DAY + 40, 600, Task.PRIORITY_MEDIUM, UUID.randomUUID());
+        assertNull(service.addAllIfAbsent(List.of(first, second)));
+        service.close();
+
+        service = open();
+        service.loadTasks(LocalDate.ofEpochDay(DAY), LocalDate.ofEpochDay(DAY + 40));
+        assertEquals("First", service.get(first.getUUID()).getText());
+        assertEquals("Second", service.get(second.getUUID()).getText());
+        assertEquals(2, service.size());
+        service.close();
+    }
+
+    @Test
+    void changesToUnloadedMonthsAreNotIndexedTwice() {
+        Task stored = new Task("Stored", DAY, 540, Task.PRIORITY_LOW, UUID.randomUUID());
+        CalendarService service = open();
+        service.addTask(stored);
+        service.close();
+
+        service = open();
+        Task edited = new Task("Edited", DAY, 600, Task.PRIORITY_HIGH, stored.getUUID());
+        service.applyAll(List.of(TaskChange.add(edited)));
+        service.loadTasks(LocalDate.ofEpochDay(DAY), LocalDate.ofEpochDay(DAY));
+        assertEquals(1, service.getCount(DAY));
+        assertEquals(1, service.count(DAY, DAY, TaskColumns.ANY_PRIORITY));
+        assertEquals("Edited", service.get(stored.getUUID()).getText());
+
+        service.undo();
+        assertEquals(1, service.count(DAY, DAY, TaskColumns.ANY_PRIORITY));
+        assertEquals("Stored", service.get(stored.getUUID()).getText());
+        service.redo();
+        assertEquals(1, service.count(DAY, DAY, TaskColumns.ANY_PRIORITY));
+        assertEquals("Edited", service.get(stored.getUUID()).getText());
+        service.close();
+    }
+
+    private CalendarService open() {
+        return new CalendarService(new FileManager(directory));
+    }
+}
@@ -0,0 +1,69 @@
+package com.calanders.calplanner.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of CalendarSet against a primary calendar and a team calendar in a temporary directory.
+ */
+class CalendarSetTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 14);
+    private static final int DAY = (int) DATE.toEpochDay();
+    @TempDir
+    File directory;
+
+    @Test
+    void undoAndRedoFollowTheOrderOfChangesAcrossCalendars() {
+        assertTrue(new File(directory, CalendarSet.CALENDARS_DIRECTORY + File.separator + "Team").mkdirs());
+        CalendarSet calendars = CalendarSet.open(directory, DATE, DATE);
+        assertEquals(2, calendars.getCalendarCount());
+        assertEquals("Team", calendars.getName(1));
+        CalendarService primary = calendars.getPrimary();
+        CalendarService team = calendars.getService(1);
+
+        Task first = new Task("First", DAY, 540, Task.PRIORITY_LOW, UUID.randomUUID());
+        Task second = new Task("Second", DAY, 600, Task.PRIORITY_MEDIUM, UUID.randomUUID());
+        Task third = new Task("Third", DAY, 660, Task.PRIORITY_HIGH, UUID.randomUUID());
+        primary.addTask(first);
+        team.addTask(second);
+        primary.addTask(third);
+        assertEquals(3, calendars.getCount(DAY));
+        assertSame(team, calendars.getService(calendars.get(second.getUUID())));
+
+        calendars.undo();
+        assertNull(calendars.get(third.getUUID()));
+        assertNotNull(calendars.get(second.getUUID()));
+        calendars.undo();
+        assertNull(team.get(second.getUUID()));
+        assertNotNull(primary.get(first.getUUID()));
+        assertEquals(1, calendars.getCount(DAY));
+
+        calendars.redo();
+        assertNotNull(team.get(second.getUUID()));
+        assertNull(calendars.get(third.getUUID()));
+        calendars.redo();
+        assertNotNull(primary.get(third.getUUID()));
+        assertEquals(3, calendars.getCount(DAY));
+
+        calendars.undo();
+        calendars.undo();
+        Task fourth = new Task("Fourth", DAY, 720, Task.PRIORITY_LOW, UUID.randomUUID());
+        primary.addTask(fourth);
+        calendars.redo();
+        assertNull(calendars.get(second.getUUID()));
+        calendars.undo();
+        calendars.undo();
+        assertEquals(0, calendars.getCount(DAY));
+        calendars.close();
+
+        calendars = CalendarSet.open(directory, DATE, DATE);
+        assertEquals(0, calendars.getCount(DAY));
+        calendars.close();
+    }
+}
@@ -0,0 +1,108 @@
+package com.calanders.calplanner.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests of TaskColumns, backed by Java arrays and by direct ByteBuffers, against a map of the
+ * Tasks that were added to them.
+ */
+class TaskColumnsTest {
+    private static final int FIRST_DAY = 19723;
+    private static final int DAYS = 400;
+
+    @Test
+    void heapColumnsMatchAddedTasks() {
+        assertMatchUnderRandomChanges(new TaskColumns(false));
+    }
+
+    @Test
+    void directColumnsMatchAddedTasks() {
+        assertMatchUnderRandomChanges(new TaskColumns(true));
+    }
+
+    @Test
+    void addingAUUIDAgainReplacesItsRow() {
+        TaskColumns columns = new TaskColumns();
+        UUID uuid = UUID.randomUUID();
+        columns.add(new Task("First", FIRST_DAY, 540, Task.PRIORITY_LOW, uuid));
+        columns.add(new Task("Second", FIRST_DAY + 1, 600, Task.PRIORITY_HIGH, uuid));
+        assertEquals(1, columns.size());
+        assertEquals("Second", columns.getTask(columns.indexOf(uuid)).getText());
+        assertEquals(0, columns.count(FIRST_DAY, FIRST_DAY, TaskColumns.ANY_PRIORITY));
+    }
+
+    private static void assertMatchUnderRandomChanges(TaskColumns columns) {
+        Random random = new Random(42);
+        Map<UUID, Task> expected = new HashMap<>();
+        List<UUID> uuids = new ArrayList<>();
+        // Enough Tasks for several chunks, and enough replaced text for the text table to be compacted
+        for (int i = 0; i < 30000; i++) {
+            int change = random.nextInt(5);
+            if (change == 0 && !uuids.isEmpty()) {
+                UUID uuid = uuids.remove(random.nextInt(uuids.size()));
+                expected.remove(uuid);
+                assertTrue(columns.remove(uuid));
+                assertFalse(columns.remove(uuid));
+            } else if (change == 1 && !uuids.isEmpty()) {
+                Task task = randomTask(random, uuids.get(random.nextInt(uuids.size())));
+                expected.put(task.getUUID(), task);
+                columns.replace(task);
+            } else {
+                Task task = randomTask(random, UUID.randomUUID());
+                expected.put(task.getUUID(), task);
+                uuids.add(task.getUUID());
+                columns.add(task);
+            }
+            if (i % 1000 == 0) {
+                assertColumns(expected, columns, random);
+            }
+        }
+        assertColumns(expected, columns, random);
+    }
+
+    private static void assertColumns(Map<UUID, Task> expected, TaskColumns columns, Random random) {
+        assertEquals(expected.size(), columns.size());
+        for (Task task : expected.values()) {
+            assertTask(task, columns.getTask(columns.indexOf(task.getUUID())));
+        }
+        assertEquals(-1, columns.indexOf(UUID.randomUUID()));
+
+        for (int i = 0; i < 10; i++) {
+            int from = FIRST_DAY + random.nextInt(DAYS);
+            int to = from + random.nextInt(120);
+            int priority = random.nextInt(4) - 1;
+            List<UUID> matching = new ArrayList<>();
+            for (Task task : expected.values()) {
+                if (task.getEpochDay() >= from && task.getEpochDay() <= to
+                        && (priority == TaskColumns.ANY_PRIORITY || task.getPriority() == priority)) {
+                    matching.add(task.getUUID());
+                }
+            }
+            assertEquals(matching.size(), columns.count(from, to, priority));
+            int[] rows = columns.select(from, to, priority);
+            Set<UUID> selected = new HashSet<>();
+            for (int j = 0; j < rows.length; j++) {
+                assertTrue(j == 0 || rows[j - 1] < rows[j], "Rows are in ascending order");
+                selected.add(columns.getTask(rows[j]).getUUID());
+            }
+            assertEquals(new HashSet<>(matching), selected);
+        }
+    }
+
+    private static void assertTask(Task expected, Task actual) {
+        assertEquals(expected.getUUID(), actual.getUUID());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getEpochDay(), actual.getEpochDay());
+        assertEquals(expected.getMinuteOfDay(), actual.getMinuteOfDay());
+        assertEquals(expected.getPriority(), actual.getPriority());
+    }
+
+    private static Task randomTask(Random random, UUID uuid) {
+        String text = "Task " + Integer.toString(random.nextInt(1 << 30), 36).repeat(1 + random.nextInt(8));
+        return new Task(text, FIRST_DAY + random.nextInt(DAYS), random.nextInt(1440), random.nextInt(3), uuid);
+    }
+}
@@ -0,0 +1,99 @@
+package com.calanders.calplanner.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests of the counts of TaskIndex against counts computed from every indexed Task.
+ */
+class TaskIndexTest {
+    private static final int FIRST_DAY = 19723;
+    private static final int DAYS = 63;
+
+    @Test
+    void countsMatchIndexedTasksUnderRandomChanges() {
+        Random random = new Random(42);
+        TaskIndex index = new TaskIndex();
+        Map<UUID, Task> expected = new LinkedHashMap<>();
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int change = random.nextInt(4);
+            if (change == 0 && !uuids.isEmpty()) {
+                UUID uuid = uuids.remove(random.nextInt(uuids.size()));
+                assertTrue(index.remove(expected.remove(uuid)));
+            } else if (change == 1 && !uuids.isEmpty()) {
+                UUID uuid = uuids.get(random.nextInt(uuids.size()));
+                Task task = randomTask(random, uuid);
+                index.replace(expected.get(uuid), task);
+                expected.put(uuid, task);
+            } else {
+                Task task = randomTask(random, UUID.randomUUID());
+                index.add(task);
+                expected.put(task.getUUID(), task);
+                uuids.add(task.getUUID());
+            }
+            if (i % 100 == 0) {
+                assertCounts(expected.values(), index);
+            }
+        }
+        assertCounts(expected.values(), index);
+    }
+
+    @Test
+    void addingAnIndexedUUIDReplacesTheTask() {
+        TaskIndex index = new TaskIndex();
+        UUID uuid = UUID.randomUUID();
+        index.add(new Task("First", FIRST_DAY, 540, Task.PRIORITY_LOW, uuid));
+        index.add(new Task("Second", FIRST_DAY + 1, 540, Task.PRIORITY_HIGH, uuid));
+        assertEquals(1, index.size());
+        assertEquals(0, index.getCount(FIRST_DAY));
+        assertEquals("Second", index.get(uuid).getText());
+        assertArrayEquals(new int[]{0, 0, 1}, index.getRangeCounts(FIRST_DAY, FIRST_DAY + 1));
+    }
+
+    private static void assertCounts(Collection<Task> tasks, TaskIndex index) {
+        int[][] counts = new int[DAYS][3];
+        for (Task task : tasks) {
+            counts[task.getEpochDay() - FIRST_DAY][task.getPriority()]++;
+        }
+        assertEquals(tasks.size(), index.size());
+        for (int day = 0; day < DAYS; day++) {
+            int epochDay = FIRST_DAY + day;
+            int[] dayCounts = counts[day];
+            assertEquals(dayCounts[0] + dayCounts[1] + dayCounts[2], index.getCount(epochDay));
+            assertEquals(dayCounts[0] + dayCounts[1] + dayCounts[2], index.getTasks(epochDay).size());
+            for (int priority = 0; priority < 3; priority++) {
+                assertEquals(dayCounts[priority], index.getCount(epochDay, priority));
+            }
+
+            int monday = TaskIndex.getMonday(epochDay);
+            int max = 0;
+            for (int d = monday; d < monday + 7; d++) {
+                if (d >= FIRST_DAY && d < FIRST_DAY + DAYS) {
+                    int[] c = counts[d - FIRST_DAY];
+                    max = Math.max(max, c[0] + c[1] + c[2]);
+                }
+            }
+            assertEquals(max, index.getMaxCount(epochDay), "Maximum of the week of " + epochDay);
+        }
+        for (int from = 0; from < DAYS; from += 5) {
+            int to = Math.min(DAYS - 1, from + 17);
+            int[] expected = new int[3];
+            for (int day = from; day <= to; day++) {
+                for (int priority = 0; priority < 3; priority++) {
+                    expected[priority] += counts[day][priority];
+                }
+            }
+            assertArrayEquals(expected, index.getRangeCounts(FIRST_DAY + from, FIRST_DAY + to));
+        }
+    }
+
+    private static Task randomTask(Random random, UUID uuid) {
+        // Most Tasks fall on a few days, so that the busiest day of a week changes often
+        int day = random.nextInt(4) == 0 ? random.nextInt(DAYS) : random.nextInt(9) * 7;
+        return new Task("Task", FIRST_DAY + day, random.nextInt(1440), random.nextInt(3), uuid);
+    }
+}
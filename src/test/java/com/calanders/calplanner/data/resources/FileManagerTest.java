@@ -0,0 +1,159 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of FileManager against a calendar in a temporary directory, which is closed and opened again
+ * to check what was stored.
+ */
+class FileManagerTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void calendarCanOnlyBeOpenedOnce() {
+        FileManager fileManager = new FileManager(directory);
+        assertThrows(IllegalStateException.class, () -> new FileManager(directory));
+        fileManager.close();
+
+        FileManager reopened = new FileManager(directory);
+        reopened.close();
+    }
+
+    @Test
+    void journalIsReplayed() {
+        Task dentist = new Task("Dentist", 19723, 540, Task.PRIORITY_HIGH, UUID.randomUUID());
+        Task rent = new Task("Rent", 19754, 0, Task.PRIORITY_MEDIUM, UUID.randomUUID());
+        Task gym = new Task("Gym", 19724, 1080, Task.PRIORITY_LOW, UUID.randomUUID());
+        FileManager fileManager = new FileManager(directory);
+        fileManager.addTask(dentist);
+        fileManager.addTask(rent);
+        fileManager.addTask(gym);
+        Task moved = new Task("Dentist, moved", 19790, 600, Task.PRIORITY_MEDIUM, dentist.getUUID());
+        fileManager.updateTask(moved);
+        fileManager.deleteTask(gym);
+        fileManager.close();
+        assertTrue(new File(directory, "tasks.journal").exists());
+
+        FileManager reopened = new FileManager(directory);
+        assertTasks(List.of(moved, rent), reopened.getTasks());
+        reopened.close();
+    }
+
+    @Test
+    void compactionFoldsTheJournalIntoTheSegments() {
+        Random random = new Random(42);
+        Map<UUID, Task> expected = new HashMap<>();
+        FileManager fileManager = new FileManager(directory);
+        for (int i = 0; i < FileManager.COMPACTION_THRESHOLD; i++) {
+            Task task = new Task("Task " + i, 19723 + random.nextInt(365), random.nextInt(1440), random.nextInt(3),
+                    UUID.randomUUID());
+            fileManager.addTask(task);
+            expected.put(task.getUUID(), task);
+        }
+        fileManager.close();
+
+        fileManager = new FileManager(directory);
+        assertTrue(fileManager.isCompactionDue());
+        fileManager.compactTasks();
+        Task late = new Task("Added while compacting", 19723, 0, Task.PRIORITY_LOW, UUID.randomUUID());
+        fileManager.addTask(late);
+        expected.put(late.getUUID(), late);
+        fileManager.close();
+        assertFalse(new File(directory, "tasks.journal.old").exists());
+
+        fileManager = new FileManager(directory);
+        assertFalse(fileManager.isCompactionDue());
+        assertTasks(new ArrayList<>(expected.values()), fileManager.getTasks());
+        fileManager.close();
+        assertTrue(new File(directory, "tasks" + File.separator + "2024-01.dat").exists());
+    }
+
+    @Test
+    void incompleteRecordIsTruncated() throws IOException {
+        Task dentist = new Task("Dentist", 19723, 540, Task.PRIORITY_HIGH, UUID.randomUUID());
+        Task rent = new Task("Rent", 19754, 0, Task.PRIORITY_MEDIUM, UUID.randomUUID());
+        FileManager fileManager = new FileManager(directory);
+        fileManager.addTask(dentist);
+        fileManager.addTask(rent);
+        fileManager.close();
+        File journal = new File(directory, "tasks.journal");
+        long length = journal.length();
+        Files.write(journal.toPath(), new byte[]{0, 0, 0, 64, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        fileManager = new FileManager(directory);
+        assertTasks(List.of(dentist, rent), fileManager.getTasks());
+        assertEquals(length, journal.length());
+        fileManager.close();
+    }
+
+    @Test
+    void rotatedJournalIsReplayedAndCompacted() {
+        Task dentist = new Task("Dentist", 19723, 540, Task.PRIORITY_HIGH, UUID.randomUUID());
+        Task rent = new Task("Rent", 19754, 0, Task.PRIORITY_MEDIUM, UUID.randomUUID());
+        FileManager fileManager = new FileManager(directory);
+        fileManager.addTask(dentist);
+        fileManager.close();
+        // As if the application stopped after rotating the journal but before writing the segments
+        assertTrue(new File(directory, "tasks.journal").renameTo(new File(directory, "tasks.journal.old")));
+
+        fileManager = new FileManager(directory);
+        fileManager.addTask(rent);
+        fileManager.compactTasks();
+        fileManager.close();
+        assertFalse(new File(directory, "tasks.journal.old").exists());
+
+        fileManager = new FileManager(directory);
+        assertTasks(List.of(dentist, rent), fileManager.getTasks());
+        fileManager.close();
+    }
+
+    @Test
+    void legacyTasksAreImported() throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Task("Dentist", 19723, 540, Task.PRIORITY_HIGH, UUID.randomUUID()));
+        tasks.add(new Task("Rent", 19754, 0, Task.PRIORITY_MEDIUM, UUID.randomUUID()));
+        tasks.add(new Task("New year", 20089, 1439, Task.PRIORITY_LOW, UUID.randomUUID()));
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(new File(directory, "tasks.ser")))) {
+            oos.writeObject(tasks);
+        }
+
+        FileManager fileManager = new FileManager(directory);
+        assertTasks(tasks, fileManager.getTasks());
+        fileManager.close();
+        assertTrue(new File(directory, "tasks" + File.separator + "index.dat").exists());
+
+        FileManager reopened = new FileManager(directory);
+        assertTasks(tasks, reopened.getTasks());
+        reopened.close();
+    }
+
+    static void assertTasks(List<Task> expected, List<Task> actual) {
+        Map<UUID, Task> tasks = new HashMap<>();
+        for (Task task : actual) {
+            tasks.put(task.getUUID(), task);
+        }
+        assertEquals(expected.size(), tasks.size());
+        for (Task task : expected) {
+            assertNotNull(tasks.get(task.getUUID()), "Missing " + task.getText());
+            TaskCodecTest.assertTask(task, tasks.get(task.getUUID()));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of SegmentStore in a temporary directory.
+ */
+class SegmentStoreTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void invalidSegmentIsSetAsideBeforeItsMonthIsWritten() throws IOException {
+        YearMonth month = YearMonth.of(2024, 3);
+        SegmentStore store = new SegmentStore(directory);
+        assertTrue(store.writeSegment(month, List.of(createTask(month))));
+        assertTrue(store.writeIndex());
+        File segment = new File(directory, "2024-03.dat");
+        byte[] invalid = {1, 2, 3};
+        Files.write(segment.toPath(), invalid);
+
+        assertTrue(store.readSegment(month).isEmpty());
+        assertEquals(0, store.getCount(month));
+        File corrupt = new File(directory, "2024-03.dat.corrupt");
+        assertArrayEquals(invalid, Files.readAllBytes(corrupt.toPath()));
+
+        assertTrue(store.writeSegment(month, List.of(createTask(month))));
+        assertTrue(store.writeIndex());
+        assertArrayEquals(invalid, Files.readAllBytes(corrupt.toPath()));
+        assertEquals(1, new SegmentStore(directory).readSegment(month).size());
+    }
+
+    @Test
+    void rebuiltIndexFindsEveryYear() throws IOException {
+        List<YearMonth> months = List.of(YearMonth.of(-1, 12), YearMonth.of(0, 1), YearMonth.of(999, 6),
+                YearMonth.of(2024, 2), YearMonth.of(9999, 12), YearMonth.of(10000, 1));
+        SegmentStore store = new SegmentStore(directory);
+        for (YearMonth month : months) {
+            assertTrue(store.writeSegment(month, List.of(createTask(month))));
+        }
+        assertTrue(store.writeIndex());
+        Files.write(new File(directory, "index.dat").toPath(), new byte[]{0});
+
+        SegmentStore rebuilt = new SegmentStore(directory);
+        assertEquals(new TreeSet<>(months), rebuilt.getMonths());
+        for (YearMonth month : months) {
+            assertEquals(1, rebuilt.readSegment(month).size());
+        }
+    }
+
+    private static Task createTask(YearMonth month) {
+        return new Task("Task", (int) month.atDay(1).toEpochDay(), 540, Task.PRIORITY_LOW, UUID.randomUUID());
+    }
+}
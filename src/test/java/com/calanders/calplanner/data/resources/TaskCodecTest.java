@@ -0,0 +1,82 @@
+package com.calanders.calplanner.data.resources;
+
+import com.calanders.calplanner.data.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the TaskCodec format.
+ */
+class TaskCodecTest {
+    @Test
+    void tasksSurviveARoundTrip() throws IOException {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task("", 0, 0, Task.PRIORITY_LOW, new UUID(0, 0)));
+        tasks.add(new Task("Last minute", -719528, 1439, Task.PRIORITY_HIGH, new UUID(-1, -1)));
+        tasks.add(new Task("Ünïcödé ✓ 日本語 📅", 2932896, 720, Task.PRIORITY_MEDIUM, UUID.randomUUID()));
+        tasks.add(new Task("x".repeat(0xFFFF), 19723, 1, Task.PRIORITY_LOW, UUID.randomUUID()));
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new Task("Task " + random.nextInt(), 19723 + random.nextInt(3650), random.nextInt(1440),
+                    random.nextInt(3), UUID.randomUUID()));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskCodec.writeTasks(new DataOutputStream(bytes), tasks);
+        List<Task> read = TaskCodec.readTasks(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(tasks.size(), read.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertTask(tasks.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void decodedTextsAreShared() throws IOException {
+        Task task = new Task("Standup", 19723, 540, Task.PRIORITY_LOW, UUID.randomUUID());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskCodec.writeTasks(new DataOutputStream(bytes), List.of(task, task));
+        List<Task> read = TaskCodec.readTasks(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertSame(read.get(0).getText(), read.get(1).getText());
+    }
+
+    @Test
+    void invalidDataIsRejected() throws IOException {
+        assertThrows(IOException.class, () -> read(new byte[]{1, 2, 3, 4, 0, 1, 0, 0, 0, 0}));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TaskCodec.MAGIC);
+        out.writeShort(TaskCodec.VERSION + 1);
+        out.writeInt(0);
+        assertThrows(IOException.class, () -> read(bytes.toByteArray()));
+
+        bytes.reset();
+        TaskCodec.writeTasks(out, List.of(new Task("Task", 19723, 540, Task.PRIORITY_LOW, UUID.randomUUID())));
+        byte[] truncated = new byte[bytes.size() - 1];
+        System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+        assertThrows(EOFException.class, () -> read(truncated));
+
+        Task tooLong = new Task("x".repeat(0x10000), 19723, 540, Task.PRIORITY_LOW, UUID.randomUUID());
+        assertThrows(IOException.class, () -> TaskCodec.writeTask(new DataOutputStream(new ByteArrayOutputStream()),
+                tooLong));
+    }
+
+    private static List<Task> read(byte[] bytes) throws IOException {
+        return TaskCodec.readTasks(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    static void assertTask(Task expected, Task actual) {
+        assertEquals(expected.getUUID(), actual.getUUID());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getEpochDay(), actual.getEpochDay());
+        assertEquals(expected.getMinuteOfDay(), actual.getMinuteOfDay());
+        assertEquals(expected.getPriority(), actual.getPriority());
+    }
+}
@@ -0,0 +1,62 @@
+package com.calanders.calplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests of FenwickTree against a naive sum over the counts of every key.
+ */
+class FenwickTreeTest {
+    @Test
+    void matchesNaiveSumsWhileGrowing() {
+        Random random = new Random(42);
+        FenwickTree tree = new FenwickTree();
+        Map<Integer, Integer> counts = new HashMap<>();
+        int spread = 16;
+        for (int i = 0; i < 5000; i++) {
+            // Keys spread out over time, so the tree grows both below and above its range
+            if (i % 500 == 499) {
+                spread *= 4;
+            }
+            int key = 20000 + random.nextInt(2 * spread) - spread;
+            int delta = random.nextInt(7) - 2;
+            tree.add(key, delta);
+            counts.merge(key, delta, Integer::sum);
+
+            int from = 20000 + random.nextInt(4 * spread) - 2 * spread;
+            int to = from + random.nextInt(2 * spread);
+            assertEquals(naiveSum(counts, from, to), tree.sum(from, to), "Sum from " + from + " to " + to);
+        }
+        for (int key : counts.keySet()) {
+            assertEquals((int) counts.get(key), tree.sum(key, key), "Count of " + key);
+        }
+    }
+
+    @Test
+    void sumsOutsideTheRangeAreZero() {
+        FenwickTree tree = new FenwickTree();
+        assertEquals(0, tree.sum(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        tree.add(100, 3);
+        tree.add(-100, 2);
+        assertEquals(5, tree.sum(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, tree.sum(101, Integer.MAX_VALUE));
+        assertEquals(0, tree.sum(Integer.MIN_VALUE, -101));
+        assertEquals(0, tree.sum(100, 99));
+        assertEquals(2, tree.sum(-100, 99));
+    }
+
+    private static int naiveSum(Map<Integer, Integer> counts, int from, int to) {
+        int sum = 0;
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            if (entry.getKey() >= from && entry.getKey() <= to) {
+                sum += entry.getValue();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,56 @@
+package com.calanders.calplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests of IntIntHashMap against a HashMap that is changed in the same way.
+ */
+class IntIntHashMapTest {
+    @Test
+    void matchesHashMapUnderRandomChanges() {
+        Random random = new Random(42);
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            // Few keys and small deltas, so that values often return to 0 and their keys are removed
+            int key = random.nextInt(3000) - 1500;
+            if (random.nextInt(4) == 0) {
+                int value = random.nextInt(3) - 1;
+                map.put(key, value);
+                put(expected, key, value);
+            } else {
+                int delta = random.nextInt(3) - 1;
+                int value = expected.getOrDefault(key, 0) + delta;
+                assertEquals(value, map.add(key, delta));
+                put(expected, key, value);
+            }
+            int probe = random.nextInt(3000) - 1500;
+            assertEquals((int) expected.getOrDefault(probe, 0), map.get(probe));
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -1500; key < 1500; key++) {
+            assertEquals((int) expected.getOrDefault(key, 0), map.get(key));
+        }
+    }
+
+    @Test
+    void minimumKeyIsRejected() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(Integer.MIN_VALUE, 1));
+        assertEquals(0, map.get(Integer.MIN_VALUE));
+    }
+
+    private static void put(Map<Integer, Integer> map, int key, int value) {
+        if (value == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.calanders.calplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests of PersistentHashMap against a HashMap that is changed in the same way. The keys have
+ * few distinct hash codes, so that the tries are deep and many keys collide completely.
+ */
+class PersistentHashMapTest {
+    private static final int KEYS = 2000;
+    private static final int CHANGES = 20000;
+
+    @Test
+    void matchesHashMapUnderRandomChanges() {
+        Random random = new Random(42);
+        PersistentHashMap<Key, String> map = PersistentHashMap.empty();
+        HashMap<Key, String> expected = new HashMap<>();
+        for (int i = 0; i < CHANGES; i++) {
+            Key key = randomKey(random);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                String value = "v" + i;
+                map = map.put(key, value);
+                expected.put(key, value);
+            }
+            Key probe = randomKey(random);
+            assertEquals(expected.get(probe), map.get(probe));
+            assertEquals(expected.size(), map.size());
+        }
+        assertContents(expected, map);
+    }
+
+    @Test
+    void earlierVersionsAreNotChanged() {
+        Random random = new Random(7);
+        PersistentHashMap<Key, String> map = PersistentHashMap.empty();
+        HashMap<Key, String> expected = new HashMap<>();
+        List<PersistentHashMap<Key, String>> versions = new ArrayList<>();
+        List<Map<Key, String>> expectedVersions = new ArrayList<>();
+        for (int i = 0; i < CHANGES; i++) {
+            Key key = randomKey(random);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else if (random.nextInt(10) == 0) {
+                List<String> values = new ArrayList<>();
+                for (int j = 0; j < 50; j++) {
+                    String value = randomKey(random).id + ":" + i;
+                    values.add(value);
+                    expected.put(toKey(value), value);
+                }
+                map = map.putAll(values, PersistentHashMapTest::toKey);
+            } else {
+                String value = key.id + ":" + i;
+                map = map.put(key, value);
+                expected.put(key, value);
+            }
+            if (i % 1000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertContents(expectedVersions.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    void diffReportsEveryKeyWhoseValueDiffers() {
+        Random random = new Random(11);
+        PersistentHashMap<Key, String> from = PersistentHashMap.empty();
+        for (int i = 0; i < KEYS; i++) {
+            from = from.put(new Key(i), "v" + i);
+        }
+        PersistentHashMap<Key, String> to = from;
+        for (int i = 0; i < 300; i++) {
+            Key key = randomKey(random);
+            to = random.nextBoolean() ? to.remove(key) : to.put(key, "w" + i);
+        }
+
+        Map<Key, String[]> expected = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            Key key = new Key(i);
+            String previous = from.get(key);
+            String value = to.get(key);
+            if (previous != value) {
+                expected.put(key, new String[]{previous, value});
+            }
+        }
+        Map<Key, String[]> reported = new HashMap<>();
+        from.diff(to, (key, previous, value) -> assertNull(reported.put(key, new String[]{previous, value})));
+        assertEquals(expected.keySet(), reported.keySet());
+        for (Map.Entry<Key, String[]> entry : expected.entrySet()) {
+            assertSame(entry.getValue()[0], reported.get(entry.getKey())[0]);
+            assertSame(entry.getValue()[1], reported.get(entry.getKey())[1]);
+        }
+    }
+
+    @Test
+    void unchangedVersionIsReturnedAsIs() {
+        String value = "v";
+        PersistentHashMap<Key, String> map = PersistentHashMap.<Key, String>empty().put(new Key(1), value);
+        assertSame(map, map.put(new Key(1), value));
+        assertSame(map, map.remove(new Key(2)));
+        assertEquals(0, map.remove(new Key(1)).size());
+    }
+
+    private static void assertContents(Map<Key, String> expected, PersistentHashMap<Key, String> map) {
+        assertEquals(expected.size(), map.size());
+        Map<Key, String> actual = new HashMap<>();
+        map.forEach((key, value) -> assertNull(actual.put(key, value)));
+        assertEquals(expected, actual);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(expected.get(new Key(i)), map.get(new Key(i)));
+        }
+    }
+
+    private static Key randomKey(Random random) {
+        return new Key(random.nextInt(KEYS));
+    }
+
+    private static Key toKey(String value) {
+        return new Key(Integer.parseInt(value.substring(0, value.indexOf(':'))));
+    }
+
+    /**
+     * A key whose hash code is shared by every key with the same remainder of 97, and whose low bits
+     * are shared by even more keys.
+     */
+    private static class Key {
+        private final int id;
+
+        private Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (id % 97) << 20;
+        }
+
+        @Override
+        public String toString() {
+            return "Key " + id;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.calanders.calplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of TextPool.
+ */
+class TextPoolTest {
+    @Test
+    void equalTextsShareOneString() {
+        TextPool pool = new TextPool(16);
+        String first = pool.get(new String("Standup"));
+        assertSame(first, pool.get(new String("Standup")));
+        assertEquals("Review", pool.get("Review"));
+        assertNull(pool.get(null));
+    }
+
+    @Test
+    void pooledTextIsReplacedByTextOfSameSlot() {
+        TextPool pool = new TextPool(1);
+        String first = pool.get(new String("First"));
+        pool.get("Second");
+        String again = new String("First");
+        assertSame(again, pool.get(again));
+        assertNotSame(first, pool.get(new String("First")));
+    }
+
+    @Test
+    void sizeMustBePowerOfTwo() {
+        assertEquals(4096, new TextPool(4096).size());
+        assertThrows(IllegalArgumentException.class, () -> new TextPool(0));
+        assertThrows(IllegalArgumentException.class, () -> new TextPool(12));
+    }
+}